@@ -13,6 +13,7 @@ import android.os.Build;
 import com.orgzly.R;
 import com.orgzly.android.data.DataRepository;
 import com.orgzly.android.data.DbRepoBookRepository;
+import com.orgzly.android.db.DatabaseStrictMode;
 import com.orgzly.android.db.OrgzlyDatabase;
 import com.orgzly.android.prefs.AppPreferences;
 import com.orgzly.android.prefs.AppPreferencesValues;
@@ -27,6 +28,7 @@ import org.junit.Rule;
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 
 import androidx.core.content.pm.PackageInfoCompat;
 import androidx.test.platform.app.InstrumentationRegistry;
@@ -52,7 +54,7 @@ public class OrgzlyTest {
 
     protected DataRepository dataRepository;
 
-    private OrgzlyDatabase database;
+    protected OrgzlyDatabase database;
 
     @Rule
     public GrantPermissionRule grantPermissionRule;
@@ -95,6 +97,10 @@ public class OrgzlyTest {
         setupPreferences();
 
         dataRepository.clearDatabase();
+
+        /* Ignore violations from previous tests. */
+        getInstrumentation().waitForIdleSync();
+        DatabaseStrictMode.takeViolations();
     }
 
     @After
@@ -102,6 +108,28 @@ public class OrgzlyTest {
         restorePreferences();
 
         database.close();
+
+        assertNoMainThreadDatabaseAccess();
+    }
+
+    /**
+     * Fails if the database was accessed on the main thread during the test.
+     */
+    private void assertNoMainThreadDatabaseAccess() {
+        /* Violations are reported once the main thread is done with the current message. */
+        getInstrumentation().waitForIdleSync();
+
+        List<Throwable> violations = DatabaseStrictMode.takeViolations();
+
+        if (!violations.isEmpty()) {
+            AssertionError error = new AssertionError(
+                    violations.size() + " database access(es) on the main thread, first: "
+                            + violations.get(0).getMessage());
+
+            error.initCause(violations.get(0));
+
+            throw error;
+        }
     }
 
     private void setupPreferences() {
@@ -2,7 +2,9 @@ package com.orgzly.android
 
 import android.app.Application
 import android.content.Context
+import android.os.Bundle
 import androidx.test.runner.AndroidJUnitRunner
+import com.orgzly.android.db.DatabaseStrictMode
 
 class OrgzlyTestRunner : AndroidJUnitRunner() {
 
@@ -13,4 +15,22 @@ class OrgzlyTestRunner : AndroidJUnitRunner() {
     override fun newApplication(cl: ClassLoader, className: String, context: Context): Application {
         return super.newApplication(cl, AppUnderTest::class.java.name, context)
     }
-}
\ No newline at end of file
+
+    /**
+     * Called on the main thread, before the application is created.
+     *
+     * Database access on the main thread fails the test (see [OrgzlyTest]),
+     * unless disabled with `-e databaseStrictMode false`.
+     */
+    override fun onCreate(arguments: Bundle?) {
+        if (arguments?.getString(ARG_DATABASE_STRICT_MODE) != "false") {
+            DatabaseStrictMode.enable()
+        }
+
+        super.onCreate(arguments)
+    }
+
+    companion object {
+        private const val ARG_DATABASE_STRICT_MODE = "databaseStrictMode"
+    }
+}
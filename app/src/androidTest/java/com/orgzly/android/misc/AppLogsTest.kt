@@ -0,0 +1,70 @@
+package com.orgzly.android.misc
+
+import androidx.test.platform.app.InstrumentationRegistry
+import com.orgzly.android.data.logs.DatabaseAppLogsRepository
+import com.orgzly.android.db.OrgzlyDatabase
+import com.orgzly.android.db.entity.AppLog
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+
+class AppLogsTest {
+    private lateinit var db: OrgzlyDatabase
+
+    private lateinit var appLogs: DatabaseAppLogsRepository
+
+    @Before
+    fun setUp() {
+        db = OrgzlyDatabase.forMemory(InstrumentationRegistry.getInstrumentation().targetContext)
+
+        appLogs = DatabaseAppLogsRepository(db, maxRows = 5, maxAge = 60_000)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    @Test
+    fun testLatestRowsKept() {
+        for (i in 1..8) {
+            appLogs.log("test", "Entry $i")
+        }
+
+        appLogs.flush()
+
+        assertEquals(
+                listOf("Entry 4", "Entry 5", "Entry 6", "Entry 7", "Entry 8"),
+                messages(limit = 10))
+    }
+
+    @Test
+    fun testOldRowsDeleted() {
+        db.appLog().insert(AppLog(0, System.currentTimeMillis() - 120_000, "test", "Old entry"))
+
+        appLogs.log("test", "New entry")
+        appLogs.flush()
+
+        assertEquals(listOf("New entry"), messages(limit = 10))
+    }
+
+    @Test
+    fun testFlowLimited() {
+        for (i in 1..4) {
+            appLogs.log("test", "Entry $i")
+        }
+
+        appLogs.flush()
+
+        assertEquals(listOf("Entry 3", "Entry 4"), messages(limit = 2))
+    }
+
+    private fun messages(limit: Int): List<String> {
+        return runBlocking {
+            appLogs.getFlow(limit).first().map { it.message }
+        }
+    }
+}
@@ -41,4 +41,18 @@ class DataTest : OrgzlyTest() {
 
         assertEquals(listOf("tag1", "tag2", "tag3"), dataRepository.selectAllTags())
     }
+
+    @Test
+    fun testModificationTimeAlwaysIncreases() {
+        val book = testUtils.setupBook("book-01", "* Note 01-01")
+        val note = dataRepository.getLastNote("Note 01-01")!!
+
+        val mtimes = (1..5).map { i ->
+            dataRepository.updateNoteContent(book.book.id, note.id, "Content $i")
+
+            dataRepository.getBookChangeStamps().first { it.id == book.book.id }.mtime!!
+        }
+
+        assertEquals(mtimes.sorted().distinct(), mtimes)
+    }
 }
@@ -0,0 +1,56 @@
+package com.orgzly.android.misc
+
+import android.os.Build
+import androidx.test.platform.app.InstrumentationRegistry.getInstrumentation
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.db.DatabaseStrictMode
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+
+class DatabaseStrictModeTest : OrgzlyTest() {
+    @Test
+    fun testEnabledByRunner() {
+        assertTrue(DatabaseStrictMode.isEnabled)
+    }
+
+    @Test
+    fun testRoomRefusesQueriesOnMainThread() {
+        var error: Throwable? = null
+
+        getInstrumentation().runOnMainSync {
+            try {
+                dataRepository.getBooks()
+            } catch (e: IllegalStateException) {
+                error = e
+            }
+        }
+
+        assertTrue(error is IllegalStateException)
+    }
+
+    @Test
+    fun testStatementOnMainThreadRecorded() {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.P)
+
+        getInstrumentation().runOnMainSync {
+            database.openHelper.writableDatabase.query("SELECT 1").close()
+        }
+        getInstrumentation().waitForIdleSync()
+
+        val violations = DatabaseStrictMode.takeViolations()
+
+        assertEquals(1, violations.size)
+        assertTrue(violations.first().message!!.contains("SELECT 1"))
+    }
+
+    @Test
+    fun testStatementOffMainThreadNotRecorded() {
+        database.openHelper.writableDatabase.query("SELECT 1").close()
+
+        getInstrumentation().waitForIdleSync()
+
+        assertTrue(DatabaseStrictMode.takeViolations().isEmpty())
+    }
+}
@@ -0,0 +1,94 @@
+package com.orgzly.android.misc
+
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.db.DatabaseWriter
+import com.orgzly.android.db.entity.SavedSearch
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class DatabaseWriterTest : OrgzlyTest() {
+    @Test
+    fun testConcurrentWrites() {
+        val writer = DatabaseWriter(database, 50)
+        val executor = Executors.newFixedThreadPool(8)
+
+        val results = (1..40).map { i ->
+            executor.submit(Callable {
+                writer.runInTransaction(Callable {
+                    database.savedSearch().insert(SavedSearch(0, "Search $i", "t.$i", 100 + i))
+                })
+            })
+        }.map { it.get() }
+
+        executor.shutdown()
+
+        assertEquals(40, results.toSet().size)
+        assertEquals(40, database.savedSearch().getAll().count { it.name.startsWith("Search ") })
+    }
+
+    @Test
+    fun testFailedWriteDoesNotAffectOthers() {
+        val writer = DatabaseWriter(database, 200)
+        val executor = Executors.newFixedThreadPool(3)
+
+        val failingRuns = AtomicInteger()
+
+        val first = executor.submit(Callable {
+            writer.runInTransaction(Callable {
+                database.savedSearch().insert(SavedSearch(0, "First", "t.first", 101))
+            })
+        })
+
+        val failing = executor.submit(Callable {
+            writer.runInTransaction(Callable {
+                failingRuns.incrementAndGet()
+                database.savedSearch().insert(SavedSearch(0, "Failing", "t.failing", 102))
+                throw IOException("Failed")
+            })
+        })
+
+        val second = executor.submit(Callable {
+            writer.runInTransaction(Callable {
+                database.savedSearch().insert(SavedSearch(0, "Second", "t.second", 103))
+            })
+        })
+
+        first.get()
+        second.get()
+
+        try {
+            failing.get()
+            throw AssertionError("Expected failure")
+        } catch (e: ExecutionException) {
+            assertTrue(e.cause is IOException)
+        }
+
+        executor.shutdown()
+
+        val names = database.savedSearch().getAll().map { it.name }
+
+        assertTrue(names.contains("First"))
+        assertTrue(names.contains("Second"))
+        assertTrue(!names.contains("Failing"))
+
+        // Failed write is not retried
+        assertEquals(1, failingRuns.get())
+    }
+
+    @Test
+    fun testNestedWrite() {
+        val id = database.writer.runInTransaction(Callable {
+            database.writer.runInTransaction(Callable {
+                database.savedSearch().insert(SavedSearch(0, "Nested", "t.nested", 101))
+            })
+        })
+
+        assertEquals("Nested", database.savedSearch().get(id)?.name)
+    }
+}
@@ -0,0 +1,113 @@
+package com.orgzly.android.misc
+
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.db.entity.AgendaOccurrence
+import com.orgzly.android.repos.RepoType
+import com.orgzly.android.ui.TimeType
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class MaintenanceTest : OrgzlyTest() {
+    @Test
+    fun testUnusedRangesAndTimestampsDeleted() {
+        testUtils.setupBook("book-a", "* Note A\nSCHEDULED: <2018-04-12 Thu>")
+        testUtils.setupBook("book-b", "* Note B\nDEADLINE: <2018-04-13 Fri>")
+
+        // Reload without the time
+        testUtils.setupBook("book-a", "* Note A")
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(1, report.orgRanges)
+        assertEquals(1, report.orgTimestamps)
+
+        // Time of the other note is kept
+        assertEquals("<2018-04-13 Fri>", dataRepository.getLastNoteView("Note B")!!.deadlineRangeString)
+    }
+
+    @Test
+    fun testRangeOfClockKept() {
+        testUtils.setupBook("book-a", "* Note A\nSCHEDULED: <2018-04-12 Thu>")
+        testUtils.setupBook("book-b", "* Note B")
+
+        val rangeId = dataRepository.getLastNote("Note A")!!.scheduledRangeId
+
+        val note = dataRepository.getLastNote("Note B")!!
+        database.note().update(note.copy(clockRangeId = rangeId))
+
+        // Reload without the time, leaving the range used only by the clock
+        testUtils.setupBook("book-a", "* Note A")
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(0, report.orgRanges)
+        assertEquals(0, report.orgTimestamps)
+        assertNotNull(database.orgRange().getByString("<2018-04-12 Thu>"))
+    }
+
+    @Test
+    fun testRangeOfEventKept() {
+        testUtils.setupBook("book-a", "* Note A <2018-04-12 Thu>")
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(0, report.orgRanges)
+        assertEquals(0, report.orgTimestamps)
+        assertEquals(1, database.noteEvent().get(dataRepository.getLastNote("Note A")!!.id).size)
+    }
+
+    @Test
+    fun testRangeOfAgendaOccurrenceKept() {
+        testUtils.setupBook("book-a", "* Note A\nSCHEDULED: <2018-04-12 Thu>")
+        testUtils.setupBook("book-b", "* Note B")
+
+        val rangeId = dataRepository.getLastNote("Note A")!!.scheduledRangeId!!
+
+        val note = dataRepository.getLastNote("Note B")!!
+        database.agendaOccurrence().insert(AgendaOccurrence(note.id, TimeType.SCHEDULED, rangeId, 0, 0))
+
+        // Reload without the time, leaving the range used only by the occurrence
+        testUtils.setupBook("book-a", "* Note A")
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(0, report.orgRanges)
+        assertEquals(0, report.orgTimestamps)
+        assertNotNull(database.orgRange().getByString("<2018-04-12 Thu>"))
+    }
+
+    @Test
+    fun testSupersededVersionedRooksDeleted() {
+        val repo = testUtils.setupRepo(RepoType.MOCK, "mock://repo-a")
+        testUtils.setupBook("book-a", "* Note A", repo)
+
+        testUtils.sync()
+
+        dataRepository.setNotesState(setOf(dataRepository.getLastNote("Note A")!!.id), "DONE")
+
+        testUtils.sync()
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(1, report.versionedRooks)
+
+        // Last synced version is kept
+        assertTrue(dataRepository.getBookView("book-a")!!.hasSync())
+    }
+
+    @Test
+    fun testNothingToDeleteTheSecondTime() {
+        testUtils.setupBook("book-a", "* Note A\nSCHEDULED: <2018-04-12 Thu>")
+        testUtils.setupBook("book-a", "* Note A")
+
+        dataRepository.maintainDatabase()
+
+        val report = dataRepository.maintainDatabase()
+
+        assertEquals(0, report.orgRanges)
+        assertEquals(0, report.orgTimestamps)
+        assertEquals(0, report.versionedRooks)
+    }
+}
@@ -0,0 +1,130 @@
+package com.orgzly.android.misc
+
+import androidx.test.platform.app.InstrumentationRegistry
+import com.orgzly.android.db.OrgzlyDatabase
+import com.orgzly.android.db.dao.NoteDao
+import com.orgzly.android.db.dao.NoteViewDao
+import org.junit.After
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+/**
+ * Query plans of the most frequent shapes of notes queries.
+ */
+class NoteIndexesTest {
+    private lateinit var db: OrgzlyDatabase
+
+    @Before
+    fun setUp() {
+        db = OrgzlyDatabase.forMemory(InstrumentationRegistry.getInstrumentation().targetContext)
+    }
+
+    @After
+    fun tearDown() {
+        db.close()
+    }
+
+    /* NoteViewDao.getVisibleLiveData */
+    @Test
+    fun testVisibleNotes() {
+        val plan = explain(NoteViewDao.SELECT_VISIBLE, 1)
+
+        assertUsesIndex(plan, VISIBLE_NOTES_INDEX)
+    }
+
+    /* NoteViewDao.getVisibleLiveData for a subtree */
+    @Test
+    fun testVisibleNotesOfSubtree() {
+        val plan = explain(NoteViewDao.SELECT_VISIBLE_IN_SUBTREE, 1, 10, 20)
+
+        assertUsesIndex(plan, VISIBLE_NOTES_INDEX)
+    }
+
+    /* NoteDao.getTopLevel */
+    @Test
+    fun testTopLevelNotes() {
+        val plan = explain(NoteDao.SELECT_TOP_LEVEL, 1)
+
+        assertUsesIndex(plan, NESTED_SET_INDEX)
+        assertNotSorted(plan)
+    }
+
+    @Test
+    fun testSubtrees() {
+        val plan = explain(withIds(NoteDao.SELECT_SUBTREE_IDS_FOR_IDS))
+
+        assertUsesIndex(plan, NESTED_SET_INDEX)
+    }
+
+    @Test
+    fun testAncestors() {
+        val plan = explain(withIds(NoteDao.SELECT_ANCESTORS_IDS_FOR_IDS))
+
+        assertUsesIndex(plan, NESTED_SET_INDEX)
+    }
+
+    /* NoteDao.incrementLftForLftGe */
+    @Test
+    fun testMakingSpaceForNewNotes() {
+        // Parameters in order of appearance: inc, bookId, value
+        val plan = explain(NoteDao.INCREMENT_LFT_FOR_LFT_GE, 2, 1, 10)
+
+        assertUsesIndex(plan, NESTED_SET_INDEX)
+    }
+
+    /* NoteDao.getChildren */
+    @Test
+    fun testChildren() {
+        val plan = explain(NoteDao.SELECT_CHILDREN, 1)
+
+        assertUsesIndex(plan, "index_notes_parent_id")
+    }
+
+    /* SqliteQueryBuilder, pr.NAME.VALUE */
+    @Test
+    fun testProperty() {
+        val plan = explain("""
+            SELECT 1 FROM note_properties
+            WHERE note_id = 1 AND name = 'effort' COLLATE NOCASE AND value = '1:00' COLLATE NOCASE
+        """)
+
+        assertUsesIndex(plan, PROPERTY_INDEX)
+    }
+
+    /* NoteDao.firstNoteHavingProperty */
+    @Test
+    fun testFirstNoteHavingProperty() {
+        val plan = explain(NoteDao.SELECT_FIRST_NOTE_HAVING_PROPERTY, "effort", "1:00")
+
+        assertUsesIndex(plan, PROPERTY_INDEX)
+    }
+
+    private fun explain(sql: String, vararg args: Any): List<String> {
+        return db.query("EXPLAIN QUERY PLAN $sql", args).use { cursor ->
+            val detail = cursor.getColumnIndexOrThrow("detail")
+
+            generateSequence { if (cursor.moveToNext()) cursor.getString(detail) else null }.toList()
+        }
+    }
+
+    /* Room expands a collection parameter, SQLite can only bind single values. */
+    private fun withIds(sql: String): String {
+        return sql.replace(":ids", "1, 2")
+    }
+
+    private fun assertUsesIndex(plan: List<String>, index: String) {
+        assertTrue("Expected $index in $plan", plan.any { it.contains(index) })
+    }
+
+    private fun assertNotSorted(plan: List<String>) {
+        assertFalse("Expected no sorting in $plan", plan.any { it.contains("TEMP B-TREE FOR ORDER BY") })
+    }
+
+    companion object {
+        private const val VISIBLE_NOTES_INDEX = "index_notes_book_id_is_cut_folded_under_id_lft"
+        private const val NESTED_SET_INDEX = "index_notes_book_id_is_cut_lft_rgt"
+        private const val PROPERTY_INDEX = "index_note_properties_name_value_nocase"
+    }
+}
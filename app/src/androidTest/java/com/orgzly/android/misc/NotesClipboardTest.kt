@@ -0,0 +1,82 @@
+package com.orgzly.android.misc
+
+import com.google.gson.Gson
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.db.NotesClipboard
+import com.orgzly.android.prefs.AppPreferences
+import com.orgzly.android.usecase.NoteCut
+import com.orgzly.android.usecase.UseCaseRunner
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.fail
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.IOException
+
+class NotesClipboardTest : OrgzlyTest() {
+    @Before
+    fun clearClipboard() {
+        NotesClipboard.clear()
+    }
+
+    @Test
+    fun testSaveAndLoad() {
+        testUtils.setupBook("book-a", "* Note A-01\n:PROPERTIES:\n:A: 1\n:B: 2\n:END:\n** Note A-02\n* Note A-03")
+
+        val ids = setOf(dataRepository.getLastNote("Note A-01")!!.id)
+
+        assertEquals(2, NotesClipboard.save(dataRepository, ids).count)
+
+        val entries = readAll(NotesClipboard.load())
+
+        assertEquals(listOf("Note A-01", "Note A-02"), entries.map { it.note.title })
+        assertEquals(listOf("A" to "1", "B" to "2"), entries[0].properties.map { it.name to it.value })
+        assertEquals(0, entries[1].properties.size)
+    }
+
+    @Test
+    fun testLoadPreviousFormat() {
+        testUtils.setupBook("book-a", "* Note A-01\n:PROPERTIES:\n:A: 1\n:END:\n* Note A-02")
+
+        val entries = listOf("Note A-01", "Note A-02").map { title ->
+            val note = dataRepository.getLastNote(title)!!
+            NotesClipboard.Entry(note, dataRepository.getNoteProperties(note.id))
+        }
+
+        // Whole list serialized at once
+        File(context.filesDir, "clipboard.json").writeText(Gson().toJson(entries))
+        AppPreferences.notesClipboard(context, "${entries.size}")
+
+        assertEquals(entries, readAll(NotesClipboard.load()))
+    }
+
+    @Test
+    fun testNotesNotCutIfSaveFails() {
+        val book = testUtils.setupBook("book-a", "* Note A-01\n* Note A-02")
+
+        // Temporary file cannot be written
+        val tmpFile = File(context.filesDir, "clipboard.json.tmp")
+        File(tmpFile, "file").apply { parentFile!!.mkdirs() }.createNewFile()
+
+        try {
+            UseCaseRunner.run(NoteCut(book.book.id, setOf(dataRepository.getLastNote("Note A-01")!!.id)))
+            fail("Expected cutting to fail")
+
+        } catch (e: IOException) {
+            // Expected
+
+        } finally {
+            tmpFile.deleteRecursively()
+        }
+
+        assertNotNull(dataRepository.getLastNote("Note A-01"))
+        assertEquals(0, NotesClipboard.count())
+    }
+
+    private fun readAll(clipboard: NotesClipboard): List<NotesClipboard.Entry> {
+        val entries = mutableListOf<NotesClipboard.Entry>()
+        clipboard.forEachEntry { entries.add(it) }
+        return entries
+    }
+}
@@ -42,6 +42,30 @@ class SettingsTest : OrgzlyTest() {
         }
     }
 
+    @Test
+    @Throws(IOException::class)
+    fun testNotesReparseInMultiplePages() {
+        val content = (1..2500).joinToString("\n") { i ->
+            if (i % 2 == 0) "* NEXT Note $i" else "* Note $i"
+        }
+
+        testUtils.setupBook("booky", content)
+
+        AppPreferences.states(context, "TODO|DONE")
+        assertEquals(0, dataRepository.reParseNotesStateAndTitles())
+
+        AppPreferences.states(context, "TODO NEXT|DONE")
+        assertEquals(1250, dataRepository.reParseNotesStateAndTitles())
+
+        dataRepository.getLastNote("Note 2500").let {
+            assertEquals("NEXT", it?.state)
+        }
+
+        dataRepository.getLastNote("Note 2499").let {
+            assertNull(it?.state)
+        }
+    }
+
     @Test
     @Throws(IOException::class)
     fun testStarInContent() {
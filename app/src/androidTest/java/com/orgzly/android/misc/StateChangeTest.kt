@@ -7,6 +7,7 @@ import com.orgzly.android.prefs.AppPreferences
 import com.orgzly.org.datetime.OrgDateTime
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
 import org.junit.Before
 import org.junit.Test
 import java.io.StringWriter
@@ -120,6 +121,99 @@ class StateChangeTest : OrgzlyTest() {
         assertEquals(expectedBook, exportedBook)
     }
 
+    @Test
+    fun testShiftedTimesOfMultipleNotes() {
+        AppPreferences.logOnTimeShift(context, false)
+
+        val book = testUtils.setupBook(
+                "book-a",
+                "* TODO Task 1\n" +
+                "SCHEDULED: <2018-04-12 Thu +1d>\n" +
+                ":PROPERTIES:\n" +
+                ":STYLE:    habit\n" +
+                ":END:\n" +
+                "* TODO Task 2 <2018-04-12 Thu +1w>\n" +
+                ":PROPERTIES:\n" +
+                ":LAST_REPEAT: [2018-04-05 Thu 09:00]\n" +
+                ":END:\n" +
+                "* TODO Task 3\n" +
+                "<2018-04-12 Thu +1m>")
+
+        val ids = listOf("Task 1", "Task 2", "Task 3").map { dataRepository.getLastNote(it)!!.id }
+
+        assertEquals(3, dataRepository.setNotesState(ids.toSet(), "DONE"))
+
+        val now = OrgDateTime(false).toString()
+
+        val expectedBook = "* TODO Task 1\n" +
+                           "SCHEDULED: <2018-04-13 Fri +1d>\n" +
+                           ":PROPERTIES:\n" +
+                           ":STYLE:    habit\n" +
+                           ":LAST_REPEAT: " + now + "\n" +
+                           ":END:\n" +
+                           "\n" +
+                           "* TODO Task 2 <2018-04-19 Thu +1w>\n" +
+                           ":PROPERTIES:\n" +
+                           ":LAST_REPEAT: " + now + "\n" +
+                           ":END:\n" +
+                           "\n" +
+                           "* TODO Task 3\n" +
+                           ":PROPERTIES:\n" +
+                           ":LAST_REPEAT: " + now + "\n" +
+                           ":END:\n" +
+                           "\n" +
+                           "<2018-05-12 Sat +1m>\n\n"
+
+        assertEquals(expectedBook, exportBook(book))
+
+        assertEquals(listOf(0, 1, 1), ids.map { dataRepository.getNoteEvents(it).size })
+    }
+
+    @Test
+    fun testNotesWithSameTimesChangedTogether() {
+        AppPreferences.setLastRepeatOnTimeShift(context, false)
+        AppPreferences.logOnTimeShift(context, false)
+
+        val book = testUtils.setupBook(
+                "book-a",
+                "* TODO Habit 1\n" +
+                "SCHEDULED: <2018-04-12 Thu +1d>\n" +
+                "* TODO Habit 2\n" +
+                "SCHEDULED: <2018-04-12 Thu +1d>\n" +
+                "* TODO Habit 3\n" +
+                "SCHEDULED: <2018-04-10 Tue +1d>\n" +
+                "* NEXT Habit 4\n" +
+                "SCHEDULED: <2018-04-12 Thu +1d>\n" +
+                "* TODO Task\n" +
+                "Content")
+
+        val ids = listOf("Habit 1", "Habit 2", "Habit 3", "Habit 4", "Task").map {
+            dataRepository.getLastNote(it)!!.id
+        }
+
+        assertEquals(5, dataRepository.setNotesState(ids.toSet(), "DONE"))
+
+        val task = dataRepository.getLastNote("Task")!!
+
+        assertEquals("DONE", task.state)
+        assertNotNull(task.closedRangeId)
+
+        val expectedBook = "* TODO Habit 1\n" +
+                           "SCHEDULED: <2018-04-13 Fri +1d>\n" +
+                           "\n" +
+                           "* TODO Habit 2\n" +
+                           "SCHEDULED: <2018-04-13 Fri +1d>\n" +
+                           "\n" +
+                           "* TODO Habit 3\n" +
+                           "SCHEDULED: <2018-04-11 Wed +1d>\n" +
+                           "\n" +
+                           "* NEXT Habit 4\n" +
+                           "SCHEDULED: <2018-04-13 Fri +1d>\n" +
+                           "\n"
+
+        assertTrue(exportBook(book).startsWith(expectedBook))
+    }
+
     private fun exportBook(book: BookView): String {
         val sw = StringWriter()
 
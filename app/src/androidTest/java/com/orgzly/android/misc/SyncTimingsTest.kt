@@ -0,0 +1,52 @@
+package com.orgzly.android.misc
+
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.db.entity.BookAction
+import com.orgzly.android.repos.RepoType
+import com.orgzly.android.sync.SyncTimings
+import com.orgzly.android.sync.SyncUtils
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SyncTimingsTest : OrgzlyTest() {
+    @Test
+    fun testBookTimingsAddedToRepoAndSync() {
+        val repo = testUtils.setupRepo(RepoType.MOCK, "mock://repo-a")
+        testUtils.setupRook(repo, "mock://repo-a/book-a.org", "* Note A", "1abcdef", 1400067156)
+
+        val timings = SyncTimings()
+
+        val namesakes = SyncUtils.groupAllNotebooksByName(dataRepository, timings)
+
+        val bookTimings = SyncTimings(timings.forRepo("mock://repo-a"))
+
+        SyncUtils.syncNamesake(dataRepository, namesakes.getValue("book-a"), bookTimings)
+
+        val repoTimings = timings.repos().getValue("mock://repo-a")
+
+        assertTrue(repoTimings.millis(SyncTimings.Phase.LISTING) > 0)
+        assertEquals(0, bookTimings.millis(SyncTimings.Phase.LISTING))
+
+        for (phase in listOf(SyncTimings.Phase.DOWNLOAD, SyncTimings.Phase.PARSE)) {
+            assertEquals(bookTimings.millis(phase), repoTimings.millis(phase))
+            assertEquals(bookTimings.millis(phase), timings.millis(phase))
+        }
+    }
+
+    @Test
+    fun testTimingsKeptWithLastAction() {
+        val book = testUtils.setupBook("book-a", "* Note A")
+
+        dataRepository.setBookLastActionAndSyncStatus(
+            book.book.id, BookAction.forNow(BookAction.Type.INFO, "Loaded", "download 120 ms, parse 45 ms"))
+
+        assertEquals("download 120 ms, parse 45 ms", dataRepository.getBook(book.book.id)?.lastAction?.timings)
+
+        // Actions other than syncing have no timings
+        dataRepository.setBookLastAction(book.book.id, BookAction.forNow(BookAction.Type.INFO, "Renamed"))
+
+        assertNull(dataRepository.getBook(book.book.id)?.lastAction?.timings)
+    }
+}
@@ -0,0 +1,45 @@
+package com.orgzly.android.query
+
+import com.orgzly.android.query.user.DottedQueryParser
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.Parameterized
+
+@RunWith(value = Parameterized::class)
+class QueryRefinementTest(private val param: Parameter) {
+
+    data class Parameter(val previous: String, val query: String, val texts: List<String>?)
+
+    companion object {
+        @JvmStatic @Parameterized.Parameters(name = "{index}: {1} after {0} should be refined by {2}")
+        fun data(): Collection<Parameter> {
+            return listOf(
+                    Parameter("foo", "foob", listOf("foob")),
+                    Parameter("foo", "FOObar", listOf("FOObar")),
+                    Parameter("foo", "foo bar", listOf("bar")),
+                    Parameter("b.foo i.todo", "b.foo i.todo bar", listOf("bar")),
+                    Parameter("b.foo o.p", "b.foo bar o.p", listOf("bar")),
+                    Parameter("o.p", "bar o.p", listOf("bar")),
+                    Parameter("foo", "foo", null),
+                    Parameter("foo", "fo", null),
+                    Parameter("foo", "bar", null),
+                    Parameter("foo", "foo b.bar", null),
+                    Parameter("foo", "foo bar o.p", null),
+                    Parameter("foo or bar", "foo or barr", null),
+                    Parameter("foo", "foo_", null),
+                    Parameter("foo limit.10", "foob limit.10", listOf("foob")),
+                    Parameter("foo limit.10", "foob", null),
+                    Parameter("", "foo", null),
+                    Parameter("ad.3", "ad.3 foo", null)
+            )
+        }
+    }
+
+    @Test
+    fun testExtractRefiningTexts() {
+        val parser = DottedQueryParser()
+        val result = QueryUtils.extractRefiningTexts(parser.parse(param.previous), parser.parse(param.query))
+        assertEquals(param.texts, result)
+    }
+}
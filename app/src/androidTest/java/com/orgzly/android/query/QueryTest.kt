@@ -2,6 +2,7 @@ package com.orgzly.android.query
 
 import androidx.test.espresso.matcher.ViewMatchers.assertThat
 import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.query.sql.SqlQuery
 import com.orgzly.android.query.sql.SqliteQueryBuilder
 import com.orgzly.android.query.user.DottedQueryBuilder
 import com.orgzly.android.query.user.DottedQueryParser
@@ -18,7 +19,7 @@ class QueryTest(private val param: Parameter) : OrgzlyTest() {
     private lateinit var actualParsedQuery: String
     private lateinit var actualQueryString: String
     private lateinit var actualSqlSelection: String
-    private lateinit var actualSqlSelectionArgs: List<String>
+    private lateinit var actualSqlSelectionArgs: List<Any>
     private lateinit var actualSqlOrder: String
     private lateinit var actualQuerySortOrders: List<SortOrder>
     private lateinit var actualQueryOptions: Options
@@ -28,7 +29,7 @@ class QueryTest(private val param: Parameter) : OrgzlyTest() {
             val expectedParsedQuery: String? = null,
             val expectedQueryString: String? = null,
             val expectedSqlSelection: String? = null,
-            val expectedSelectionArgs: List<String>? = null,
+            val expectedSelectionArgs: List<Any>? = null,
             val expectedSqlOrder: String? = null,
 
             val expectedQuerySortOrders: List<SortOrder>? = null,
@@ -178,27 +179,32 @@ class QueryTest(private val param: Parameter) : OrgzlyTest() {
                     Parameter(
                             queryString = "s.le.2w",
                             expectedQueryString = "s.2w",
-                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < " + TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 14+1) + "))"
+                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < ?))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.WEEK_OF_YEAR, 2, true))
                     ),
                     Parameter(
                             queryString = "s.le.3d",
                             expectedQueryString = "s.3d",
-                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < " + TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 3+1) + "))"
+                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < ?))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 3, true))
                     ),
                     Parameter(
                             queryString = "d.tom",
                             expectedQueryString = "d.tomorrow",
-                            expectedSqlSelection = "((deadline_is_active = 1 AND deadline_time_timestamp != 0 AND deadline_time_timestamp < " + TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 1+1) + "))"
+                            expectedSqlSelection = "((deadline_is_active = 1 AND deadline_time_timestamp != 0 AND deadline_time_timestamp < ?))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 1, true))
                     ),
                     Parameter(
                             queryString = "c.eq.today",
                             expectedQueryString = "c.today",
-                            expectedSqlSelection = "((closed_time_timestamp != 0 AND ${TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 0)} <= closed_time_timestamp AND closed_time_timestamp < " + TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 0+1) + "))"
+                            expectedSqlSelection = "((closed_time_timestamp != 0 AND ? <= closed_time_timestamp AND closed_time_timestamp < ?))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 0), SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 0, true))
                     ),
                     Parameter(
                             queryString = "c.ge.-1d", // Since yesterday
                             expectedQueryString = "c.ge.yesterday",
-                            expectedSqlSelection = "((closed_time_timestamp != 0 AND ${TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, -1)} <= closed_time_timestamp))"
+                            expectedSqlSelection = "((closed_time_timestamp != 0 AND ? <= closed_time_timestamp))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, -1))
                     ),
                     Parameter(
                             queryString = "p.a",
@@ -263,7 +269,8 @@ class QueryTest(private val param: Parameter) : OrgzlyTest() {
                     Parameter(
                             queryString = "s.ge.3d",
                             expectedQueryString = "s.ge.3d",
-                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND ${TimeUtils.timeFromNow(Calendar.DAY_OF_MONTH, 3)} <= scheduled_time_timestamp))"
+                            expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND ? <= scheduled_time_timestamp))",
+                            expectedSelectionArgs = listOf(SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 3))
                     ),
                     Parameter(
                             queryString = "((i.todo s.no) or i.later) o.state",
@@ -272,6 +279,26 @@ class QueryTest(private val param: Parameter) : OrgzlyTest() {
                             expectedSqlSelection = "(((COALESCE(state, '') = ? AND scheduled_time_timestamp IS NULL) OR COALESCE(state, '') = ?))",
                             expectedSelectionArgs = listOf("TODO", "LATER")
                     ),
+                    Parameter(
+                            queryString = "pr.effort.1:00",
+                            expectedQueryString = "pr.effort.1:00",
+                            expectedSqlSelection = "(EXISTS (SELECT 1 FROM note_properties WHERE note_id = id AND name = ? COLLATE NOCASE AND value = ? COLLATE NOCASE))",
+                            expectedSelectionArgs = listOf("effort", "1:00")
+                    ),
+                    Parameter(
+                            queryString = "i.todo .pr.project.\"My Project\" .o.pr.effort",
+                            expectedQueryString = "i.todo .pr.project.\"My Project\" .o.pr.effort",
+                            expectedSqlSelection = "(COALESCE(state, '') = ? AND NOT(EXISTS (SELECT 1 FROM note_properties WHERE note_id = id AND name = ? COLLATE NOCASE AND value = ? COLLATE NOCASE)))",
+                            expectedSelectionArgs = listOf("TODO", "project", "My Project"),
+                            expectedSqlOrder = "(SELECT value FROM note_properties WHERE note_id = id AND name = 'effort' COLLATE NOCASE ORDER BY position LIMIT 1) IS NULL, (SELECT value FROM note_properties WHERE note_id = id AND name = 'effort' COLLATE NOCASE ORDER BY position LIMIT 1) DESC, lft",
+                            expectedQuerySortOrders = listOf(SortOrder.Property("effort", true))
+                    ),
+                    Parameter(
+                            queryString = "i.todo limit.10 o.p",
+                            expectedQueryString = "i.todo o.p limit.10",
+                            expectedSqlSelection = "(COALESCE(state, '') = ?)",
+                            expectedQueryOptions = Options(limit = 10)
+                    ),
                     Parameter(
                             queryString = "o.title",
                             expectedQueryString = "o.t",
@@ -9,16 +9,19 @@ import org.junit.runners.Parameterized
 @RunWith(value = Parameterized::class)
 class QueryUtilsTest(private val param: Parameter) {
 
-    data class Parameter(val query: String, val bookName: String?)
+    data class Parameter(val query: String, val bookName: String?, val bookNames: Set<String>?)
 
     companion object {
         @JvmStatic @Parameterized.Parameters(name = "{index}: query {0} should return book name {1}")
         fun data(): Collection<Parameter> {
             return listOf(
-                    Parameter("b.foo", "foo"),
-                    Parameter("b.foo b.bar", "foo"),
-                    Parameter("foo or b.bar", "bar"),
-                    Parameter("", null)
+                    Parameter("b.foo", "foo", setOf("foo")),
+                    Parameter("b.foo b.bar", "foo", emptySet()),
+                    Parameter("b.foo t.bar", "foo", setOf("foo")),
+                    Parameter("foo or b.bar", "bar", null),
+                    Parameter("b.foo or b.bar", "foo", setOf("foo", "bar")),
+                    Parameter(".b.foo", null, null),
+                    Parameter("", null, null)
             )
         }
     }
@@ -29,4 +32,11 @@ class QueryUtilsTest(private val param: Parameter) {
         val result = QueryUtils.extractFirstBookNameFromQuery(condition)
         assertEquals(param.bookName, result)
     }
+
+    @Test
+    fun testExtractBookNamesRestriction() {
+        val condition = DottedQueryParser().parse(param.query).condition
+        val result = QueryUtils.extractBookNamesRestriction(condition)
+        assertEquals(param.bookNames, result)
+    }
 }
\ No newline at end of file
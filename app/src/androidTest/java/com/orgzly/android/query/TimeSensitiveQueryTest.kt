@@ -2,6 +2,7 @@ package com.orgzly.android.query
 
 import androidx.test.espresso.matcher.ViewMatchers
 import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.query.sql.SqlQuery
 import com.orgzly.android.query.sql.SqliteQueryBuilder
 import com.orgzly.android.query.user.DottedQueryParser
 import org.hamcrest.Matchers
@@ -18,8 +19,8 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
     fun testScheduledWithinHours1() {
         // Parse query
         val queryString = "s.le.2h"
-        val expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < " + TimeUtils.timeFromNow(
-            Calendar.HOUR_OF_DAY, 2+1) + "))"
+        val expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < ?))"
+        val expectedSqlSelectionArgs = listOf<Any>(TimeUtils.timeFromNow(Calendar.HOUR_OF_DAY, 2+1))
         val parser = DottedQueryParser()
         val query = parser.parse(queryString)
 
@@ -29,6 +30,7 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
 
         // Build query
         val actualSqlSelection = sqlQuery.selection
+        val actualSqlSelectionArgs = SqlQuery.resolveArgs(sqlQuery.selectionArgs).toList()
 
         expectedSqlSelection.let {
             ViewMatchers.assertThat(
@@ -37,14 +39,22 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
                 Matchers.`is`(expectedSqlSelection)
             )
         }
+
+        expectedSqlSelectionArgs.let {
+            ViewMatchers.assertThat(
+                queryString,
+                actualSqlSelectionArgs,
+                Matchers.`is`(expectedSqlSelectionArgs)
+            )
+        }
     }
 
     @Test
     fun testScheduledWithinHours2() {
         // Parse query
         val queryString = "s.le.+2h"
-        val expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < " + TimeUtils.timeFromNow(
-            Calendar.HOUR_OF_DAY, 2+1) + "))"
+        val expectedSqlSelection = "((scheduled_is_active = 1 AND scheduled_time_timestamp != 0 AND scheduled_time_timestamp < ?))"
+        val expectedSqlSelectionArgs = listOf<Any>(TimeUtils.timeFromNow(Calendar.HOUR_OF_DAY, 2+1))
         val parser = DottedQueryParser()
         val query = parser.parse(queryString)
 
@@ -54,6 +64,7 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
 
         // Build query
         val actualSqlSelection = sqlQuery.selection
+        val actualSqlSelectionArgs = SqlQuery.resolveArgs(sqlQuery.selectionArgs).toList()
 
         expectedSqlSelection.let {
             ViewMatchers.assertThat(
@@ -62,13 +73,22 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
                 Matchers.`is`(expectedSqlSelection)
             )
         }
+
+        expectedSqlSelectionArgs.let {
+            ViewMatchers.assertThat(
+                queryString,
+                actualSqlSelectionArgs,
+                Matchers.`is`(expectedSqlSelectionArgs)
+            )
+        }
     }
 
     @Test
     fun testClosedRecently() {
         // Parse query
         val queryString = "c.gt.-1h"
-        val expectedSqlSelection = "((closed_time_timestamp != 0 AND ${TimeUtils.timeFromNow(Calendar.HOUR_OF_DAY, 0)} <= closed_time_timestamp))"
+        val expectedSqlSelection = "((closed_time_timestamp != 0 AND ? <= closed_time_timestamp))"
+        val expectedSqlSelectionArgs = listOf<Any>(TimeUtils.timeFromNow(Calendar.HOUR_OF_DAY, 0))
         val parser = DottedQueryParser()
         val query = parser.parse(queryString)
 
@@ -78,6 +98,7 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
 
         // Build query
         val actualSqlSelection = sqlQuery.selection
+        val actualSqlSelectionArgs = SqlQuery.resolveArgs(sqlQuery.selectionArgs).toList()
 
         expectedSqlSelection.let {
             ViewMatchers.assertThat(
@@ -86,5 +107,13 @@ class TimeSensitiveQueryTest : OrgzlyTest() {
                 Matchers.`is`(expectedSqlSelection)
             )
         }
+
+        expectedSqlSelectionArgs.let {
+            ViewMatchers.assertThat(
+                queryString,
+                actualSqlSelectionArgs,
+                Matchers.`is`(expectedSqlSelectionArgs)
+            )
+        }
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import static org.junit.Assert.fail;
 
 import com.orgzly.android.BookName;
 import com.orgzly.android.OrgzlyTest;
+import com.orgzly.android.data.DataRepository;
 import com.orgzly.android.db.entity.BookView;
 import com.orgzly.android.db.entity.Note;
 import com.orgzly.android.db.entity.NoteView;
@@ -16,14 +17,18 @@ import com.orgzly.android.query.Query;
 import com.orgzly.android.query.user.InternalQueryParser;
 import com.orgzly.android.sync.BookNamesake;
 import com.orgzly.android.sync.SyncUtils;
+import com.orgzly.org.datetime.OrgDateTime;
 
 import org.joda.time.DateTime;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 // FIXME: Clean this up - split it up.
 public class DataRepositoryTest extends OrgzlyTest {
@@ -183,4 +188,117 @@ public class DataRepositoryTest extends OrgzlyTest {
         List<NoteView> notes = dataRepository.selectNotesFromQuery(query);
         Assert.assertEquals(1, notes.size());
     }
+
+    @Test
+    public void testAgendaQueryWithOccurrences() {
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        String yesterday = today.minusDays(1).toString("YYYY-MM-dd");
+        String tomorrow = today.plusDays(1).toString("YYYY-MM-dd");
+        String inTenDays = today.plusDays(10).toString("YYYY-MM-dd");
+
+        testUtils.setupBook(
+                "notebook-1",
+                "* Note A\nSCHEDULED: <" + tomorrow + ">\n" +
+                "* Note B\nSCHEDULED: <" + inTenDays + ">\n" +
+                "* Note C\nDEADLINE: <" + yesterday + ">\n" +
+                "* Note D\nSCHEDULED: <2010-01-01 .+1d>\n" +
+                "* Note E\n<" + tomorrow + ">\n" +
+                "* Note F\nSCHEDULED: [" + tomorrow + "]\n"
+        );
+
+        Query query = new InternalQueryParser().parse("ad.3");
+
+        assertEquals("[Note A, Note B, Note C, Note D, Note E]", titles(dataRepository.selectNotesFromQuery(query)));
+
+        dataRepository.updateAgendaOccurrences();
+
+        // Note B is too far in the future
+        assertEquals("[Note A, Note C, Note D, Note E]", titles(dataRepository.selectNotesFromQuery(query)));
+
+        // Modified note is selected before its occurrences are updated
+        Note noteB = dataRepository.getLastNote("Note B");
+        dataRepository.setNotesScheduledTime(
+                Collections.singleton(noteB.getId()),
+                OrgDateTime.parse("<" + tomorrow + ">"));
+
+        assertEquals("[Note A, Note B, Note C, Note D, Note E]", titles(dataRepository.selectNotesFromQuery(query)));
+
+        dataRepository.updateAgendaOccurrences();
+
+        assertEquals("[Note A, Note B, Note C, Note D, Note E]", titles(dataRepository.selectNotesFromQuery(query)));
+    }
+
+    @Test
+    public void testAgendaQueryWithStoredOccurrences() {
+        String inTenDays = DateTime.now().withTimeAtStartOfDay().plusDays(10).toString("YYYY-MM-dd");
+
+        testUtils.setupBook("notebook-1", "* Note A\nSCHEDULED: <" + inTenDays + ">\n");
+
+        Query query = new InternalQueryParser().parse("ad.3");
+
+        dataRepository.updateAgendaOccurrences();
+
+        // As after a restart
+        DataRepository restartedRepository = new DataRepository(
+                context,
+                database,
+                new RepoFactory(context, dbRepoBookRepository),
+                context.getResources(),
+                localStorage);
+
+        assertEquals("[]", titles(restartedRepository.selectNotesFromQuery(query)));
+    }
+
+    @Test
+    public void testFindNoteHavingIdProperty() {
+        testUtils.setupBook(
+                "notebook-1",
+                "* Note A\n:PROPERTIES:\n:ID: Note-A-Id\n:END:\n" +
+                "* Note B\n:PROPERTIES:\n:custom_id: note-b\n:END:\n" +
+                "* Note C\n:PROPERTIES:\n:OTHER: Other Value\n:END:"
+        );
+
+        assertEquals(
+                dataRepository.getLastNote("Note A").getId(),
+                dataRepository.findNoteHavingProperty("ID", "note-a-id").getNoteId());
+
+        assertEquals(
+                dataRepository.getLastNote("Note B").getId(),
+                dataRepository.findNoteHavingProperty("CUSTOM_ID", "NOTE-B").getNoteId());
+
+        assertEquals(
+                dataRepository.getLastNote("Note C").getId(),
+                dataRepository.findNoteHavingProperty("other", "other value").getNoteId());
+
+        assertNull(dataRepository.findNoteHavingProperty("ID", "note-b"));
+
+        // Deleting the note removes the ID
+        Note noteA = dataRepository.getLastNote("Note A");
+        dataRepository.deleteNotes(noteA.getPosition().getBookId(), Collections.singleton(noteA.getId()));
+
+        assertNull(dataRepository.findNoteHavingProperty("ID", "note-a-id"));
+    }
+
+    @Test
+    public void testQueryLimit() {
+        testUtils.setupBook("notebook-1", "* Note E\n* Note C\n* Note A\n* Note D\n* Note B");
+
+        List<NoteView> notes = dataRepository.selectNotesFromQuery(new InternalQueryParser().parse(".o.t limit.2"));
+        assertEquals(2, notes.size());
+        assertEquals("Note E", notes.get(0).getNote().getTitle());
+        assertEquals("Note D", notes.get(1).getNote().getTitle());
+
+        // Lower limit is used
+        assertEquals(2, dataRepository.selectNotesFromQuery(new InternalQueryParser().parse("o.t limit.2"), 3).size());
+        assertEquals(3, dataRepository.selectNotesFromQuery(new InternalQueryParser().parse("o.t limit.4"), 3).size());
+        assertEquals(5, dataRepository.selectNotesFromQuery(new InternalQueryParser().parse("o.t"), 0).size());
+    }
+
+    private static String titles(List<NoteView> notes) {
+        SortedSet<String> titles = new TreeSet<>();
+        for (NoteView note : notes) {
+            titles.add(note.getNote().getTitle());
+        }
+        return titles.toString();
+    }
 }
@@ -3,10 +3,13 @@ package com.orgzly.android.repos;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import android.net.Uri;
+
 import com.orgzly.android.BookFormat;
 import com.orgzly.android.BookName;
 import com.orgzly.android.NotesOrgExporter;
 import com.orgzly.android.OrgzlyTest;
+import com.orgzly.android.data.DbRepoBookRepository;
 import com.orgzly.android.db.entity.Book;
 import com.orgzly.android.db.entity.Repo;
 import com.orgzly.android.sync.SyncUtils;
@@ -89,4 +92,63 @@ public class LocalDbRepoTest extends OrgzlyTest {
             tmpFile.delete();
         }
     }
+
+    @Test
+    public void testRetrievingPreviousRevisions() throws IOException {
+        Repo repo = testUtils.setupRepo(RepoType.MOCK, "mock://repo-a");
+        Uri uri = Uri.parse("mock://repo-a/mock-book.org");
+
+        testUtils.setupRook(repo, uri.toString(), "* First note\n** Second note", "rev1", 1000L);
+        testUtils.setupRook(repo, uri.toString(), "* First note\n** Changed note", "rev2", 2000L);
+        testUtils.setupRook(repo, uri.toString(), "Preface\n\n* First note\n** Changed note", "rev3", 3000L);
+
+        List<VersionedRook> revisions = dbRepoBookRepository.getRevisions(repo.getId(), uri);
+        assertEquals(2, revisions.size());
+        assertEquals("rev2", revisions.get(0).getRevision());
+        assertEquals("rev1", revisions.get(1).getRevision());
+        assertEquals(1000L, revisions.get(1).getMtime());
+
+        File tmpFile = dataRepository.getTempBookFile();
+        try {
+            dbRepoBookRepository.retrieveRevision(repo.getId(), uri, "rev2", tmpFile);
+            assertEquals("* First note\n** Changed note", MiscUtils.readStringFromFile(tmpFile));
+
+            dbRepoBookRepository.retrieveRevision(repo.getId(), uri, "rev1", tmpFile);
+            assertEquals("* First note\n** Second note", MiscUtils.readStringFromFile(tmpFile));
+
+            SyncRepo syncRepo = testUtils.repoInstance(RepoType.MOCK, "mock://repo-a");
+            syncRepo.retrieveBook("mock-book.org", tmpFile);
+            assertEquals("Preface\n\n* First note\n** Changed note", MiscUtils.readStringFromFile(tmpFile));
+        } finally {
+            tmpFile.delete();
+        }
+    }
+
+    @Test
+    public void testNumberOfRevisionsIsBounded() {
+        Repo repo = testUtils.setupRepo(RepoType.MOCK, "mock://repo-a");
+        Uri uri = Uri.parse("mock://repo-a/mock-book.org");
+
+        for (int i = 0; i < DbRepoBookRepository.MAX_REVISIONS + 5; i++) {
+            testUtils.setupRook(repo, uri.toString(), "* Note " + i, "rev" + i, i);
+        }
+
+        List<VersionedRook> revisions = dbRepoBookRepository.getRevisions(repo.getId(), uri);
+        assertEquals(DbRepoBookRepository.MAX_REVISIONS, revisions.size());
+        assertEquals("rev" + (DbRepoBookRepository.MAX_REVISIONS + 3), revisions.get(0).getRevision());
+    }
+
+    @Test
+    public void testDeletingBookDeletesRevisions() throws IOException {
+        Repo repo = testUtils.setupRepo(RepoType.MOCK, "mock://repo-a");
+        Uri uri = Uri.parse("mock://repo-a/mock-book.org");
+
+        testUtils.setupRook(repo, uri.toString(), "* Note", "rev1", 1000L);
+        testUtils.setupRook(repo, uri.toString(), "* Changed note", "rev2", 2000L);
+
+        dbRepoBookRepository.deleteBook(uri);
+        testUtils.setupRook(repo, uri.toString(), "* Note", "rev3", 3000L);
+
+        assertTrue(dbRepoBookRepository.getRevisions(repo.getId(), uri).isEmpty());
+    }
 }
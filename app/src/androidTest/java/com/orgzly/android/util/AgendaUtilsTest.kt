@@ -200,6 +200,40 @@ class AgendaUtilsTest(private val param: Parameter) {
                                     DateTime(2017, 5, 6, 0, 0),
                                     DateTime(2017, 5, 7, 0, 0))),
 
+                    Parameter(
+                            timeType = TimeType.SCHEDULED,
+                            rangeStr = "<2010-01-01 Fri .+1d>",
+                            days = 3,
+                            isOverdueToday = true,
+                            dates = listOf(
+                                    DateTime(2017, 5, 5, 0, 0),
+                                    DateTime(2017, 5, 6, 0, 0),
+                                    DateTime(2017, 5, 7, 0, 0))),
+
+                    Parameter(
+                            timeType = TimeType.SCHEDULED,
+                            rangeStr = "<2012-01-04 Wed 10:00 +2w>",
+                            days = 14,
+                            isOverdueToday = true,
+                            dates = listOf(
+                                    DateTime(2017, 5, 17, 10, 0))),
+
+                    Parameter(
+                            timeType = TimeType.EVENT,
+                            rangeStr = "<2012-03-14 Wed +1m>",
+                            days = 15,
+                            dates = listOf(
+                                    DateTime(2017, 5, 14, 0, 0))),
+
+                    Parameter(
+                            timeType = TimeType.SCHEDULED,
+                            rangeStr = "<2016-01-01 Fri>--<2017-05-06 Sat>",
+                            days = 5,
+                            isOverdueToday = true,
+                            dates = listOf(
+                                    DateTime(2017, 5, 5, 0, 0),
+                                    DateTime(2017, 5, 6, 0, 0))),
+
                     Parameter(
                             timeType = TimeType.DEADLINE,
                             rangeStr = "<2017-05-10 -4d>",
@@ -0,0 +1,85 @@
+package com.orgzly.android.util
+
+import com.orgzly.android.OrgzlyTest
+import com.orgzly.android.query.user.InternalQueryParser
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class MetricsTest : OrgzlyTest() {
+    @Before
+    override fun setUp() {
+        super.setUp()
+
+        Metrics.reset()
+        Metrics.isEnabled = true
+    }
+
+    @After
+    override fun tearDown() {
+        Metrics.isEnabled = false
+        Metrics.reset()
+
+        super.tearDown()
+    }
+
+    @Test
+    fun testBooksParsedAndNotesInserted() {
+        testUtils.setupBook("book-a", "* Note A-01\n** Note A-02")
+        testUtils.setupBook("book-b", "* Note B-01")
+
+        val snapshot = Metrics.snapshot()
+
+        assertEquals(2L, snapshot.counters[Metrics.BOOKS_PARSED])
+        // Including the root note of each book
+        assertEquals(5L, snapshot.counters[Metrics.NOTES_INSERTED])
+        assertEquals(2L, snapshot.histograms[Metrics.BOOK_PARSE_MS]?.count)
+    }
+
+    @Test
+    fun testQueryLatencyPerSavedSearch() {
+        testUtils.setupBook("book-a", "* TODO Note A-01\n* DONE Note A-02")
+
+        dataRepository.selectNotesFromQuery(InternalQueryParser().parse("it.todo"), 0, 1)
+        dataRepository.selectNotesFromQuery(InternalQueryParser().parse("it.todo"), 0, 1)
+        dataRepository.selectNotesFromQuery(InternalQueryParser().parse("ad.3"), 0, 2)
+        dataRepository.selectNotesFromQuery(InternalQueryParser().parse("it.done"))
+
+        val histograms = Metrics.snapshot().histograms
+
+        assertEquals(2L, histograms["${Metrics.QUERY_MS}[search:1]"]?.count)
+        assertEquals(1L, histograms["${Metrics.QUERY_MS}[search:2]"]?.count)
+        assertEquals(1L, histograms["${Metrics.QUERY_MS}[adhoc]"]?.count)
+    }
+
+    @Test
+    fun testNothingRecordedWhenDisabled() {
+        Metrics.isEnabled = false
+
+        testUtils.setupBook("book-a", "* Note A-01")
+
+        val snapshot = Metrics.snapshot()
+
+        assertTrue(snapshot.counters.isEmpty())
+        assertTrue(snapshot.histograms.isEmpty())
+    }
+
+    @Test
+    fun testHistogram() {
+        listOf(0L, 1L, 3L, 3L, 100L).forEach {
+            Metrics.record("test_ms", it)
+        }
+
+        val histogram = Metrics.snapshot().histograms.getValue("test_ms")
+
+        assertEquals(5L, histogram.count)
+        assertEquals(107L, histogram.sum)
+        assertEquals(0L, histogram.min)
+        assertEquals(100L, histogram.max)
+        assertEquals(4L, histogram.p50)
+        assertEquals(100L, histogram.p99)
+        assertEquals(mapOf(0L to 1L, 1L to 1L, 4L to 2L, 128L to 1L), histogram.buckets)
+    }
+}
@@ -11,9 +11,11 @@ import com.orgzly.android.di.AppComponent;
 import com.orgzly.android.di.DaggerAppComponent;
 import com.orgzly.android.di.module.ApplicationModule;
 import com.orgzly.android.di.module.DatabaseModule;
+import com.orgzly.android.prefs.AppPreferences;
 import com.orgzly.android.ui.CommonActivity;
 import com.orgzly.android.ui.CommonActivityLifecycleCallbacks;
 import com.orgzly.android.ui.settings.SettingsFragment;
+import com.orgzly.android.util.Metrics;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -57,7 +59,11 @@ public class App extends Application {
 
         App.context = getApplicationContext();
 
+        Metrics.setEnabled(AppPreferences.recordMetrics(this));
+
         NotificationChannels.createAll(this);
+
+        AppStartup.onAppCreated();
     }
 
     public static void setDefaultPreferences(Context context, boolean readAgain) {
@@ -0,0 +1,173 @@
+package com.orgzly.android
+
+import android.app.Activity
+import android.os.Build
+import android.os.Process
+import android.os.SystemClock
+import android.os.Trace
+import androidx.activity.ComponentActivity
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.Observer
+import com.orgzly.BuildConfig
+import com.orgzly.android.data.DataRepository
+import com.orgzly.android.db.OrgzlyDatabase
+import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
+import javax.inject.Inject
+
+/**
+ * Opens and warms up the database in the background as soon as the process starts,
+ * so the first screen rarely waits for it. Work which is not needed for the first screen
+ * can be deferred until then with [afterWarmUp].
+ *
+ * All times are in milliseconds since the process started.
+ */
+object AppStartup {
+    private val TAG: String = AppStartup::class.java.name
+
+    /** Trace section measured by the startup macrobenchmark. */
+    const val WARM_UP_TRACE_SECTION = "AppStartup.warmUp"
+
+    /* Used when the process start time is not available. */
+    private val classLoadedAt = SystemClock.uptimeMillis()
+
+    @Volatile
+    var appCreated = 0L
+        private set
+
+    @Volatile
+    var databaseReady = 0L
+        private set
+
+    @Volatile
+    var firstFrame = 0L
+        private set
+
+    private var isWarmedUp = false
+
+    private val deferred = mutableListOf<Runnable>()
+
+    /**
+     * Called at the end of [App.onCreate].
+     */
+    @JvmStatic
+    fun onAppCreated() {
+        appCreated = sinceProcessStart()
+
+        Metrics.record(Metrics.STARTUP_APP_CREATED_MS, appCreated)
+
+        App.EXECUTORS.diskIO().execute(WarmUp())
+    }
+
+    class WarmUp : Runnable {
+        @Inject
+        lateinit var database: OrgzlyDatabase
+
+        @Inject
+        lateinit var dataRepository: DataRepository
+
+        override fun run() {
+            Trace.beginSection(WARM_UP_TRACE_SECTION)
+
+            try {
+                App.appComponent.inject(this)
+
+                // Opens the database, running migrations if needed
+                database.openHelper.writableDatabase
+
+                // Prepares statements and reads pages needed by the books list and the drawer
+                dataRepository.getBooks()
+                dataRepository.getSavedSearches()
+
+            } catch (e: Exception) {
+                // Same will fail again and be reported when the data is needed
+                e.printStackTrace()
+
+            } finally {
+                Trace.endSection()
+            }
+
+            onWarmedUp()
+        }
+    }
+
+    private fun onWarmedUp() {
+        databaseReady = sinceProcessStart()
+
+        Metrics.record(Metrics.STARTUP_DATABASE_READY_MS, databaseReady)
+
+        if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Database ready at $databaseReady ms")
+
+        val tasks = synchronized(deferred) {
+            isWarmedUp = true
+            deferred.toList().also { deferred.clear() }
+        }
+
+        tasks.forEach { it.run() }
+    }
+
+    /**
+     * Runs [task] once the database is warmed up, on the warm-up thread,
+     * or right away if it already is.
+     */
+    @JvmStatic
+    fun afterWarmUp(task: Runnable) {
+        synchronized(deferred) {
+            if (!isWarmedUp) {
+                deferred.add(task)
+                return
+            }
+        }
+
+        task.run()
+    }
+
+    /**
+     * Records the time of the first frame drawn by the [activity], once per process.
+     */
+    @JvmStatic
+    fun onActivityCreated(activity: Activity) {
+        if (firstFrame != 0L) {
+            return
+        }
+
+        activity.window.decorView.post {
+            if (firstFrame == 0L) {
+                firstFrame = sinceProcessStart()
+
+                Metrics.record(Metrics.STARTUP_FIRST_FRAME_MS, firstFrame)
+            }
+        }
+    }
+
+    /**
+     * Reports the [activity] fully drawn once it gets the first non-empty [data] it displays.
+     * The first frame is usually drawn before the data is loaded.
+     */
+    @JvmStatic
+    fun <T : Collection<*>> reportFullyDrawnOnData(activity: ComponentActivity, data: LiveData<T>) {
+        data.observe(activity, object : Observer<T> {
+            override fun onChanged(value: T) {
+                if (value.isNotEmpty()) {
+                    activity.reportFullyDrawn()
+
+                    data.removeObserver(this)
+                }
+            }
+        })
+    }
+
+    fun summary(): String {
+        return "App created: $appCreated ms\nDatabase ready: $databaseReady ms\nFirst frame: $firstFrame ms"
+    }
+
+    private fun sinceProcessStart(): Long {
+        val startedAt = if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            Process.getStartUptimeMillis()
+        } else {
+            classLoadedAt
+        }
+
+        return SystemClock.uptimeMillis() - startedAt
+    }
+}
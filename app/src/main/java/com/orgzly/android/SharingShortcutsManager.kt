@@ -41,7 +41,7 @@ class SharingShortcutsManager {
     }
 
     private fun createShortcuts(context: Context): List<ShortcutInfoCompat> {
-        return dataRepository.getBooks().mapNotNull { bookView -> // FIXME: ANR
+        return dataRepository.getBooks().mapNotNull { bookView ->
             val book = bookView.book
 
             if (hasRequestedDirectShare(book)) {
@@ -13,14 +13,20 @@ import androidx.lifecycle.LiveData
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.map
 import androidx.localbroadcastmanager.content.LocalBroadcastManager
+import androidx.sqlite.db.SimpleSQLiteQuery
+import androidx.sqlite.db.SupportSQLiteDatabase
 import androidx.sqlite.db.SupportSQLiteQuery
 import androidx.sqlite.db.SupportSQLiteQueryBuilder
 import com.orgzly.BuildConfig
 import com.orgzly.R
 import com.orgzly.android.*
 import com.orgzly.android.data.mappers.OrgMapper
+import com.orgzly.android.data.logs.DatabaseAppLogsRepository
+import com.orgzly.android.data.maintenance.MaintenanceReport
 import com.orgzly.android.db.NotesClipboard
 import com.orgzly.android.db.OrgzlyDatabase
+import com.orgzly.android.db.dao.AgendaOccurrenceDao
+import com.orgzly.android.db.dao.BookDao
 import com.orgzly.android.db.dao.NoteDao
 import com.orgzly.android.db.dao.NoteViewDao
 import com.orgzly.android.db.dao.ReminderTimeDao
@@ -28,6 +34,8 @@ import com.orgzly.android.db.entity.*
 import com.orgzly.android.db.mappers.OrgTimestampMapper
 import com.orgzly.android.prefs.AppPreferences
 import com.orgzly.android.query.Query
+import com.orgzly.android.query.sql.SqlQuery
+import com.orgzly.android.query.sql.SqlQueryCache
 import com.orgzly.android.query.sql.SqliteQueryBuilder
 import com.orgzly.android.query.user.InternalQueryParser
 import com.orgzly.android.repos.*
@@ -35,15 +43,20 @@ import com.orgzly.android.repos.Rook
 import com.orgzly.android.repos.VersionedRook
 import com.orgzly.android.savedsearch.FileSavedSearchStore
 import com.orgzly.android.sync.BookSyncStatus
+import com.orgzly.android.sync.SyncTimings
+import com.orgzly.android.sync.measure
 import com.orgzly.android.ui.NotePlace
 import com.orgzly.android.ui.Place
 import com.orgzly.android.ui.note.NoteBuilder
 import com.orgzly.android.ui.note.NotePayload
+import com.orgzly.android.ui.notes.query.agenda.AgendaItems
+import com.orgzly.android.usecase.AgendaOccurrencesUpdate
 import com.orgzly.android.usecase.RepoCreate
 import com.orgzly.android.util.*
 import com.orgzly.org.OrgActiveTimestamps
 import com.orgzly.org.OrgFile
 import com.orgzly.org.OrgFileSettings
+import com.orgzly.org.OrgHead
 import com.orgzly.org.OrgProperties
 import com.orgzly.org.OrgProperty
 import com.orgzly.org.datetime.OrgDateTime
@@ -53,6 +66,7 @@ import com.orgzly.org.parser.OrgNodeInSet
 import com.orgzly.org.parser.OrgParser
 import com.orgzly.org.parser.OrgParserWriter
 import com.orgzly.org.utils.StateChangeLogic
+import org.joda.time.DateTime
 import java.io.*
 import java.util.*
 import java.util.concurrent.Callable
@@ -68,6 +82,12 @@ class DataRepository @Inject constructor(
         private val resources: Resources,
         private val localStorage: LocalStorage) {
 
+    /* Days for which agenda occurrences are available, if known. */
+    @Volatile
+    private var agendaHorizon: AgendaHorizon? = null
+
+    private val sqlQueryCache = SqlQueryCache<SqlQueryKey, SqlStatement>(32)
+
     fun forceLoadBook(bookId: Long) {
         val book = getBookView(bookId)
                 ?: throw IOException(resources.getString(R.string.book_does_not_exist_anymore))
@@ -142,12 +162,14 @@ class DataRepository @Inject constructor(
      * @return [Book]
      * @throws IOException
      */
+    @JvmOverloads
     @Throws(IOException::class)
     fun saveBookToRepo(
             repoEntity: Repo,
             repositoryPath: String,
             bookView: BookView,
-            @Suppress("UNUSED_PARAMETER") format: BookFormat) {
+            @Suppress("UNUSED_PARAMETER") format: BookFormat,
+            timings: SyncTimings? = null) {
 
         val uploadedBook: VersionedRook
 
@@ -156,10 +178,16 @@ class DataRepository @Inject constructor(
         val tmpFile = getTempBookFile()
         try {
             /* Write to temporary file. */
-            NotesOrgExporter(this).exportBook(bookView.book, tmpFile)
+            timings.measure(SyncTimings.Phase.EXPORT) {
+                NotesOrgExporter(this).exportBook(bookView.book, tmpFile)
+            }
 
             /* Upload to repo. */
-            uploadedBook = repo.storeBook(tmpFile, repositoryPath)
+            uploadedBook = timings.measure(SyncTimings.Phase.UPLOAD) {
+                repo.storeBook(tmpFile, repositoryPath)
+            }
+
+            Metrics.count(Metrics.BYTES_UPLOADED, tmpFile.length(), repo.uri.toString())
 
         } finally {
             /* Delete temporary file. */
@@ -225,6 +253,10 @@ class DataRepository @Inject constructor(
         }
     }
 
+    fun getBookChangeStamps(): List<BookDao.ChangeStamp> {
+        return db.book().getChangeStamps()
+    }
+
     fun getBooksWithError(): List<Book> {
         return db.book().getWithActionType(BookAction.Type.ERROR)
     }
@@ -290,9 +322,13 @@ class DataRepository @Inject constructor(
 
         val book = Book(0, name, isDummy = true)
 
-        val bookId = db.book().insert(book)
+        val bookId = db.writer.runInTransaction(Callable {
+            val bookId = db.book().insert(book)
 
-        db.note().insert(NoteDao.rootNote(bookId))
+            db.note().insert(NoteDao.rootNote(bookId))
+
+            return@Callable bookId
+        })
 
         return BookView(Book(bookId, name, isDummy = true), 0)
     }
@@ -315,7 +351,7 @@ class DataRepository @Inject constructor(
                 isDummy = dummy
         )
 
-        val id = db.runInTransaction(Callable {
+        val id = db.writer.runInTransaction(Callable {
             val id = db.book().insert(book)
 
             db.note().insert(NoteDao.rootNote(id))
@@ -335,7 +371,9 @@ class DataRepository @Inject constructor(
             }
         }
 
-        db.book().delete(book.book)
+        db.writer.runInTransaction {
+            db.book().delete(book.book)
+        }
     }
 
     fun renameBook(bookView: BookView, name: String) {
@@ -394,7 +432,7 @@ class DataRepository @Inject constructor(
             updateBookLinkAndSync(book.id, movedVrook)
         }
 
-        if (db.book().updateName(book.id, name) != 1) {
+        if (db.writer.runInTransaction(Callable { db.book().updateName(book.id, name) }) != 1) {
             throw IOException()
         }
 
@@ -406,23 +444,30 @@ class DataRepository @Inject constructor(
     fun setBookPreface(bookId: Long, preface: String) {
         val settings = OrgFileSettings.fromPreface(preface)
 
-        db.book().updatePreface(bookId, preface, settings.title)
+        db.writer.runInTransaction {
+            db.book().updatePreface(bookId, preface, settings.title)
 
-        updateBookIsModified(bookId, true)
+            updateBookIsModified(bookId, true)
+        }
     }
 
     fun setBookLastAction(bookId: Long, action: BookAction) {
-        db.book().updateLastAction(bookId, action.type, action.message, System.currentTimeMillis())
+        db.writer.runInTransaction {
+            db.book().updateLastAction(bookId, action.type, action.message, System.currentTimeMillis())
+        }
     }
 
     @JvmOverloads
     fun setBookLastActionAndSyncStatus(bookId: Long, action: BookAction, status: String? = null) {
-        val updated = db.book().updateLastActionAndSyncStatus(
-                bookId,
-                action.type,
-                action.message,
-                System.currentTimeMillis(),
-                status)
+        val updated = db.writer.runInTransaction(Callable {
+            db.book().updateLastActionAndSyncStatus(
+                    bookId,
+                    action.type,
+                    action.message,
+                    System.currentTimeMillis(),
+                    action.timings,
+                    status)
+        })
 
         if (BuildConfig.LOG_DEBUG)
             LogUtils.d(TAG, "Updating book $bookId status to $status ($updated updated)")
@@ -434,19 +479,24 @@ class DataRepository @Inject constructor(
         val rookRevision = uploadedBook.revision
         val rookMtime = uploadedBook.mtime
 
-        val rookUrlId = db.rookUrl().getOrInsert(rookUrl)
-        val rookId = db.rook().getOrInsert(repoId, rookUrlId)
+        // Together, so the new version is never seen unused by maintenance
+        db.writer.runInTransaction {
+            val rookUrlId = db.rookUrl().getOrInsert(rookUrl)
+            val rookId = db.rook().getOrInsert(repoId, rookUrlId)
 
-        val versionedRookId = db.versionedRook().replace(
-                com.orgzly.android.db.entity.VersionedRook(
-                        0, rookId, rookRevision, rookMtime))
+            val versionedRookId = db.versionedRook().replace(
+                    com.orgzly.android.db.entity.VersionedRook(
+                            0, rookId, rookRevision, rookMtime))
 
-        db.bookLink().upsert(bookId, repoId)
-        db.bookSync().upsert(bookId, versionedRookId)
+            db.bookLink().upsert(bookId, repoId)
+            db.bookSync().upsert(bookId, versionedRookId)
+        }
     }
 
     fun removeBookSyncedTo(bookId: Long) {
-        db.bookSync().delete(bookId)
+        db.writer.runInTransaction {
+            db.bookSync().delete(bookId)
+        }
     }
 
     private fun updateBookIsModified(bookId: Long, isModified: Boolean, time: Long = System.currentTimeMillis()) {
@@ -455,10 +505,12 @@ class DataRepository @Inject constructor(
 
     private fun updateBookIsModified(bookIds: Set<Long>, isModified: Boolean, time: Long = System.currentTimeMillis()) {
         if (bookIds.isNotEmpty()) {
-            if (isModified) {
-                db.book().setIsModified(bookIds, time)
-            } else {
-                db.book().setIsNotModified(bookIds)
+            db.writer.runInTransaction {
+                if (isModified) {
+                    db.book().setIsModified(bookIds, time)
+                } else {
+                    db.book().setIsNotModified(bookIds)
+                }
             }
         }
     }
@@ -518,11 +570,15 @@ class DataRepository @Inject constructor(
             RepoUtils.ensurePathIsNotIgnored(syncRepo, repoRelativePath)
         }
 
-        db.bookLink().upsert(bookId, repoId)
+        db.writer.runInTransaction {
+            db.bookLink().upsert(bookId, repoId)
+        }
     }
 
     private fun deleteBookLink(bookId: Long) {
-        db.bookLink().deleteByBookId(bookId)
+        db.writer.runInTransaction {
+            db.bookLink().deleteByBookId(bookId)
+        }
     }
 
     fun cycleVisibility(bookId: Long): Int {
@@ -539,11 +595,15 @@ class DataRepository @Inject constructor(
     }
 
     private fun unFoldAllNotes(bookId: Long) {
-        db.note().unfoldAll(bookId)
+        db.writer.runInTransaction {
+            db.note().unfoldAll(bookId)
+        }
     }
 
     private fun foldAllNotes(bookId: Long) {
-        db.note().foldAll(bookId)
+        db.writer.runInTransaction {
+            db.note().foldAll(bookId)
+        }
     }
 
     private fun unfoldForNote(noteId: Long) {
@@ -556,7 +616,7 @@ class DataRepository @Inject constructor(
     }
 
     fun promoteNotes(ids: Set<Long>): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             val note = db.note().getFirst(ids) ?: return@Callable 0
 
             /* Can only promote notes of level 2 or greater. */
@@ -577,7 +637,7 @@ class DataRepository @Inject constructor(
     }
 
     fun demoteNotes(ids: Set<Long>): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             val note = db.note().getFirst(ids) ?: return@Callable 0
 
             val previousSibling = db.note().getPreviousSibling(
@@ -592,7 +652,7 @@ class DataRepository @Inject constructor(
     }
 
     fun moveNote(bookId: Long, noteIds: Set<Long>, direction: Int): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             val target: NotePlace? =
                     if (direction == -1) { // Move up
                         db.note().getFirst(noteIds)?.let { note ->
@@ -624,19 +684,19 @@ class DataRepository @Inject constructor(
         if (target.noteId == 0L) { // To book
             val root = getRootNode(target.bookId) ?: return
 
-            db.runInTransaction(Callable {
+            db.writer.runInTransaction(Callable {
                 moveSubtrees(noteIds, Place.UNDER, root.id)
             })
 
         } else {
-            db.runInTransaction(Callable {
+            db.writer.runInTransaction(Callable {
                 moveSubtrees(noteIds, target.place, target.noteId)
             })
         }
     }
 
     fun pasteNotes(clipboard: NotesClipboard, bookId: Long, noteId: Long, place: Place): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             pasteNotesClipboard(clipboard, bookId, place, noteId)
         })
     }
@@ -671,8 +731,6 @@ class DataRepository @Inject constructor(
                 targetPosition: $targetPosition
 
                 levelOffset: $levelOffset
-
-                Clipboard entries: ${clipboard.entries}
                 """.trimIndent())
 
         makeSpaceForNewNotes(clipboard.count, targetNote, place)
@@ -683,7 +741,9 @@ class DataRepository @Inject constructor(
         }
         val idsMap = mutableMapOf<Long, Long>()
 
-        for (entry in clipboard.entries) {
+        val batch = NoteRowsBatch()
+
+        clipboard.forEachEntry { entry ->
             val level = levelOffset + entry.note.position.level
 
             val lft = targetPosition.lft + entry.note.position.lft - 1
@@ -720,8 +780,13 @@ class DataRepository @Inject constructor(
                 }
             }
 
-            insertNoteProperties(lastNoteId, properties)
-            insertNoteEvents(lastNoteId, note.title, note.content, properties)
+            batch.setNewNote(lastNoteId)
+            batch.setProperties(lastNoteId, properties)
+            batch.setEvents(lastNoteId, note.title, note.content, properties)
+
+            if (batch.size >= NOTE_ROWS_BATCH_SIZE) {
+                batch.write()
+            }
 
             idsMap[entry.note.id] = lastNoteId
 
@@ -730,6 +795,8 @@ class DataRepository @Inject constructor(
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Inserted $lastNoteId $note")
         }
 
+        batch.write()
+
         db.noteAncestor().insertAncestorsForNotes(pastedNoteIds)
 
         // Update descendants count for the target note and its ancestors
@@ -988,54 +1055,60 @@ class DataRepository @Inject constructor(
     }
 
     fun setNotesScheduledTime(noteIds: Set<Long>, time: OrgDateTime?) {
-        val timeId = if (time != null) getOrgRangeId(OrgRange(time)) else null
+        db.writer.runInTransaction {
+            val timeId = if (time != null) getOrgRangeId(OrgRange(time)) else null
 
-        db.note().updateScheduledTime(noteIds, timeId)
+            db.note().updateScheduledTime(noteIds, timeId)
 
-        db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
-            updateBookIsModified(it, true)
+            db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
+                updateBookIsModified(it, true)
+            }
         }
     }
 
     fun setNotesDeadlineTime(noteIds: Set<Long>, time: OrgDateTime?) {
-        val timeId = if (time != null) getOrgRangeId(OrgRange(time)) else null
+        db.writer.runInTransaction {
+            val timeId = if (time != null) getOrgRangeId(OrgRange(time)) else null
 
-        db.note().updateDeadlineTime(noteIds, timeId)
+            db.note().updateDeadlineTime(noteIds, timeId)
 
-        db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
-            updateBookIsModified(it, true)
+            db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
+                updateBookIsModified(it, true)
+            }
         }
     }
 
     fun setNotesClockingState(noteIds: Set<Long>, type: Int) {
-        var contentUpdated = false
+        db.writer.runInTransaction {
+            var contentUpdated = false
 
-        noteIds.forEach { noteId ->
-            val content = db.note().get(noteId)?.content
+            noteIds.forEach { noteId ->
+                val content = db.note().get(noteId)?.content
 
-            val newContent = when (type) {
-                0 -> OrgFormatter.clockIn(content)
-                1 -> OrgFormatter.clockOut(content)
-                2 -> OrgFormatter.clockCancel(content)
-                else -> content
-            }
+                val newContent = when (type) {
+                    0 -> OrgFormatter.clockIn(content)
+                    1 -> OrgFormatter.clockOut(content)
+                    2 -> OrgFormatter.clockCancel(content)
+                    else -> content
+                }
 
-            if (newContent !== content) {
-                val contentLineCount = MiscUtils.lineCount(newContent)
-                db.note().updateContent(noteId, newContent, contentLineCount)
-                contentUpdated = true
+                if (newContent !== content) {
+                    val contentLineCount = MiscUtils.lineCount(newContent)
+                    db.note().updateContent(noteId, newContent, contentLineCount)
+                    contentUpdated = true
+                }
             }
-        }
 
-        if (contentUpdated) {
-            db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
-                updateBookIsModified(it, true)
+            if (contentUpdated) {
+                db.note().get(noteIds).mapTo(hashSetOf()) { it.position.bookId }.let {
+                    updateBookIsModified(it, true)
+                }
             }
         }
     }
 
     fun toggleNoteFoldedState(noteId: Long): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             val note = db.note().get(noteId) ?: return@Callable 0
 
             val toggled = db.note().updateIsFolded(note.id, !note.position.isFolded)
@@ -1051,7 +1124,7 @@ class DataRepository @Inject constructor(
     }
 
     fun toggleNoteFoldedStateForSubtree(noteId: Long) {
-        db.runInTransaction {
+        db.writer.runInTransaction {
             db.note().get(noteId)?.let { note ->
                 val foldedCount = db.note().getSubtreeFoldedNoteCount(listOf(noteId))
 
@@ -1090,7 +1163,7 @@ class DataRepository @Inject constructor(
     }
 
     fun setNotesState(noteIds: Set<Long>, state: String?): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             /*
              * Notebooks must be updated before notes,
              * because this query checks for notes what will be affected.
@@ -1098,25 +1171,44 @@ class DataRepository @Inject constructor(
             updateBookIsModified(db.note().getBookIdsForNotesNotMatchingState(noteIds, state).toSet(), true)
 
             return@Callable if (AppPreferences.isDoneKeyword(context, state)) {
-                var updated = 0
-
                 val doneKeywords = AppPreferences.doneKeywordsSet(context)
+                val setLastRepeat = AppPreferences.setLastRepeatOnTimeShift(context)
+                val logOnTimeShift = AppPreferences.logOnTimeShift(context)
+
+                val now = OrgDateTime(false).toString()
 
-                db.note().getNoteForStateChange(noteIds, state).forEach { note ->
+                val batch = NoteRowsBatch()
+
+                /*
+                 * Notes with the same state and times (like habits scheduled for the same day)
+                 * change the same way, so the change is computed once for each combination.
+                 */
+                val logics = HashMap<StateChangeKey, StateChangeLogic>()
+
+                // Compute all changes first, to resolve their times at once
+                val changes = db.note().getNoteForStateChange(noteIds, state).map { note ->
 
                     var title = note.title
                     var content = note.content
 
                     val eventsInNote = EventsInNote(title, content)
 
-                    val scl = StateChangeLogic(doneKeywords)
-
-                    scl.setState(
-                            state,
+                    val key = StateChangeKey(
                             note.state,
-                            OrgRange.parseOrNull(note.scheduled),
-                            OrgRange.parseOrNull(note.deadline),
-                            eventsInNote.timestamps.map { OrgRange(it) })
+                            note.scheduled,
+                            note.deadline,
+                            eventsInNote.timestamps.map { it.toString() })
+
+                    val scl = logics.getOrPut(key) {
+                        StateChangeLogic(doneKeywords).apply {
+                            setState(
+                                    state,
+                                    note.state,
+                                    OrgRange.parseOrNull(note.scheduled),
+                                    OrgRange.parseOrNull(note.deadline),
+                                    eventsInNote.timestamps.map { OrgRange(it) })
+                        }
+                    }
 
                     if (scl.isShifted) {
                         eventsInNote.replaceEvents(scl.timestamps).apply {
@@ -1124,35 +1216,62 @@ class DataRepository @Inject constructor(
                             content = second
                         }
 
-                        val now = OrgDateTime(false).toString()
-
                         // Add last-repeat time
-                        if (AppPreferences.setLastRepeatOnTimeShift(context)) {
-                            setNoteProperty(note.noteId, OrgFormatter.LAST_REPEAT_PROPERTY, now)
+                        if (setLastRepeat) {
+                            batch.setProperty(note.noteId, OrgFormatter.LAST_REPEAT_PROPERTY, now)
                         }
 
                         // Log state change
-                        if (AppPreferences.logOnTimeShift(context)) {
+                        if (logOnTimeShift) {
                             val logEntry = OrgFormatter.stateChangeLine(note.state, state, now)
                             content = OrgFormatter.insertLogbookEntryLine(content, logEntry)
                         }
                     }
 
+                    val isTextChanged = title != note.title || content != note.content
+
+                    StateChange(note.noteId, title, content, scl, isTextChanged)
+                }
+
+                batch.prefetchRanges(logics.values.flatMap { scl ->
+                    listOfNotNull(scl.scheduled, scl.deadline, scl.closed) + scl.timestamps
+                })
+
+                var updated = 0
+
+                val (textChanged, textUnchanged) = changes.partition { it.isTextChanged }
+
+                // Same change for all notes in the group, written with one statement per chunk
+                textUnchanged.groupBy({ it.scl }, { it.noteId }).forEach { (scl, ids) ->
+                    val scheduled = batch.rangeId(scl.scheduled)
+                    val deadline = batch.rangeId(scl.deadline)
+                    val closed = batch.rangeId(scl.closed)
+
+                    ids.chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER - 4).forEach { chunk ->
+                        updated += db.note().updateStateAndTimes(chunk, scl.state, scheduled, deadline, closed)
+                    }
+                }
+
+                textChanged.forEach { change ->
                     updated += db.note().update(
-                        note.noteId,
-                        title,
-                        content,
-                        MiscUtils.lineCount(content),
-                        scl.state,
-                        getOrgRangeId(scl.scheduled),
-                        getOrgRangeId(scl.deadline),
-                        getOrgRangeId(scl.closed))
+                        change.noteId,
+                        change.title,
+                        change.content,
+                        MiscUtils.lineCount(change.content),
+                        change.scl.state,
+                        batch.rangeId(change.scl.scheduled),
+                        batch.rangeId(change.scl.deadline),
+                        batch.rangeId(change.scl.closed))
+                }
 
-                    if (scl.isShifted) {
-                        replaceNoteEvents(note.noteId, title, content, null)
+                changes.forEach { change ->
+                    if (change.scl.isShifted) {
+                        batch.setEvents(change.noteId, change.title, change.content, null)
                     }
                 }
 
+                batch.write()
+
                 updated
 
             } else { // Set to non-done state
@@ -1161,31 +1280,153 @@ class DataRepository @Inject constructor(
         })
     }
 
+    private class StateChange(
+            val noteId: Long,
+            val title: String,
+            val content: String?,
+            val scl: StateChangeLogic,
+            val isTextChanged: Boolean)
+
+    /** Everything [StateChangeLogic] depends on, besides the new state. */
+    private data class StateChangeKey(
+            val state: String?,
+            val scheduled: String?,
+            val deadline: String?,
+            val timestamps: List<String>)
+
     fun updateNoteContent(bookId: Long, noteId: Long, content: String?) {
-        db.runInTransaction {
+        db.writer.runInTransaction {
             db.note().updateContent(noteId, content, MiscUtils.lineCount(content))
 
             updateBookIsModified(bookId, true)
         }
     }
 
-    fun selectNotesFromQueryLiveData(queryString: String): LiveData<List<NoteView>> {
+    /**
+     * @param limit maximum number of notes to return, if lower than the limit in the query
+     * @param savedSearchId saved search the query comes from, 0 if typed
+     */
+    fun selectNotesFromQueryLiveData(queryString: String, limit: Int = 0, savedSearchId: Long = 0): LiveData<List<NoteView>> {
         val parser = InternalQueryParser()
 
         val query = parser.parse(queryString)
 
-        val sqlQuery = buildSqlQuery(query)
+        val sqlQuery = buildSqlQuery(withLimit(query, limit))
+
+        val notes = db.noteView().runQueryLiveData(sqlQuery)
+
+        var startedAt = Metrics.start()
+
+        if (startedAt == 0L) {
+            return notes
+        }
+
+        // Only the first result is timed, later ones are reloads after data changes
+        return notes.map {
+            if (startedAt != 0L) {
+                Metrics.recordSince(startedAt, Metrics.QUERY_MS, queryLabel(savedSearchId))
+                startedAt = 0
+            }
+            it
+        }
+    }
 
-        return db.noteView().runQueryLiveData(sqlQuery)
+    /**
+     * @param limit maximum number of notes to return, if lower than the limit in the query
+     * @param savedSearchId saved search the query comes from, 0 if typed
+     */
+    @JvmOverloads
+    fun selectNotesFromQuery(query: Query, limit: Int = 0, savedSearchId: Long = 0): List<NoteView> {
+        val sqlQuery = buildSqlQuery(withLimit(query, limit))
+
+        return timeQuery(savedSearchId) {
+            db.noteView().runQuery(sqlQuery)
+        }
     }
 
-    fun selectNotesFromQuery(query: Query): List<NoteView> {
-        val sqlQuery = buildSqlQuery(query)
+    /**
+     * Same as [selectNotesFromQuery], but the query is interrupted
+     * if the calling coroutine is cancelled.
+     */
+    suspend fun selectNotesFromQueryCancellable(query: Query, limit: Int = 0): List<NoteView> {
+        val sqlQuery = buildSqlQuery(withLimit(query, limit))
 
-        return db.noteView().runQuery(sqlQuery)
+        // Used for queries being typed
+        return timeQuery(0) {
+            db.noteView().runQueryCancellable(sqlQuery)
+        }
     }
 
-    private fun buildSqlQuery(query: Query): SupportSQLiteQuery {
+    /**
+     * Records query's latency, labeled with the [queryLabel].
+     */
+    private inline fun <T> timeQuery(savedSearchId: Long, block: () -> T): T {
+        val startedAt = Metrics.start()
+        try {
+            return block()
+        } finally {
+            if (startedAt != 0L) {
+                Metrics.recordSince(startedAt, Metrics.QUERY_MS, queryLabel(savedSearchId))
+            }
+        }
+    }
+
+    /**
+     * Label for query metrics. Not the query itself, as there is no limit to the number
+     * of typed queries, so they are all labeled the same.
+     */
+    private fun queryLabel(savedSearchId: Long): String {
+        return if (savedSearchId > 0) "search:$savedSearchId" else "adhoc"
+    }
+
+    /**
+     * Output of EXPLAIN QUERY PLAN for the statement selecting notes for the [query].
+     */
+    fun explainNotesQuery(query: Query): List<String> {
+        val sqlQuery = buildSqlQuery(query, "EXPLAIN QUERY PLAN ")
+
+        return db.query(sqlQuery).use { cursor ->
+            val detail = cursor.getColumnIndexOrThrow("detail")
+
+            generateSequence { if (cursor.moveToNext()) cursor.getString(detail) else null }.toList()
+        }
+    }
+
+    private fun withLimit(query: Query, limit: Int): Query {
+        return if (limit <= 0 || query.options.limit in 1..limit) {
+            query
+        } else {
+            query.copy(options = query.options.copy(limit = limit))
+        }
+    }
+
+    /**
+     * @param prefix prepended to the SQL, like EXPLAIN
+     */
+    private fun buildSqlQuery(query: Query, prefix: String = ""): SupportSQLiteQuery {
+        val withAgendaOccurrences = query.isAgenda() && canUseAgendaOccurrences(query.options.agendaDays)
+
+        val key = SqlQueryKey(
+                query,
+                withAgendaOccurrences,
+                AppPreferences.todoKeywordsSet(context),
+                AppPreferences.doneKeywordsSet(context),
+                AppPreferences.defaultPriority(context))
+
+        val statement = sqlQueryCache.getOrPut(key) {
+            buildSqlStatement(query, withAgendaOccurrences)
+        }
+
+        val args = SqlQuery.resolveArgs(statement.args)
+
+        if (BuildConfig.LOG_DEBUG)
+            LogUtils.d(TAG, "Selecting notes using query $query "
+                    + "with selection args ${args.toList()}\n${statement.sql}")
+
+        return SimpleSQLiteQuery(prefix + statement.sql, args)
+    }
+
+    private fun buildSqlStatement(query: Query, withAgendaOccurrences: Boolean): SqlStatement {
         val queryBuilder = SqliteQueryBuilder(context)
 
         val (selection, selectionArgs, having, orderBy) = queryBuilder.build(query)
@@ -1196,8 +1437,10 @@ class DataRepository @Inject constructor(
             s.add(selection)
         }
 
+        val args = selectionArgs.toMutableList()
+
         if (query.options.agendaDays > 0) {
-            s.add("((scheduled_range_id IS NOT NULL AND scheduled_is_active = 1) OR (deadline_range_id IS NOT NULL AND deadline_is_active = 1) OR event_timestamp IS NOT NULL)")
+            s.add(agendaSelection(query.options.agendaDays, withAgendaOccurrences, args))
         }
 
         if (!s.isEmpty() || !query.sortOrders.isEmpty()) {
@@ -1213,21 +1456,76 @@ class DataRepository @Inject constructor(
             "id"
         }
 
-        val supportQuery = SupportSQLiteQueryBuilder
+        val supportQueryBuilder = SupportSQLiteQueryBuilder
                 .builder("(${NoteViewDao.QUERY_WITH_NOTE_EVENTS})")
-                .selection(selection2, selectionArgs.toTypedArray())
+                .selection(selection2, null)
                 .groupBy(groupBy)
                 .having(having)
                 .orderBy(orderBy)
-                .create()
 
-        if (BuildConfig.LOG_DEBUG)
-            LogUtils.d(TAG, "Selecting notes using query $query "
-                    + "with selection args $selectionArgs\n${supportQuery.sql}")
+        // Agenda rows are expanded to days, so the limit is not applied to them
+        if (query.options.limit > 0 && !query.isAgenda()) {
+            supportQueryBuilder.limit(query.options.limit.toString())
+        }
+
+        val supportQuery = supportQueryBuilder.create()
+
+        return SqlStatement(supportQuery.sql, args)
+    }
+
+    /**
+     * Checks if [AgendaOccurrence]s are available for the next [days] days.
+     *
+     * They are updated by [AgendaOccurrencesUpdate], scheduled after data changes
+     * and at the start of each day. Until then, agenda is queried without them.
+     */
+    private fun canUseAgendaOccurrences(days: Int): Boolean {
+        val today = DateTime.now().withTimeAtStartOfDay()
+        val to = today.plusDays(days)
+
+        // Not updated since the app started, use the stored one
+        val horizon = agendaHorizon ?: db.agendaOccurrence().getHorizon()?.also {
+            agendaHorizon = it
+        }
+
+        return horizon != null && horizon.fromDay == today.millis && horizon.toDay >= to.millis
+    }
+
+    /**
+     * Selection for notes which can appear in the agenda for the next [days] days.
+     *
+     * With [AgendaOccurrence]s, only notes occurring on those days, overdue notes
+     * and notes whose occurrences are not generated yet are selected.
+     */
+    private fun agendaSelection(days: Int, withAgendaOccurrences: Boolean, args: MutableList<Any>): String {
+        if (!withAgendaOccurrences) {
+            return "((scheduled_range_id IS NOT NULL AND scheduled_is_active = 1) OR (deadline_range_id IS NOT NULL AND deadline_is_active = 1) OR event_timestamp IS NOT NULL)"
+        }
 
-        return supportQuery
+        val today = SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, 0)
+        val to = SqlQuery.TimeFromNow(Calendar.DAY_OF_MONTH, days)
+
+        args.add(today)
+        args.add(to)
+        args.add(today)
+        args.add(today)
+
+        return "(id IN (SELECT note_id FROM agenda_occurrences WHERE day >= ? AND day < ?)" +
+                " OR id IN (SELECT note_id FROM agenda_pending_notes)" +
+                " OR (scheduled_is_active = 1 AND scheduled_time_timestamp < ?)" +
+                " OR (deadline_is_active = 1 AND deadline_time_timestamp < ?))"
     }
 
+    /** Everything notes query statement depends on, other than the current time. */
+    private data class SqlQueryKey(
+            val query: Query,
+            val withAgendaOccurrences: Boolean,
+            val todoKeywords: Set<String>,
+            val doneKeywords: Set<String>,
+            val defaultPriority: String)
+
+    private data class SqlStatement(val sql: String, val args: List<Any>)
+
     fun getNotes(bookName: String): List<NoteView> {
         return db.noteView().getBookNotes(bookName)
     }
@@ -1329,28 +1627,23 @@ class DataRepository @Inject constructor(
         return db.noteProperty().get(noteId)
     }
 
-    private fun setNoteProperty(noteId: Long, name: String, value: String) {
-        db.noteProperty().upsert(noteId, name, value)
+    /** Properties of all notes, by note id, in their order. */
+    fun getNotesProperties(noteIds: Collection<Long>): Map<Long, List<NoteProperty>> {
+        return noteIds.chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER).flatMap {
+            db.noteProperty().getForNotes(it)
+        }.groupBy { it.noteId }
     }
 
-    private fun replaceNoteProperties(noteId: Long, properties: OrgProperties) {
-        db.noteProperty().delete(noteId)
-
-        insertNoteProperties(noteId, properties)
-    }
-
-    fun insertNoteProperties(noteId: Long, properties: OrgProperties) {
-        var position = 1
-
-        properties.all.forEach { property ->
-            NoteProperty(noteId, position++, property.name, property.value).let {
-                db.noteProperty().insert(it)
-            }
+    private fun setNoteProperty(noteId: Long, name: String, value: String) {
+        db.writer.runInTransaction {
+            db.noteProperty().upsert(noteId, name, value)
         }
     }
 
     private fun setNoteCreatedAtTime(noteId: Long, time: Long) {
-        db.note().updateCreatedAtTime(noteId, time)
+        db.writer.runInTransaction {
+            db.note().updateCreatedAtTime(noteId, time)
+        }
     }
 
     fun createNoteFromNotification(title: String) {
@@ -1383,7 +1676,7 @@ class DataRepository @Inject constructor(
             notePayload
         }
 
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             createNote(payload, target, createdAt)
         })
     }
@@ -1499,8 +1792,12 @@ class DataRepository @Inject constructor(
 
         val noteId = db.note().insert(noteEntity)
 
-        replaceNoteProperties(noteId, notePayload.properties)
-        replaceNoteEvents(noteId, notePayload.title, notePayload.content, notePayload.properties)
+        NoteRowsBatch().apply {
+            setNewNote(noteId)
+            setProperties(noteId, notePayload.properties)
+            setEvents(noteId, notePayload.title, notePayload.content, notePayload.properties)
+            write()
+        }
 
         db.noteAncestor().insertAncestorsForNote(noteId)
 
@@ -1546,11 +1843,13 @@ class DataRepository @Inject constructor(
     fun updateNote(noteId: Long, notePayload: NotePayload): Note? {
         val note = db.note().get(noteId) ?: return null
 
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             updateBookIsModified(note.position.bookId, true)
 
-            replaceNoteProperties(noteId, notePayload.properties)
-            replaceNoteEvents(noteId, notePayload.title, notePayload.content, notePayload.properties)
+            val batch = NoteRowsBatch()
+
+            batch.setProperties(noteId, notePayload.properties)
+            batch.setEvents(noteId, notePayload.title, notePayload.content, notePayload.properties)
 
             val newNote = note.copy(
                     title = notePayload.title,
@@ -1558,12 +1857,14 @@ class DataRepository @Inject constructor(
                     contentLineCount = MiscUtils.lineCount(notePayload.content),
                     state = notePayload.state,
                     priority = notePayload.priority,
-                    scheduledRangeId = getOrgRangeId(notePayload.scheduled),
-                    deadlineRangeId = getOrgRangeId(notePayload.deadline),
-                    closedRangeId = getOrgRangeId(notePayload.closed),
+                    scheduledRangeId = batch.rangeId(notePayload.scheduled),
+                    deadlineRangeId = batch.rangeId(notePayload.deadline),
+                    closedRangeId = batch.rangeId(notePayload.closed),
                     tags = Note.dbSerializeTags(notePayload.tags)
             )
 
+            batch.write()
+
             val count = db.note().update(newNote)
 
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Updated $count note: $newNote")
@@ -1573,7 +1874,7 @@ class DataRepository @Inject constructor(
     }
 
     fun deleteNotes(bookId: Long, ids: Set<Long>): Int {
-        return db.runInTransaction(Callable {
+        return db.writer.runInTransaction(Callable {
             db.noteAncestor().deleteForSubtrees(ids)
 
             db.note().updateDescendantsCountForAncestors(ids, ids)
@@ -1590,37 +1891,198 @@ class DataRepository @Inject constructor(
         return db.noteEvent().get(noteId)
     }
 
-    private fun replaceNoteEvents(noteId: Long, title: String, content: String?, properties: OrgProperties?) {
-        db.noteEvent().deleteForNote(noteId)
-
-        insertNoteEvents(noteId, title, content, properties)
-    }
-
     /**
-     * Events may come from the note's title, content or properties
+     * Events and properties of notes, computed in memory and written with [write].
+     * Rows which are already in the database are not written again.
      */
-    private fun insertNoteEvents(noteId: Long, title: String, content: String?, properties: OrgProperties?) {
-        if (title.isNotEmpty()) {
-            parseAndInsertEvents(noteId, title)
+    private inner class NoteRowsBatch {
+        /* Ids of ranges resolved so far. */
+        private val rangeIds = HashMap<String, Long>()
+
+        /* Range ids of active timestamps, by note. */
+        private val events = HashMap<Long, Set<Long>>()
+
+        /* All properties, by note. */
+        private val properties = HashMap<Long, List<OrgProperty>>()
+
+        /* Properties to set, keeping the other ones, by note. */
+        private val propertyUpdates = HashMap<Long, MutableMap<String, String>>()
+
+        /* Notes without any events and properties in the database. */
+        private val newNoteIds = HashSet<Long>()
+
+        /** Number of notes with changes not written yet. */
+        val size: Int
+            get() = events.size + properties.size + propertyUpdates.size
+
+        fun rangeId(range: String?): Long? {
+            return rangeId(OrgRange.parseOrNull(range))
+        }
+
+        fun rangeId(range: OrgRange?): Long? {
+            if (range == null) {
+                return null
+            }
+
+            val str = range.toString()
+
+            return rangeIds[str] ?: getOrgRangeId(range)?.also {
+                rangeIds[str] = it
+            }
+        }
+
+        /** Looks up existing ranges, so [rangeId] does not query them one by one. */
+        fun prefetchRanges(ranges: Collection<OrgRange>) {
+            ranges.map { it.toString() }
+                    .filterNot { rangeIds.containsKey(it) }
+                    .distinct()
+                    .chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER)
+                    .forEach { strings ->
+                        db.orgRange().getByStrings(strings).forEach {
+                            rangeIds[it.string] = it.id
+                        }
+                    }
         }
 
-        if (!content.isNullOrEmpty()) {
-            parseAndInsertEvents(noteId, content)
+        fun setNewNote(noteId: Long) {
+            newNoteIds.add(noteId)
         }
 
-        if (properties != null && !properties.isEmpty) {
-            for (property: OrgProperty in properties.all) {
-                parseAndInsertEvents(noteId, property.value)
+        /**
+         * Events may come from the note's title, content or properties
+         */
+        fun setEvents(noteId: Long, title: String, content: String?, properties: OrgProperties?) {
+            val ids = LinkedHashSet<Long>()
+
+            fun parse(str: String) {
+                OrgActiveTimestamps.parse(str).forEach { range ->
+                    rangeId(range)?.let { ids.add(it) }
+                }
+            }
+
+            if (title.isNotEmpty()) {
+                parse(title)
             }
+
+            if (!content.isNullOrEmpty()) {
+                parse(content)
+            }
+
+            if (properties != null && !properties.isEmpty) {
+                for (property: OrgProperty in properties.all) {
+                    parse(property.value)
+                }
+            }
+
+            events[noteId] = ids
         }
-    }
 
-    private fun parseAndInsertEvents(noteId: Long, str: String) {
-        OrgActiveTimestamps.parse(str).forEach { range ->
-            getOrgRangeId(range)?.let { orgRangeId ->
-                db.noteEvent().replace(NoteEvent(noteId, orgRangeId))
+        fun setProperties(noteId: Long, properties: OrgProperties) {
+            this.properties[noteId] = properties.all.toList()
+            propertyUpdates.remove(noteId)
+        }
+
+        /** Sets the property, like upsert in [com.orgzly.android.db.dao.NotePropertyDao]. */
+        fun setProperty(noteId: Long, name: String, value: String) {
+            propertyUpdates.getOrPut(noteId) { LinkedHashMap() }[name] = value
+        }
+
+        fun write() {
+            writeEvents()
+            writeProperties()
+
+            events.clear()
+            properties.clear()
+            propertyUpdates.clear()
+            newNoteIds.clear()
+        }
+
+        private fun writeEvents() {
+            val existing = existingRows(events.keys) {
+                db.noteEvent().getForNotes(it)
+            }.groupBy({ it.noteId }, { it.orgRangeId })
+
+            val deleted = mutableListOf<NoteEvent>()
+            val inserted = mutableListOf<NoteEvent>()
+
+            events.forEach { (noteId, ids) ->
+                val current = existing[noteId].orEmpty().toSet()
+
+                current.filterNot { it in ids }.mapTo(deleted) { NoteEvent(noteId, it) }
+                ids.filterNot { it in current }.mapTo(inserted) { NoteEvent(noteId, it) }
+            }
+
+            if (deleted.isNotEmpty()) {
+                db.noteEvent().delete(deleted)
+            }
+
+            if (inserted.isNotEmpty()) {
+                db.noteEvent().insert(inserted)
+            }
+        }
+
+        private fun writeProperties() {
+            val noteIds = properties.keys + propertyUpdates.keys
+
+            val existing = existingRows(noteIds) {
+                db.noteProperty().getForNotes(it)
+            }.groupBy { it.noteId }
+
+            val replaced = mutableListOf<Long>()
+            val inserted = mutableListOf<NoteProperty>()
+
+            noteIds.forEach { noteId ->
+                val current = existing[noteId].orEmpty()
+
+                var updated = properties[noteId]?.mapIndexed { i, property ->
+                    NoteProperty(noteId, i + 1, property.name, property.value)
+                } ?: current
+
+                propertyUpdates[noteId]?.forEach { (name, value) ->
+                    updated = withProperty(noteId, updated, name, value)
+                }
+
+                if (updated != current) {
+                    if (current.isNotEmpty()) {
+                        replaced.add(noteId)
+                    }
+                    inserted.addAll(updated)
+                }
+            }
+
+            replaced.chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER).forEach {
+                db.noteProperty().deleteForNotes(it)
+            }
+
+            if (inserted.isNotEmpty()) {
+                db.noteProperty().insert(inserted)
             }
         }
+
+        /* Updates the first property with the name and removes the others, or adds a new one. */
+        private fun withProperty(noteId: Long, list: List<NoteProperty>, name: String, value: String): List<NoteProperty> {
+            val first = list.indexOfFirst { it.name == name }
+
+            return if (first == -1) {
+                list + NoteProperty(noteId, (list.maxOfOrNull { it.position } ?: 0) + 1, name, value)
+
+            } else {
+                list.mapIndexedNotNull { i, property ->
+                    when {
+                        i == first -> property.copy(value = value)
+                        property.name == name -> null
+                        else -> property
+                    }
+                }
+            }
+        }
+
+        private fun <T> existingRows(noteIds: Collection<Long>, query: (List<Long>) -> List<T>): List<T> {
+            return noteIds
+                    .filterNot { it in newNoteIds }
+                    .chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER)
+                    .flatMap(query)
+        }
     }
 
     /**
@@ -1633,15 +2095,22 @@ class DataRepository @Inject constructor(
         }
     }
 
+    @JvmOverloads
     @Throws(IOException::class)
-    fun loadBookFromRepo(rook: Rook): BookView? {
+    fun loadBookFromRepo(rook: Rook, timings: SyncTimings? = null): BookView? {
         val repoRelativePath = BookName.getRepoRelativePath(rook.repoUri, rook.uri)
 
-        return loadBookFromRepo(rook.repoId, rook.repoType, rook.repoUri.toString(), repoRelativePath)
+        return loadBookFromRepo(rook.repoId, rook.repoType, rook.repoUri.toString(), repoRelativePath, timings)
     }
 
+    @JvmOverloads
     @Throws(IOException::class)
-    fun loadBookFromRepo(repoId: Long, repoType: RepoType, repoUrl: String, repoRelativePath: String): BookView? {
+    fun loadBookFromRepo(
+            repoId: Long,
+            repoType: RepoType,
+            repoUrl: String,
+            repoRelativePath: String,
+            timings: SyncTimings? = null): BookView? {
         val book: BookView?
 
         val repo = getRepoInstance(repoId, repoType, repoUrl)
@@ -1649,12 +2118,18 @@ class DataRepository @Inject constructor(
         val tmpFile = getTempBookFile()
         try {
             /* Download from repo. */
-            val vrook = repo.retrieveBook(repoRelativePath, tmpFile)
+            val vrook = timings.measure(SyncTimings.Phase.DOWNLOAD) {
+                repo.retrieveBook(repoRelativePath, tmpFile)
+            }
+
+            Metrics.count(Metrics.BYTES_DOWNLOADED, tmpFile.length(), repo.uri.toString())
 
             val bookName = BookName.fromRepoRelativePath(repoRelativePath)
 
             /* Store from file to Shelf. */
-            book = loadBookFromFile(bookName.name, bookName.format, tmpFile, vrook)
+            book = timings.measure(SyncTimings.Phase.PARSE) {
+                loadBookFromFile(bookName.name, bookName.format, tmpFile, vrook)
+            }
 
         } finally {
             tmpFile.delete()
@@ -1707,7 +2182,12 @@ class DataRepository @Inject constructor(
         try {
             val encoding = Encoding.detect(filePath, selectedEncoding)
 
-            return db.runInTransaction(Callable {
+            var metricsStartedAt = 0L
+
+            val (bookId, notesInserted) = db.writer.runInTransaction(Callable {
+                // Restarted if the write runs again. Recorded after the commit, so it is counted once.
+                metricsStartedAt = Metrics.start()
+
                 loadBookFromReader(
                         bookName,
                         vrook,
@@ -1716,6 +2196,12 @@ class DataRepository @Inject constructor(
                 )
             })
 
+            Metrics.count(Metrics.BOOKS_PARSED)
+            Metrics.count(Metrics.NOTES_INSERTED, notesInserted)
+            Metrics.recordSince(metricsStartedAt, Metrics.BOOK_PARSE_MS)
+
+            return bookId
+
         } catch (e: IOException) {
             e.printStackTrace()
 
@@ -1726,12 +2212,15 @@ class DataRepository @Inject constructor(
         }
     }
 
+    /**
+     * @return book's ID and the number of notes inserted
+     */
     @Throws(IOException::class)
     private fun loadBookFromReader(
             bookName: String,
             vrook: VersionedRook?,
             inReader: Reader,
-            encoding: Encoding): Long {
+            encoding: Encoding): Pair<Long, Long> {
 
         val startedAt = System.currentTimeMillis()
 
@@ -1757,6 +2246,8 @@ class DataRepository @Inject constructor(
         val createdAtProperty = AppPreferences.createdAtProperty(context)
         val startFolded = AppPreferences.notebooksStartFolded(context)
 
+        val batch = NoteRowsBatch()
+
         BufferedReader(inReader).use { reader ->
             /*
              * Create and run parser.
@@ -1770,10 +2261,10 @@ class DataRepository @Inject constructor(
                         @Throws(IOException::class)
                         override fun onNode(node: OrgNodeInSet) {
 
-                            val scheduledRangeId = getOrgRangeId(node.head.scheduled)
-                            val deadlineRangeId = getOrgRangeId(node.head.deadline)
-                            val closedRangeId = getOrgRangeId(node.head.closed)
-                            val clockRangeId = getOrgRangeId(node.head.clock)
+                            val scheduledRangeId = batch.rangeId(node.head.scheduled)
+                            val deadlineRangeId = batch.rangeId(node.head.deadline)
+                            val closedRangeId = batch.rangeId(node.head.closed)
+                            val clockRangeId = batch.rangeId(node.head.clock)
 
                             var content: String? = null
                             var contentLineCount = 0
@@ -1811,8 +2302,13 @@ class DataRepository @Inject constructor(
 
                             val noteId = db.note().insert(note)
 
-                            insertNoteProperties(noteId, node.head.properties)
-                            insertNoteEvents(noteId, note.title, note.content, node.head.properties)
+                            batch.setNewNote(noteId)
+                            batch.setProperties(noteId, node.head.properties)
+                            batch.setEvents(noteId, note.title, note.content, node.head.properties)
+
+                            if (batch.size >= NOTE_ROWS_BATCH_SIZE) {
+                                batch.write()
+                            }
 
                             /*
                              * Update notes' parent IDs and insert ancestors.
@@ -1866,6 +2362,8 @@ class DataRepository @Inject constructor(
                     .parse()
         }
 
+        batch.write()
+
         if (BuildConfig.LOG_DEBUG)
             LogUtils.d(TAG, bookName + ": Parsing done in " +
                     (System.currentTimeMillis() - startedAt) + " ms")
@@ -1876,7 +2374,7 @@ class DataRepository @Inject constructor(
 
         updateBookIsModified(bookId, false)
 
-        return bookId
+        return Pair(bookId, lft2id.size.toLong())
     }
 
     private fun getOrgRangeId(range: String?): Long? {
@@ -1914,7 +2412,7 @@ class DataRepository @Inject constructor(
         if (noteView != null) {
             val bookId = noteView.note.position.bookId
 
-            db.runInTransaction {
+            db.writer.runInTransaction {
                 if (sparseTree) {
                     foldAllNotes(bookId)
                 }
@@ -1977,7 +2475,13 @@ class DataRepository @Inject constructor(
     }
 
     fun findNoteHavingProperty(name: String, value: String): NoteDao.NoteIdBookId? {
-        return db.note().firstNoteHavingPropertyLowerCase(name.lowercase(), value.lowercase())
+        val lowerCaseName = name.lowercase()
+
+        return if (lowerCaseName in NoteIdProperty.NAMES) {
+            db.note().firstNoteHavingIdPropertyLowerCase(lowerCaseName, value.lowercase())
+        } else {
+            db.note().firstNoteHavingProperty(name, value)
+        }
     }
 
     /*
@@ -2004,16 +2508,22 @@ class DataRepository @Inject constructor(
     }
 
     fun createSavedSearch(savedSearch: SavedSearch): Long {
-        val nextPosition = db.savedSearch().getNextAvailablePosition()
-        return db.savedSearch().insert(savedSearch.copy(position = nextPosition))
+        return db.writer.runInTransaction(Callable {
+            val nextPosition = db.savedSearch().getNextAvailablePosition()
+            db.savedSearch().insert(savedSearch.copy(position = nextPosition))
+        })
     }
 
     fun updateSavedSearch(savedSearch: SavedSearch) {
-        db.savedSearch().update(savedSearch)
+        db.writer.runInTransaction {
+            db.savedSearch().update(savedSearch)
+        }
     }
 
     fun deleteSavedSearches(ids: Set<Long>) {
-        db.savedSearch().delete(ids)
+        db.writer.runInTransaction {
+            db.savedSearch().delete(ids)
+        }
     }
 
     fun moveSavedSearchUp(id: Long) {
@@ -2033,7 +2543,7 @@ class DataRepository @Inject constructor(
     }
 
     private fun swapSavedSearchPositions(savedSearch: SavedSearch, other: SavedSearch) {
-        db.runInTransaction {
+        db.writer.runInTransaction {
             db.savedSearch().update(savedSearch.copy(position = other.position))
             db.savedSearch().update(other.copy(position = savedSearch.position))
         }
@@ -2049,8 +2559,10 @@ class DataRepository @Inject constructor(
 
 
     fun replaceSavedSearches(savedSearches: List<SavedSearch>): Int {
-        db.savedSearch().deleteAll()
-        db.savedSearch().insert(savedSearches)
+        db.writer.runInTransaction {
+            db.savedSearch().deleteAll()
+            db.savedSearch().insert(savedSearches)
+        }
         return savedSearches.size
     }
 
@@ -2083,7 +2595,9 @@ class DataRepository @Inject constructor(
             throw RepoCreate.AlreadyExists()
         }
 
-        val id = db.repo().insert(repoWithProps.repo)
+        val id = db.writer.runInTransaction(Callable {
+            db.repo().insert(repoWithProps.repo)
+        })
 
         AppPreferences.repoPropsMap(context, id, repoWithProps.props)
 
@@ -2092,7 +2606,9 @@ class DataRepository @Inject constructor(
 
     fun updateRepo(repoWithProps: RepoWithProps): Long {
         // Since old url might be in use, do not update the existing record, but replace it
-        val newId = db.repo().deleteAndInsert(repoWithProps.repo)
+        val newId = db.writer.runInTransaction(Callable {
+            db.repo().deleteAndInsert(repoWithProps.repo)
+        })
 
         AppPreferences.repoPropsMapDelete(context, repoWithProps.repo.id)
 
@@ -2102,7 +2618,9 @@ class DataRepository @Inject constructor(
     }
 
     fun deleteRepo(id: Long) {
-        db.repo().delete(id)
+        db.writer.runInTransaction {
+            db.repo().delete(id)
+        }
 
         AppPreferences.repoPropsMapDelete(context, id)
     }
@@ -2138,53 +2656,98 @@ class DataRepository @Inject constructor(
      */
     @Throws(IOException::class)
     fun reParseNotesStateAndTitles(): Int {
+        val todoKeywords = AppPreferences.todoKeywordsSet(context)
+        val doneKeywords = AppPreferences.doneKeywordsSet(context)
+
+        val keywordsMatcher = KeywordsMatcher(todoKeywords + doneKeywords)
+
         val parserBuilder = OrgParser.Builder()
-                .setTodoKeywords(AppPreferences.todoKeywordsSet(context))
-                .setDoneKeywords(AppPreferences.doneKeywordsSet(context))
+                .setTodoKeywords(todoKeywords)
+                .setDoneKeywords(doneKeywords)
 
         var updated = 0
 
         val parserWriter = OrgParserWriter()
 
-        db.runInTransaction {
-            db.noteView().getAll().forEach { noteView ->
-                val note = noteView.note
+        var lastId = 0L
 
-                val head = OrgMapper.toOrgHead(noteView)
+        /* Page through notes, committing each page separately. */
+        do {
+            val (headings, pageUpdated) = db.writer.runInTransaction(Callable {
+                val headings = db.note().getHeadingsAfter(lastId, REPARSE_PAGE_SIZE)
 
-                val headString = parserWriter.whiteSpacedHead(head, note.position.level, false)
+                var pageUpdated = 0
 
-                /* Re-parse heading using current setting of keywords. */
-                val file = parserBuilder
-                        .setInput(headString)
-                        .build()
-                        .parse()
+                headings.forEach { heading ->
+                    if (!keywordsMatcher.canChange(heading)) {
+                        return@forEach
+                    }
 
-                if (file.headsInList.size != 1) {
-                    throw IOException("Got ${file.headsInList.size} notes after parsing \"$headString\" generated from $note")
-                }
+                    val head = OrgHead().apply {
+                        title = heading.title
+                        setTags(Note.dbDeSerializeTags(heading.tags).toTypedArray())
+                        state = heading.state
+                        priority = heading.priority
+                    }
+
+                    val headString = parserWriter.whiteSpacedHead(head, 1, false)
+
+                    /* Re-parse heading using current setting of keywords. */
+                    val file = parserBuilder
+                            .setInput(headString)
+                            .build()
+                            .parse()
+
+                    if (file.headsInList.size != 1) {
+                        throw IOException("Got ${file.headsInList.size} notes after parsing \"$headString\" generated from note ${heading.id}")
+                    }
 
-                val newHead = file.headsInList[0].head
+                    val newHead = file.headsInList[0].head
 
-                /* Update if state, title or priority are different. */
-                if (!TextUtils.equals(newHead.state, head.state) ||
-                        !TextUtils.equals(newHead.title, head.title) ||
-                        !TextUtils.equals(newHead.priority, head.priority)) {
+                    /* Update if state, title or priority are different. */
+                    if (!TextUtils.equals(newHead.state, head.state) ||
+                            !TextUtils.equals(newHead.title, head.title) ||
+                            !TextUtils.equals(newHead.priority, head.priority)) {
 
-                    updated += db.note().update(note.id, newHead.title, newHead.state, newHead.priority)
+                        pageUpdated += db.note().update(heading.id, newHead.title, newHead.state, newHead.priority)
+                    }
                 }
-            }
-        }
+
+                Pair(headings, pageUpdated)
+            })
+
+            updated += pageUpdated
+
+            headings.lastOrNull()?.let { lastId = it.id }
+
+        } while (headings.size == REPARSE_PAGE_SIZE)
 
         return updated
     }
 
+    /**
+     * Quick check if parsing the heading again with different keywords could change it.
+     * Heading changes only if its state is not a keyword anymore,
+     * or if its title starts with what is now a keyword.
+     */
+    private class KeywordsMatcher(private val keywords: Set<String>) {
+        private val firstWord = Regex("^\\S+")
+
+        fun canChange(heading: NoteDao.NoteHeading): Boolean {
+            return if (heading.state != null) {
+                heading.state !in keywords
+            } else {
+                firstWord.find(heading.title)?.value in keywords
+            }
+        }
+    }
+
     /**
      * Syncs created-at time and property, using lower value if both exist.
      */
     @Throws(IOException::class)
     fun syncCreatedAtTimeWithProperty() {
-        db.runInTransaction {
+        db.writer.runInTransaction {
             syncCreatedAtTimeWithPropertyInTransaction()
         }
     }
@@ -2300,7 +2863,7 @@ class DataRepository @Inject constructor(
     fun importGettingStartedBook() {
         val name = resources.getString(R.string.getting_started_notebook_name)
 
-        db.runInTransaction {
+        db.writer.runInTransaction {
             val book = loadBookFromResource(
                     name,
                     BookFormat.ORG,
@@ -2325,6 +2888,8 @@ class DataRepository @Inject constructor(
             OrgzlyDatabase.insertDefaultSearches(db.openHelper.writableDatabase)
         }
 
+        agendaHorizon = null
+
         // Clear last sync time
         AppPreferences.lastSuccessfulSyncTime(context, 0L)
 
@@ -2341,12 +2906,86 @@ class DataRepository @Inject constructor(
     fun updateTimestamps() {
         if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG)
 
-        db.orgTimestamp().getAll().forEach {
-            val timestamp = OrgDateTime.doParse(it.string).calendar.timeInMillis
-            db.orgTimestamp().update(it.copy(timestamp = timestamp))
+        db.writer.runInTransaction {
+            db.orgTimestamp().getAll().forEach {
+                val timestamp = OrgDateTime.doParse(it.string).calendar.timeInMillis
+                db.orgTimestamp().update(it.copy(timestamp = timestamp))
+            }
+
+            // Days of the occurrences could be different now
+            db.agendaOccurrence().deleteHorizon()
+        }
+
+        agendaHorizon = null
+    }
+
+    /**
+     * Roll [AgendaOccurrence]s forward to start from today, or only
+     * update them for the notes which have been modified since.
+     */
+    fun updateAgendaOccurrences() {
+        val startedAt = System.currentTimeMillis()
+
+        val today = DateTime.now().withTimeAtStartOfDay()
+
+        val dao = db.agendaOccurrence()
+
+        val horizon = db.writer.runInTransaction(Callable {
+            val current = dao.getHorizon()
+
+            if (current == null || current.fromDay != today.millis) {
+                val horizon = AgendaHorizon(
+                        fromDay = today.millis,
+                        toDay = today.plusDays(AGENDA_HORIZON_DAYS).millis)
+
+                dao.deleteAll()
+                dao.deleteAllPending()
+
+                insertAgendaOccurrences(dao.getAllRanges(), today)
+
+                dao.setHorizon(horizon)
+
+                horizon
+
+            } else {
+                dao.getPendingNoteIds().chunked(OrgzlyDatabase.SQLITE_MAX_VARIABLE_NUMBER / 3).forEach { ids ->
+                    dao.deleteForNotes(ids)
+                    insertAgendaOccurrences(dao.getRanges(ids), today)
+                    dao.deletePending(ids)
+                }
+
+                current
+            }
+        })
+
+        agendaHorizon = horizon
+
+        if (BuildConfig.LOG_DEBUG) {
+            LogUtils.d(TAG, "Updated agenda occurrences in ${System.currentTimeMillis() - startedAt}ms")
         }
     }
 
+    private fun insertAgendaOccurrences(ranges: List<AgendaOccurrenceDao.NoteRange>, today: DateTime) {
+        val parsedRanges = AgendaItems.ParsedRanges()
+
+        val occurrences = mutableListOf<AgendaOccurrence>()
+
+        ranges.forEach { range ->
+            val expandable = parsedRanges.get(range.timeType, range.rangeString) ?: return@forEach
+
+            AgendaUtils.expandOrgDateTime(expandable, today, AGENDA_HORIZON_DAYS).expanded.forEach { time ->
+                occurrences.add(AgendaOccurrence(
+                        range.noteId,
+                        range.timeType,
+                        range.orgRangeId,
+                        time.withTimeAtStartOfDay().millis,
+                        time.millis))
+            }
+        }
+
+        db.agendaOccurrence().insert(occurrences)
+    }
+
     fun getSyncRepos(): List<SyncRepo> {
         val list = ArrayList<SyncRepo>()
         for ((id, type, url) in getRepos()) {
@@ -2374,17 +3013,94 @@ class DataRepository @Inject constructor(
     }
 
     fun updateBooksStatusToCanceled() {
-        db.book().updateStatusToCanceled(
-            BookAction.Type.PROGRESS,
-            BookAction.Type.INFO,
-            context.getString(R.string.canceled),
-            System.currentTimeMillis(),
-            null)
+        db.writer.runInTransaction {
+            db.book().updateStatusToCanceled(
+                BookAction.Type.PROGRESS,
+                BookAction.Type.INFO,
+                context.getString(R.string.canceled),
+                System.currentTimeMillis(),
+                null)
+        }
+    }
+
+    /*
+     * Maintenance
+     */
+
+    /**
+     * Deletes rows no longer used by anything and old logs, updates statistics
+     * used by the query planner and returns free pages to the file system.
+     */
+    fun maintainDatabase(): MaintenanceReport {
+        val sqliteDb = db.openHelper.writableDatabase
+
+        val sizeBefore = databaseSize(sqliteDb)
+
+        val report = db.writer.runInTransaction(Callable {
+            val now = System.currentTimeMillis()
+
+            MaintenanceReport(
+                    versionedRooks = db.versionedRook().deleteUnused(),
+                    // Ranges first, as they use timestamps
+                    orgRanges = db.orgRange().deleteUnused(),
+                    orgTimestamps = db.orgTimestamp().deleteUnused(),
+                    appLogs = db.appLog().deleteOlderThan(now - DatabaseAppLogsRepository.MAX_AGE) +
+                            db.appLog().deleteAllButLatest(DatabaseAppLogsRepository.MAX_ROWS))
+        })
+
+        if (hasStatistics(sqliteDb)) {
+            // Analyzes only tables which changed enough since the last time
+            sqliteDb.query("PRAGMA optimize").use { it.moveToFirst() }
+        } else {
+            sqliteDb.execSQL("ANALYZE")
+        }
+
+        if (sqliteDb.pragma("auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+            // Frees one page per row returned
+            sqliteDb.query("PRAGMA incremental_vacuum").use { cursor ->
+                while (cursor.moveToNext()) {
+                    // Keep stepping
+                }
+            }
+
+        } else {
+            // Database created without it. Mode is changed only by rebuilding the file.
+            sqliteDb.execSQL("PRAGMA auto_vacuum = INCREMENTAL")
+            sqliteDb.execSQL("VACUUM")
+        }
+
+        return report.copy(sizeBefore = sizeBefore, sizeAfter = databaseSize(sqliteDb))
+    }
+
+    private fun databaseSize(sqliteDb: SupportSQLiteDatabase): Long {
+        return sqliteDb.pragma("page_count") * sqliteDb.pragma("page_size")
+    }
+
+    private fun hasStatistics(sqliteDb: SupportSQLiteDatabase): Boolean {
+        return sqliteDb.query("SELECT 1 FROM sqlite_master WHERE name = 'sqlite_stat1'").use { cursor ->
+            cursor.moveToFirst()
+        }
+    }
+
+    private fun SupportSQLiteDatabase.pragma(name: String): Long {
+        return query("PRAGMA $name").use { cursor ->
+            if (cursor.moveToFirst()) cursor.getLong(0) else 0
+        }
     }
 
     companion object {
         private val TAG = DataRepository::class.java.name
 
         const val GETTING_STARTED_NOTEBOOK_RESOURCE_ID = R.raw.orgzly_getting_started
+
+        /** Number of notes re-parsed in a single transaction. */
+        private const val REPARSE_PAGE_SIZE = 1000
+
+        private const val NOTE_ROWS_BATCH_SIZE = 500
+
+        /** Number of days, starting from today, for which agenda occurrences are kept. */
+        const val AGENDA_HORIZON_DAYS = 62
+
+        private const val AUTO_VACUUM_INCREMENTAL = 2L
     }
 }
@@ -3,17 +3,27 @@ package com.orgzly.android.data
 import android.net.Uri
 import com.orgzly.android.db.OrgzlyDatabase
 import com.orgzly.android.db.entity.DbRepoBook
+import com.orgzly.android.db.entity.DbRepoBookRevision
 import com.orgzly.android.repos.RepoType
 import com.orgzly.android.repos.VersionedRook
-import com.orgzly.android.util.MiscUtils
+import com.orgzly.android.util.GzipUtils
+import java.io.ByteArrayInputStream
 import java.io.File
 import java.io.IOException
+import java.io.InputStream
+import java.util.concurrent.Callable
+import java.util.zip.GZIPInputStream
 import javax.inject.Inject
 import javax.inject.Singleton
 
+/**
+ * Books are stored compressed. When a book is replaced, its previous revision is kept
+ * as a delta from the new one, up to [MAX_REVISIONS] per book.
+ */
 @Singleton
-class DbRepoBookRepository @Inject constructor(db: OrgzlyDatabase) {
+class DbRepoBookRepository @Inject constructor(private val db: OrgzlyDatabase) {
     private val dbRepoBook = db.dbRepoBook()
+    private val dbRepoBookRevision = db.dbRepoBookRevision()
 
     fun getBooks(repoId: Long, repoUri: Uri): List<VersionedRook> {
         return dbRepoBook.getAllByRepo(repoUri.toString()).map {
@@ -24,23 +34,53 @@ class DbRepoBookRepository @Inject constructor(db: OrgzlyDatabase) {
     fun retrieveBook(repoId: Long, repoUri: Uri, uri: Uri, file: File): VersionedRook {
         val book = dbRepoBook.getByUrl(uri.toString()) ?: throw IOException()
 
-        MiscUtils.writeStringToFile(book.content, file)
+        GzipUtils.decompressToFile(book.content, file)
 
         return VersionedRook(repoId, RepoType.MOCK, repoUri, uri, book.revision, book.mtime)
     }
 
+    @Throws(IOException::class)
+    fun openBook(uri: Uri): InputStream {
+        val book = dbRepoBook.getByUrl(uri.toString()) ?: throw IOException("Book $uri does not exist")
+
+        return GZIPInputStream(ByteArrayInputStream(book.content))
+    }
+
     fun createBook(repoId: Long, vrook: VersionedRook, content: String): VersionedRook {
-        val book = DbRepoBook(
-                0,
-                vrook.repoUri.toString(),
-                vrook.uri.toString(),
-                vrook.revision,
-                vrook.mtime,
-                content,
-                System.currentTimeMillis()
-        )
+        return createBook(repoId, vrook, content.toByteArray())
+    }
+
+    fun createBook(repoId: Long, vrook: VersionedRook, file: File): VersionedRook {
+        return createBook(repoId, vrook, file.readBytes())
+    }
+
+    private fun createBook(repoId: Long, vrook: VersionedRook, content: ByteArray): VersionedRook {
+        val now = System.currentTimeMillis()
+
+        val book = db.writer.runInTransaction(Callable {
+            val existingBook = dbRepoBook.getByUrl(vrook.uri.toString())
+
+            val book = DbRepoBook(
+                    existingBook?.id ?: 0,
+                    vrook.repoUri.toString(),
+                    vrook.uri.toString(),
+                    vrook.revision,
+                    vrook.mtime,
+                    GzipUtils.compress(content),
+                    now
+            )
+
+            if (existingBook != null) {
+                keepRevision(existingBook, content, now)
 
-        dbRepoBook.replace(book)
+                dbRepoBook.update(book)
+
+                book
+
+            } else {
+                book.copy(id = dbRepoBook.insert(book))
+            }
+        })
 
         return VersionedRook(
                 repoId,
@@ -51,6 +91,69 @@ class DbRepoBookRepository @Inject constructor(db: OrgzlyDatabase) {
                 book.mtime)
     }
 
+    /**
+     * Stores the current revision of [book] as a delta from [newContent] which replaces it.
+     */
+    private fun keepRevision(book: DbRepoBook, newContent: ByteArray, now: Long) {
+        val content = GzipUtils.decompress(book.content)
+
+        val prefixLength = commonPrefixLength(newContent, content)
+        val suffixLength = commonSuffixLength(newContent, content, prefixLength)
+
+        val middle = content.copyOfRange(prefixLength, content.size - suffixLength)
+
+        dbRepoBookRevision.insert(DbRepoBookRevision(
+                0,
+                book.id,
+                book.revision,
+                book.mtime,
+                prefixLength,
+                suffixLength,
+                GzipUtils.compress(middle),
+                now))
+
+        dbRepoBookRevision.deleteAllButNewest(book.id, MAX_REVISIONS)
+    }
+
+    /**
+     * Previous revisions of the book, newest first.
+     */
+    fun getRevisions(repoId: Long, uri: Uri): List<VersionedRook> {
+        val book = dbRepoBook.getByUrl(uri.toString()) ?: return emptyList()
+
+        return dbRepoBookRevision.getAllByBook(book.id).map {
+            VersionedRook(repoId, RepoType.MOCK, Uri.parse(book.repoUrl), uri, it.revision, it.mtime)
+        }
+    }
+
+    /**
+     * Writes the content of a previous [revision] of the book to [file].
+     */
+    @Throws(IOException::class)
+    fun retrieveRevision(repoId: Long, uri: Uri, revision: String, file: File): VersionedRook {
+        val book = dbRepoBook.getByUrl(uri.toString()) ?: throw IOException("Book $uri does not exist")
+
+        var content = GzipUtils.decompress(book.content)
+
+        // Each revision is a delta from the one following it
+        for (bookRevision in dbRepoBookRevision.getAllByBook(book.id)) {
+            val middle = GzipUtils.decompress(bookRevision.middle)
+
+            content = content.copyOfRange(0, bookRevision.prefixLength) +
+                    middle +
+                    content.copyOfRange(content.size - bookRevision.suffixLength, content.size)
+
+            if (bookRevision.revision == revision) {
+                file.writeBytes(content)
+
+                return VersionedRook(
+                        repoId, RepoType.MOCK, Uri.parse(book.repoUrl), uri, bookRevision.revision, bookRevision.mtime)
+            }
+        }
+
+        throw IOException("Revision $revision of $uri does not exist")
+    }
+
     fun renameBook(repoId: Long, from: Uri, to: Uri): VersionedRook {
         val book = dbRepoBook.getByUrl(from.toString())
                 ?: throw IOException("Failed moving notebook from $from to $to")
@@ -60,7 +163,9 @@ class DbRepoBookRepository @Inject constructor(db: OrgzlyDatabase) {
                 revision = "MockedRenamedRevision-" + System.currentTimeMillis(),
                 mtime = System.currentTimeMillis())
 
-        dbRepoBook.update(renamedBook)
+        db.writer.runInTransaction {
+            dbRepoBook.update(renamedBook)
+        }
 
         return VersionedRook(
                 repoId,
@@ -77,7 +182,36 @@ class DbRepoBookRepository @Inject constructor(db: OrgzlyDatabase) {
         if (dbRepoBook.getByUrl(uriString) == null) {
             throw IOException("Book $uri does not exist")
         } else {
-            return dbRepoBook.deleteByUrl(uriString)
+            return db.writer.runInTransaction(Callable { dbRepoBook.deleteByUrl(uriString) })
+        }
+    }
+
+    companion object {
+        const val MAX_REVISIONS = 10
+
+        private fun commonPrefixLength(a: ByteArray, b: ByteArray): Int {
+            val max = minOf(a.size, b.size)
+
+            var length = 0
+            while (length < max && a[length] == b[length]) {
+                length++
+            }
+
+            return length
+        }
+
+        /**
+         * Common suffix not overlapping the common prefix of length [prefixLength].
+         */
+        private fun commonSuffixLength(a: ByteArray, b: ByteArray, prefixLength: Int): Int {
+            val max = minOf(a.size, b.size) - prefixLength
+
+            var length = 0
+            while (length < max && a[a.size - 1 - length] == b[b.size - 1 - length]) {
+                length++
+            }
+
+            return length
         }
     }
-}
\ No newline at end of file
+}
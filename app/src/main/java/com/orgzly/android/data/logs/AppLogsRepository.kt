@@ -5,5 +5,6 @@ import kotlinx.coroutines.flow.Flow
 interface AppLogsRepository {
     fun log(type: String, str: String)
 
-    fun getFlow(): Flow<List<LogEntry>>
+    /** Latest [limit] entries, oldest first. */
+    fun getFlow(limit: Int): Flow<List<LogEntry>>
 }
\ No newline at end of file
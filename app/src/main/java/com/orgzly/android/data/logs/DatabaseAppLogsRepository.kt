@@ -6,23 +6,93 @@ import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.map
-import javax.inject.Inject
-import javax.inject.Singleton
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+/**
+ * Logs stored in the database.
+ *
+ * Entries are written in batches on a background thread. Each write deletes
+ * entries over [maxRows] and those older than [maxAge] (in milliseconds).
+ */
+class DatabaseAppLogsRepository(
+        private val db: OrgzlyDatabase,
+        private val maxRows: Int = MAX_ROWS,
+        private val maxAge: Long = MAX_AGE,
+        private val executor: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor()
+) : AppLogsRepository {
 
-@Singleton
-class DatabaseAppLogsRepository @Inject constructor(db: OrgzlyDatabase) : AppLogsRepository {
     private val dbAppLog = db.appLog()
 
+    /* Entries not written yet. */
+    private val pending = ArrayDeque<AppLog>()
+
+    private var isFlushScheduled = false
+
     override fun log(type: String, str: String) {
         val entry = AppLog(0, System.currentTimeMillis(), type, str)
-        dbAppLog.insert(entry)
+
+        synchronized(pending) {
+            pending.addLast(entry)
+
+            // Would be deleted after writing anyway
+            if (pending.size > maxRows) {
+                pending.removeFirst()
+            }
+
+            if (pending.size >= BATCH_SIZE) {
+                executor.execute(::flush)
+
+            } else if (!isFlushScheduled) {
+                isFlushScheduled = true
+                executor.schedule(::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS)
+            }
+        }
+    }
+
+    /**
+     * Writes pending entries now.
+     */
+    fun flush() {
+        val entries = synchronized(pending) {
+            isFlushScheduled = false
+            pending.toList().also { pending.clear() }
+        }
+
+        if (entries.isEmpty()) {
+            return
+        }
+
+        try {
+            db.writer.runInTransaction {
+                dbAppLog.insert(entries)
+                dbAppLog.deleteOlderThan(System.currentTimeMillis() - maxAge)
+                dbAppLog.deleteAllButLatest(maxRows)
+            }
+
+        } catch (e: Exception) {
+            // Failing to log should not fail anything else
+            e.printStackTrace()
+        }
     }
 
-    override fun getFlow(): Flow<List<LogEntry>> {
-        return dbAppLog.getFlow().map { logEntries ->
+    override fun getFlow(limit: Int): Flow<List<LogEntry>> {
+        return dbAppLog.getLatestFlow(limit).map { logEntries ->
             logEntries.map { entry ->
                 LogEntry(entry.timestamp, entry.name, entry.message)
             }
         }.flowOn(Dispatchers.IO)
     }
-}
\ No newline at end of file
+
+    companion object {
+        const val MAX_ROWS = 10_000
+
+        const val MAX_AGE = 30L * 24 * 60 * 60 * 1000
+
+        /** Number of pending entries written without waiting. */
+        private const val BATCH_SIZE = 50
+
+        private const val FLUSH_DELAY_MS = 500L
+    }
+}
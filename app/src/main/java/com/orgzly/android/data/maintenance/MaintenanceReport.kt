@@ -0,0 +1,22 @@
+package com.orgzly.android.data.maintenance
+
+/**
+ * Rows deleted and database size before and after maintenance.
+ */
+data class MaintenanceReport(
+        val versionedRooks: Int = 0,
+        val orgRanges: Int = 0,
+        val orgTimestamps: Int = 0,
+        val appLogs: Int = 0,
+        val sizeBefore: Long = 0,
+        val sizeAfter: Long = 0) {
+
+    val reclaimedBytes: Long
+        get() = (sizeBefore - sizeAfter).coerceAtLeast(0)
+
+    override fun toString(): String {
+        return "Deleted $versionedRooks versioned rooks, $orgRanges ranges, " +
+                "$orgTimestamps timestamps and $appLogs logs. " +
+                "Reclaimed $reclaimedBytes bytes ($sizeBefore -> $sizeAfter)."
+    }
+}
@@ -0,0 +1,82 @@
+package com.orgzly.android.data.maintenance
+
+import android.content.Context
+import android.os.Build
+import androidx.work.Constraints
+import androidx.work.ExistingPeriodicWorkPolicy
+import androidx.work.PeriodicWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.Worker
+import androidx.work.WorkerParameters
+import com.orgzly.BuildConfig
+import com.orgzly.android.App
+import com.orgzly.android.data.DataRepository
+import com.orgzly.android.data.logs.AppLogsRepository
+import com.orgzly.android.util.LogMajorEvents
+import com.orgzly.android.util.LogUtils
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+
+/**
+ * Periodically cleans up the database, while the device is idle and charging.
+ */
+class MaintenanceWorker(context: Context, params: WorkerParameters) : Worker(context, params) {
+    @Inject
+    lateinit var dataRepository: DataRepository
+
+    @Inject
+    lateinit var appLogs: AppLogsRepository
+
+    override fun doWork(): Result {
+        App.appComponent.inject(this)
+
+        val startedAt = System.currentTimeMillis()
+
+        val report = try {
+            dataRepository.maintainDatabase()
+        } catch (e: Exception) {
+            e.printStackTrace()
+            return Result.failure()
+        }
+
+        val msg = "$report Took ${System.currentTimeMillis() - startedAt} ms."
+
+        if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, msg)
+
+        if (LogMajorEvents.isEnabled()) {
+            appLogs.log(LogMajorEvents.MAINTENANCE, msg)
+        }
+
+        return Result.success()
+    }
+
+    companion object {
+        private val TAG: String = MaintenanceWorker::class.java.name
+
+        private const val UNIQUE_WORK_NAME = "maintenance"
+
+        private const val INTERVAL_DAYS = 7L
+
+        /**
+         * Schedules periodic maintenance, keeping the existing schedule if there is one.
+         */
+        @JvmStatic
+        fun schedule(context: Context) {
+            val constraints = Constraints.Builder()
+                .setRequiresCharging(true)
+                .apply {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                        setRequiresDeviceIdle(true)
+                    }
+                }
+                .build()
+
+            val request = PeriodicWorkRequestBuilder<MaintenanceWorker>(INTERVAL_DAYS, TimeUnit.DAYS)
+                .setConstraints(constraints)
+                .build()
+
+            WorkManager.getInstance(context).enqueueUniquePeriodicWork(
+                UNIQUE_WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request)
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.orgzly.android.db
+
+import android.os.Build
+import android.os.Looper
+import android.os.StrictMode
+import android.os.strictmode.CustomViolation
+import android.os.strictmode.Violation
+import androidx.annotation.RequiresApi
+import androidx.room.RoomDatabase
+import java.util.Collections
+
+/**
+ * Reports every statement executed on the main thread as a StrictMode violation.
+ *
+ * Room already refuses to run DAO methods on the main thread, but statements executed
+ * through [OrgzlyDatabase.getOpenHelper] or raw cursors are not checked. Once [enable]d
+ * (by the test runner), databases opened afterwards note each statement executed on the
+ * main thread as a custom slow call, which the main thread's policy records.
+ */
+object DatabaseStrictMode {
+    private const val MESSAGE_PREFIX = "Database accessed on the main thread: "
+
+    @Volatile
+    @JvmStatic
+    var isEnabled = false
+        private set
+
+    private val violations = Collections.synchronizedList(mutableListOf<Throwable>())
+
+    /**
+     * Must be called on the main thread, before the database is opened.
+     */
+    @JvmStatic
+    fun enable() {
+        check(Looper.myLooper() == Looper.getMainLooper()) { "Must be called on the main thread" }
+
+        val policy = StrictMode.ThreadPolicy.Builder(StrictMode.getThreadPolicy())
+                .detectCustomSlowCalls()
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            policy.penaltyListener({ it.run() }, ::onViolation)
+        } else {
+            policy.penaltyLog().penaltyDeath()
+        }
+
+        StrictMode.setThreadPolicy(policy.build())
+
+        isEnabled = true
+    }
+
+    /**
+     * Callback to pass to [RoomDatabase.Builder.setQueryCallback] with a direct executor,
+     * so it is called on the thread executing the statement.
+     */
+    @JvmStatic
+    fun queryCallback(): RoomDatabase.QueryCallback {
+        return RoomDatabase.QueryCallback { sql, _ ->
+            noteMainThreadAccess(sql)
+        }
+    }
+
+    /**
+     * Notes [what] as a violation if called on the main thread and checking is [enable]d.
+     * For accesses the [queryCallback] cannot see, like writes passed to [DatabaseWriter].
+     */
+    @JvmStatic
+    fun noteMainThreadAccess(what: String) {
+        if (isEnabled && Looper.myLooper() == Looper.getMainLooper()) {
+            StrictMode.noteSlowCall(MESSAGE_PREFIX + what)
+        }
+    }
+
+    /**
+     * Returns and clears violations recorded since the last call.
+     */
+    @JvmStatic
+    fun takeViolations(): List<Throwable> {
+        synchronized(violations) {
+            return violations.toList().also { violations.clear() }
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.P)
+    private fun onViolation(violation: Violation) {
+        if (violation is CustomViolation && violation.message?.contains(MESSAGE_PREFIX) == true) {
+            violations.add(violation)
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.orgzly.android.db
+
+import androidx.room.RoomDatabase
+import com.orgzly.BuildConfig
+import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Runs write transactions one at a time, on a single thread.
+ *
+ * Writes come from UI actions, use cases, sync and broadcast receivers, each from its own
+ * thread. Instead of all of them contending for SQLite's write lock, they are queued and
+ * committed together in one transaction. A write that finds the queue empty runs right
+ * away. Otherwise writes arriving within [coalesceWindowMs] join the batch. Reads are not
+ * affected and keep running in parallel (the database uses WAL).
+ *
+ * Callers block until their write is committed, so [runInTransaction] can replace
+ * [RoomDatabase.runInTransaction] as-is. If a write in a batch fails, the batch is rolled
+ * back, the failed write gets its exception and the others are run again without it.
+ * Writes must therefore have no effects outside the database, as they can run more than once.
+ */
+class DatabaseWriter @JvmOverloads constructor(
+        private val db: RoomDatabase,
+        private val coalesceWindowMs: Long = COALESCE_WINDOW_MS) {
+
+    private val queue = LinkedBlockingQueue<Write<*>>()
+
+    /* Single thread, stopped when idle. */
+    private val executor = ThreadPoolExecutor(1, 1, IDLE_TIMEOUT_S, TimeUnit.SECONDS, LinkedBlockingQueue()) {
+        Thread(it, "db-writer")
+    }.apply {
+        allowCoreThreadTimeOut(true)
+    }
+
+    fun <V> runInTransaction(body: Callable<V>): V {
+        /* Already writing (nested call from a batch, or the caller's own transaction). */
+        if (db.inTransaction()) {
+            return db.runInTransaction(body)
+        }
+
+        // Statements run on the writer thread, so the query callback would not notice
+        DatabaseStrictMode.noteMainThreadAccess("write")
+
+        val write = Write(body)
+
+        queue.add(write)
+
+        // One drain per write, so every write is picked up, most of them by earlier drains
+        executor.execute(::drain)
+
+        return write.await()
+    }
+
+    private fun drain() {
+        val batch = mutableListOf<Write<*>>()
+
+        try {
+            batch.add(queue.poll() ?: return)
+
+            // Others are waiting too, collect the rest of them
+            if (queue.isNotEmpty()) {
+                val deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(coalesceWindowMs)
+
+                while (batch.size < MAX_BATCH_SIZE) {
+                    val write = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) ?: break
+
+                    batch.add(write)
+                }
+            }
+
+            Metrics.record(Metrics.DB_WRITE_BATCH_SIZE, batch.size.toLong())
+
+            runBatch(batch)
+
+        } catch (e: Throwable) {
+            // Never leave a caller waiting
+            batch.forEach { it.fail(e) }
+
+            if (e is InterruptedException) {
+                Thread.currentThread().interrupt()
+            }
+        }
+    }
+
+    private fun runBatch(batch: List<Write<*>>) {
+        var writes = batch
+
+        while (writes.size > 1) {
+            var failed: Write<*>? = null
+
+            try {
+                db.runInTransaction {
+                    writes.forEach { write ->
+                        failed = write
+                        write.run()
+                    }
+                    failed = null
+                }
+
+                writes.forEach { it.complete() }
+
+                return
+
+            } catch (e: Throwable) {
+                val write = failed ?: throw e // Commit failed
+
+                if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Write failed, running the other ${writes.size - 1} again", e)
+
+                write.fail(e)
+
+                writes = writes.filter { it !== write }
+            }
+        }
+
+        writes.firstOrNull()?.runAlone(db)
+    }
+
+    private class Write<V>(private val body: Callable<V>) {
+        private val done = CountDownLatch(1)
+
+        private var result: V? = null
+
+        private var error: Throwable? = null
+
+        /** Runs the write in the batch's transaction. Caller completes it after the commit. */
+        fun run() {
+            result = body.call()
+        }
+
+        fun complete() {
+            done.countDown()
+        }
+
+        /** Does nothing if the write has already completed. */
+        fun fail(e: Throwable) {
+            if (done.count > 0) {
+                error = e
+                done.countDown()
+            }
+        }
+
+        fun runAlone(db: RoomDatabase) {
+            try {
+                result = db.runInTransaction(body)
+            } catch (e: Throwable) {
+                error = e
+            }
+
+            done.countDown()
+        }
+
+        @Suppress("UNCHECKED_CAST")
+        fun await(): V {
+            done.await()
+
+            error?.let { throw it }
+
+            return result as V
+        }
+    }
+
+    companion object {
+        private val TAG = DatabaseWriter::class.java.name
+
+        const val COALESCE_WINDOW_MS = 4L
+
+        private const val MAX_BATCH_SIZE = 64
+
+        private const val IDLE_TIMEOUT_S = 30L
+    }
+}
@@ -1,65 +1,106 @@
 package com.orgzly.android.db
 
 import com.google.gson.Gson
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonWriter
 import com.orgzly.android.App
 import com.orgzly.android.data.DataRepository
 import com.orgzly.android.db.entity.Note
 import com.orgzly.android.db.entity.NoteProperty
 import com.orgzly.android.prefs.AppPreferences
-import com.orgzly.android.util.MiscUtils
 import java.io.File
-import java.io.StringWriter
+import java.io.IOException
 
-data class NotesClipboard(val entries: List<Entry> = emptyList()) {
+/**
+ * Notes saved to a file as a JSON array of [Entry]s.
+ *
+ * Entries are written and read one by one, so they are never all in memory.
+ */
+class NotesClipboard(val count: Int = 0) {
 
     data class Entry(
             val note: Note,
             val properties: List<NoteProperty>
     )
 
-    val count: Int
-        get() = entries.count()
+    /**
+     * Reads saved entries in order.
+     */
+    @Throws(IOException::class)
+    fun forEachEntry(action: (Entry) -> Unit) {
+        if (count == 0) {
+            return
+        }
 
+        val gson = Gson()
 
-    fun save() {
-        try {
-            val writer = StringWriter()
-            Gson().toJson(entries, writer)
-            val content = writer.toString()
+        JsonReader(dataFile().bufferedReader()).use { reader ->
+            reader.beginArray()
 
-            MiscUtils.writeStringToFile(content, dataFile())
+            while (reader.hasNext()) {
+                action(gson.fromJson<Entry>(reader, Entry::class.java))
+            }
 
-            AppPreferences.notesClipboard(App.getAppContext(), "$count")
-        } catch (e: Exception) {
-            e.printStackTrace()
+            reader.endArray()
         }
     }
 
-
     companion object {
+        /* Number of notes to get properties for at once. */
+        private const val PROPERTIES_CHUNK_SIZE = 500
+
         fun count(): Int {
             return AppPreferences.notesClipboard(App.getAppContext())?.toInt() ?: 0
         }
 
-        fun create(dataRepository: DataRepository, ids: Set<Long>): NotesClipboard {
-            val alignedNotes = dataRepository.getSubtreesAligned(ids).map { note ->
-                Entry(note, dataRepository.getNoteProperties(note.id))
+        /**
+         * Saves aligned subtrees of notes with [ids], replacing the previous clipboard.
+         *
+         * @throws IOException if saving failed, in which case the previous clipboard is kept
+         */
+        @Throws(IOException::class)
+        fun save(dataRepository: DataRepository, ids: Set<Long>): NotesClipboard {
+            val alignedNotes = dataRepository.getSubtreesAligned(ids)
+
+            val tmpFile = File(dataFile().path + ".tmp")
+
+            try {
+                val gson = Gson()
+
+                JsonWriter(tmpFile.bufferedWriter()).use { writer ->
+                    writer.beginArray()
+
+                    alignedNotes.chunked(PROPERTIES_CHUNK_SIZE).forEach { notes ->
+                        val properties = dataRepository.getNotesProperties(notes.map { it.id })
+
+                        notes.forEach { note ->
+                            val entry = Entry(note, properties[note.id].orEmpty())
+
+                            gson.toJson(entry, Entry::class.java, writer)
+                        }
+                    }
+
+                    writer.endArray()
+                }
+
+                if (!tmpFile.renameTo(dataFile())) {
+                    throw IOException("Failed renaming $tmpFile to ${dataFile()}")
+                }
+
+            } finally {
+                tmpFile.delete()
             }
 
-            return NotesClipboard(alignedNotes)
+            AppPreferences.notesClipboard(App.getAppContext(), "${alignedNotes.size}")
+
+            return NotesClipboard(alignedNotes.size)
         }
 
         fun load(): NotesClipboard {
-            if (count() > 0) {
-                try {
-                    val data = MiscUtils.readStringFromFile(dataFile())
+            val count = count()
 
-                    val notes = Gson().fromJson(data, Array<Entry>::class.java).toMutableList()
-
-                    return NotesClipboard(notes)
-                } catch (e: Exception) {
-                    e.printStackTrace()
-                }
+            if (count > 0 && dataFile().exists()) {
+                return NotesClipboard(count)
             }
 
             return NotesClipboard()
@@ -76,4 +117,4 @@ data class NotesClipboard(val entries: List<Entry> = emptyList()) {
             return File(App.getAppContext().filesDir, "clipboard.json")
         }
     }
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import com.orgzly.BuildConfig
 import com.orgzly.android.db.dao.*
 import com.orgzly.android.db.entity.*
 import com.orgzly.android.db.mappers.OrgTimestampMapper
+import com.orgzly.android.util.GzipUtils
 import com.orgzly.android.util.LogUtils
 import com.orgzly.org.OrgActiveTimestamps
 import com.orgzly.org.datetime.OrgDateTime
@@ -25,6 +26,7 @@ import java.util.*
             BookLink::class,
             BookSync::class,
             DbRepoBook::class,
+            DbRepoBookRevision::class,
             Note::class,
             NoteAncestor::class,
             NoteProperty::class,
@@ -36,10 +38,14 @@ import java.util.*
             RookUrl::class,
             SavedSearch::class,
             VersionedRook::class,
-            AppLog::class
+            AppLog::class,
+            AgendaOccurrence::class,
+            AgendaHorizon::class,
+            AgendaPendingNote::class,
+            NoteIdProperty::class
         ],
 
-        version = 156
+        version = 162
 )
 @TypeConverters(com.orgzly.android.db.TypeConverters::class)
 abstract class OrgzlyDatabase : RoomDatabase() {
@@ -62,7 +68,12 @@ abstract class OrgzlyDatabase : RoomDatabase() {
     abstract fun savedSearch(): SavedSearchDao
     abstract fun versionedRook(): VersionedRookDao
     abstract fun dbRepoBook(): DbRepoBookDao
+    abstract fun dbRepoBookRevision(): DbRepoBookRevisionDao
     abstract fun appLog(): AppLogDao
+    abstract fun agendaOccurrence(): AgendaOccurrenceDao
+
+    /** Queue for write transactions, see [DatabaseWriter]. */
+    val writer by lazy { DatabaseWriter(this) }
 
     companion object {
         private val TAG = OrgzlyDatabase::class.java.name
@@ -74,10 +85,26 @@ abstract class OrgzlyDatabase : RoomDatabase() {
         /// Defined in sqlite3.c: The maximum value of a ?nnn wildcard that the parser will accept
         const val SQLITE_MAX_VARIABLE_NUMBER = 999
 
+        /**
+         * @param queryCallback called on the calling thread for every executed statement
+         */
         @JvmStatic
-        fun forMemory(context: Context): OrgzlyDatabase {
+        @JvmOverloads
+        fun forMemory(context: Context, queryCallback: QueryCallback? = null): OrgzlyDatabase {
             return Room.inMemoryDatabaseBuilder(context.applicationContext, OrgzlyDatabase::class.java)
-                    .allowMainThreadQueries()
+                    .allowMainThreadQueries() // Only used by tests (benchmarks and some instrumented tests), which query from the test thread
+                    .addCallback(object : Callback() {
+                        override fun onCreate(db: SupportSQLiteDatabase) {
+                            createAgendaTriggers(db)
+                            createNoteIdPropertyTriggers(db)
+                            createNotePropertyIndexes(db)
+                        }
+                    })
+                    .apply {
+                        if (queryCallback != null) {
+                            setQueryCallback(queryCallback) { it.run() }
+                        }
+                    }
                     .build()
         }
 
@@ -85,7 +112,7 @@ abstract class OrgzlyDatabase : RoomDatabase() {
         fun forFile(context: Context, fileName: String): OrgzlyDatabase {
             return Room.databaseBuilder(
                     context.applicationContext, OrgzlyDatabase::class.java, fileName)
-                    .allowMainThreadQueries() // TODO: Remove
+                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
                     .addMigrations(
                             PreRoomMigration.MIGRATION_130_131,
                             PreRoomMigration.MIGRATION_131_132,
@@ -113,19 +140,34 @@ abstract class OrgzlyDatabase : RoomDatabase() {
                             MIGRATION_152_153,
                             MIGRATION_153_154,
                             MIGRATION_154_155,
-                            MIGRATION_155_156
+                            MIGRATION_155_156,
+                            MIGRATION_156_157,
+                            MIGRATION_157_158,
+                            MIGRATION_158_159,
+                            MIGRATION_159_160,
+                            MIGRATION_160_161,
+                            MIGRATION_161_162
                     )
                     .addCallback(object : Callback() {
                         override fun onCreate(db: SupportSQLiteDatabase) {
                             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Database created")
 
                             insertDefaultSearches(db)
+
+                            createAgendaTriggers(db)
+                            createNoteIdPropertyTriggers(db)
+                            createNotePropertyIndexes(db)
                         }
 
                         override fun onOpen(db: SupportSQLiteDatabase) {
                             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Database opened")
                         }
                     })
+                    .apply {
+                        if (DatabaseStrictMode.isEnabled) {
+                            setQueryCallback(DatabaseStrictMode.queryCallback()) { it.run() }
+                        }
+                    }
                     .build()
         }
 
@@ -136,6 +178,88 @@ abstract class OrgzlyDatabase : RoomDatabase() {
             db.execSQL("INSERT INTO searches (`name`, `query`, `position`) VALUES (\"To Do\", \"i.todo\", 4)")
         }
 
+        /**
+         * Indexes for looking up properties by name and value case-insensitively (pr. searches).
+         * Room cannot declare an index with a collation.
+         */
+        fun createNotePropertyIndexes(db: SupportSQLiteDatabase) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_note_properties_name_value_nocase` ON `note_properties` (`name` COLLATE NOCASE, `value` COLLATE NOCASE, `note_id`)")
+        }
+
+        /**
+         * Triggers marking notes whose agenda occurrences need to be generated again.
+         */
+        fun createAgendaTriggers(db: SupportSQLiteDatabase) {
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS agenda_pending_note_insert AFTER INSERT ON notes
+                WHEN NEW.scheduled_range_id IS NOT NULL OR NEW.deadline_range_id IS NOT NULL
+                BEGIN
+                    INSERT OR IGNORE INTO agenda_pending_notes (note_id) VALUES (NEW.id);
+                END
+            """)
+
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS agenda_pending_note_update AFTER UPDATE OF scheduled_range_id, deadline_range_id ON notes
+                WHEN NEW.scheduled_range_id IS NOT OLD.scheduled_range_id OR NEW.deadline_range_id IS NOT OLD.deadline_range_id
+                BEGIN
+                    INSERT OR IGNORE INTO agenda_pending_notes (note_id) VALUES (NEW.id);
+                END
+            """)
+
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS agenda_pending_note_event_insert AFTER INSERT ON note_events
+                BEGIN
+                    INSERT OR IGNORE INTO agenda_pending_notes (note_id) VALUES (NEW.note_id);
+                END
+            """)
+
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS agenda_pending_note_event_delete AFTER DELETE ON note_events
+                BEGIN
+                    INSERT OR IGNORE INTO agenda_pending_notes (note_id) VALUES (OLD.note_id);
+                END
+            """)
+        }
+
+        /**
+         * Triggers keeping note_id_properties in sync with ID and CUSTOM_ID properties.
+         */
+        fun createNoteIdPropertyTriggers(db: SupportSQLiteDatabase) {
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS note_id_property_insert AFTER INSERT ON note_properties
+                WHEN LOWER(NEW.name) IN ('id', 'custom_id')
+                BEGIN
+                    INSERT OR IGNORE INTO note_id_properties (name, value, note_id) VALUES (LOWER(NEW.name), LOWER(NEW.value), NEW.note_id);
+                END
+            """)
+
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS note_id_property_delete AFTER DELETE ON note_properties
+                WHEN LOWER(OLD.name) IN ('id', 'custom_id')
+                BEGIN
+                    $DELETE_NOTE_ID_PROPERTY;
+                END
+            """)
+
+            db.execSQL("""
+                CREATE TRIGGER IF NOT EXISTS note_id_property_update AFTER UPDATE OF name, value ON note_properties
+                WHEN LOWER(OLD.name) IN ('id', 'custom_id') OR LOWER(NEW.name) IN ('id', 'custom_id')
+                BEGIN
+                    $DELETE_NOTE_ID_PROPERTY;
+                    INSERT OR IGNORE INTO note_id_properties (name, value, note_id) SELECT LOWER(NEW.name), LOWER(NEW.value), NEW.note_id WHERE LOWER(NEW.name) IN ('id', 'custom_id');
+                END
+            """)
+        }
+
+        /* Delete old value, unless the note still has the same property. */
+        private const val DELETE_NOTE_ID_PROPERTY = """
+            DELETE FROM note_id_properties
+            WHERE note_id = OLD.note_id AND name = LOWER(OLD.name) AND value = LOWER(OLD.value)
+            AND NOT EXISTS (
+                SELECT 1 FROM note_properties
+                WHERE note_id = OLD.note_id AND LOWER(name) = LOWER(OLD.name) AND LOWER(value) = LOWER(OLD.value))
+        """
+
         private val MIGRATION_149_150 = object : Migration(149, 150) {
             override fun migrate(db: SupportSQLiteDatabase) {
                 /*
@@ -564,5 +688,90 @@ abstract class OrgzlyDatabase : RoomDatabase() {
                 db.execSQL("CREATE INDEX IF NOT EXISTS `index_app_logs_name` ON `app_logs` (`name`)")
             }
         }
+
+        private val MIGRATION_156_157 = object : Migration(156, 157) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `agenda_occurrences` (`note_id` INTEGER NOT NULL, `time_type` TEXT NOT NULL, `org_range_id` INTEGER NOT NULL, `day` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, PRIMARY KEY(`note_id`, `time_type`, `org_range_id`, `timestamp`), FOREIGN KEY(`note_id`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE , FOREIGN KEY(`org_range_id`) REFERENCES `org_ranges`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_agenda_occurrences_note_id` ON `agenda_occurrences` (`note_id`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_agenda_occurrences_org_range_id` ON `agenda_occurrences` (`org_range_id`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_agenda_occurrences_day_note_id` ON `agenda_occurrences` (`day`, `note_id`)")
+
+                db.execSQL("CREATE TABLE IF NOT EXISTS `agenda_horizon` (`id` INTEGER NOT NULL, `from_day` INTEGER NOT NULL, `to_day` INTEGER NOT NULL, PRIMARY KEY(`id`))")
+
+                db.execSQL("CREATE TABLE IF NOT EXISTS `agenda_pending_notes` (`note_id` INTEGER NOT NULL, PRIMARY KEY(`note_id`))")
+
+                createAgendaTriggers(db)
+            }
+        }
+
+        private val MIGRATION_157_158 = object : Migration(157, 158) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("CREATE TABLE IF NOT EXISTS `note_id_properties` (`name` TEXT NOT NULL, `value` TEXT NOT NULL, `note_id` INTEGER NOT NULL, PRIMARY KEY(`name`, `value`, `note_id`), FOREIGN KEY(`note_id`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_note_id_properties_note_id` ON `note_id_properties` (`note_id`)")
+
+                db.execSQL("INSERT OR IGNORE INTO note_id_properties (name, value, note_id) SELECT LOWER(name), LOWER(value), note_id FROM note_properties WHERE LOWER(name) IN ('id', 'custom_id')")
+
+                createNoteIdPropertyTriggers(db)
+            }
+        }
+
+        private val MIGRATION_158_159 = object : Migration(158, 159) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                // Not usable by any query (content is searched with LIKE '%...%'),
+                // or replaced by composite indexes
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_content`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_book_id`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_is_cut`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_lft`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_rgt`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_is_folded`")
+                db.execSQL("DROP INDEX IF EXISTS `index_notes_descendants_count`")
+
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_book_id_is_cut_folded_under_id_lft` ON `notes` (`book_id`, `is_cut`, `folded_under_id`, `lft`)")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_book_id_is_cut_lft_rgt` ON `notes` (`book_id`, `is_cut`, `lft`, `rgt`)")
+            }
+        }
+
+        private val MIGRATION_159_160 = object : Migration(159, 160) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE books ADD COLUMN last_action_timings TEXT")
+            }
+        }
+
+        private val MIGRATION_160_161 = object : Migration(160, 161) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                // Content is compressed
+                db.execSQL("CREATE TABLE IF NOT EXISTS `db_repo_books_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `repo_url` TEXT NOT NULL, `url` TEXT NOT NULL, `revision` TEXT NOT NULL, `mtime` INTEGER NOT NULL, `content` BLOB NOT NULL, `created_at` INTEGER NOT NULL)")
+
+                db.query("SELECT id, repo_url, url, revision, mtime, content, created_at FROM db_repo_books").use {
+                    while (it.moveToNext()) {
+                        val values = ContentValues().apply {
+                            put("id", it.getLong(0))
+                            put("repo_url", it.getString(1))
+                            put("url", it.getString(2))
+                            put("revision", it.getString(3))
+                            put("mtime", it.getLong(4))
+                            put("content", GzipUtils.compress(it.getString(5).toByteArray()))
+                            put("created_at", it.getLong(6))
+                        }
+
+                        db.insert("db_repo_books_new", SQLiteDatabase.CONFLICT_ROLLBACK, values)
+                    }
+                }
+
+                db.execSQL("DROP TABLE db_repo_books")
+                db.execSQL("ALTER TABLE db_repo_books_new RENAME TO db_repo_books")
+                db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_db_repo_books_repo_url_url` ON `db_repo_books` (`repo_url`, `url`)")
+
+                db.execSQL("CREATE TABLE IF NOT EXISTS `db_repo_book_revisions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `book_id` INTEGER NOT NULL, `revision` TEXT NOT NULL, `mtime` INTEGER NOT NULL, `prefix_length` INTEGER NOT NULL, `suffix_length` INTEGER NOT NULL, `middle` BLOB NOT NULL, `created_at` INTEGER NOT NULL, FOREIGN KEY(`book_id`) REFERENCES `db_repo_books`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )")
+                db.execSQL("CREATE INDEX IF NOT EXISTS `index_db_repo_book_revisions_book_id` ON `db_repo_book_revisions` (`book_id`)")
+            }
+        }
+
+        private val MIGRATION_161_162 = object : Migration(161, 162) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                createNotePropertyIndexes(db)
+            }
+        }
     }
 }
@@ -0,0 +1,90 @@
+package com.orgzly.android.db.dao
+
+import androidx.room.Dao
+import androidx.room.Insert
+import androidx.room.OnConflictStrategy
+import androidx.room.Query
+import com.orgzly.android.db.entity.AgendaHorizon
+import com.orgzly.android.db.entity.AgendaOccurrence
+import com.orgzly.android.ui.TimeType
+
+@Dao
+abstract class AgendaOccurrenceDao : BaseDao<AgendaOccurrence> {
+    data class NoteRange(
+            val noteId: Long,
+            val timeType: TimeType,
+            val orgRangeId: Long,
+            val rangeString: String)
+
+    @Query("DELETE FROM agenda_occurrences")
+    abstract fun deleteAll()
+
+    @Query("DELETE FROM agenda_occurrences WHERE note_id IN (:noteIds)")
+    abstract fun deleteForNotes(noteIds: List<Long>)
+
+    @Query("SELECT * FROM agenda_horizon WHERE id = 0")
+    abstract fun getHorizon(): AgendaHorizon?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract fun setHorizon(horizon: AgendaHorizon)
+
+    @Query("DELETE FROM agenda_horizon")
+    abstract fun deleteHorizon()
+
+    @Query("SELECT note_id FROM agenda_pending_notes")
+    abstract fun getPendingNoteIds(): List<Long>
+
+    @Query("DELETE FROM agenda_pending_notes WHERE note_id IN (:noteIds)")
+    abstract fun deletePending(noteIds: List<Long>)
+
+    @Query("DELETE FROM agenda_pending_notes")
+    abstract fun deleteAllPending()
+
+    @Query("""
+        SELECT n.id AS noteId, 'SCHEDULED' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM notes n
+        JOIN org_ranges r ON (r.id = n.scheduled_range_id)
+        JOIN org_timestamps t ON (t.id = r.start_timestamp_id)
+        WHERE t.is_active = 1
+
+        UNION ALL
+
+        SELECT n.id AS noteId, 'DEADLINE' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM notes n
+        JOIN org_ranges r ON (r.id = n.deadline_range_id)
+        JOIN org_timestamps t ON (t.id = r.start_timestamp_id)
+        WHERE t.is_active = 1
+
+        UNION ALL
+
+        SELECT e.note_id AS noteId, 'EVENT' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM note_events e
+        JOIN org_ranges r ON (r.id = e.org_range_id)
+    """)
+    abstract fun getAllRanges(): List<NoteRange>
+
+    /* Every id is bound three times, keep the list under SQLITE_MAX_VARIABLE_NUMBER / 3. */
+    @Query("""
+        SELECT n.id AS noteId, 'SCHEDULED' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM notes n
+        JOIN org_ranges r ON (r.id = n.scheduled_range_id)
+        JOIN org_timestamps t ON (t.id = r.start_timestamp_id)
+        WHERE t.is_active = 1 AND n.id IN (:noteIds)
+
+        UNION ALL
+
+        SELECT n.id AS noteId, 'DEADLINE' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM notes n
+        JOIN org_ranges r ON (r.id = n.deadline_range_id)
+        JOIN org_timestamps t ON (t.id = r.start_timestamp_id)
+        WHERE t.is_active = 1 AND n.id IN (:noteIds)
+
+        UNION ALL
+
+        SELECT e.note_id AS noteId, 'EVENT' AS timeType, r.id AS orgRangeId, r.string AS rangeString
+        FROM note_events e
+        JOIN org_ranges r ON (r.id = e.org_range_id)
+        WHERE e.note_id IN (:noteIds)
+    """)
+    abstract fun getRanges(noteIds: List<Long>): List<NoteRange>
+}
@@ -7,6 +7,13 @@ import kotlinx.coroutines.flow.Flow
 
 @Dao
 abstract class AppLogDao : BaseDao<AppLog> {
-    @Query("SELECT * FROM app_logs ORDER BY timestamp")
-    abstract fun getFlow(): Flow<List<AppLog>>
+    @Query("SELECT * FROM (SELECT * FROM app_logs ORDER BY id DESC LIMIT :limit) ORDER BY id")
+    abstract fun getLatestFlow(limit: Int): Flow<List<AppLog>>
+
+    @Query("DELETE FROM app_logs WHERE timestamp < :time")
+    abstract fun deleteOlderThan(time: Long): Int
+
+    /* Entries are inserted in order, so the latest ones have the highest ids. */
+    @Query("DELETE FROM app_logs WHERE id <= (SELECT id FROM app_logs ORDER BY id DESC LIMIT 1 OFFSET :count)")
+    abstract fun deleteAllButLatest(count: Int): Int
 }
@@ -32,13 +32,13 @@ abstract class BookDao : BaseDao<Book> {
     @Query("UPDATE books SET preface = :preface, title = :title WHERE id = :id")
     abstract fun updatePreface(id: Long, preface: String?, title: String?)
 
-    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp WHERE id = :id")
+    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp, last_action_timings = NULL WHERE id = :id")
     abstract fun updateLastAction(id: Long, type: BookAction.Type, message: String, timestamp: Long)
 
-    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp, sync_status = :status WHERE id = :id")
-    abstract fun updateLastActionAndSyncStatus(id: Long, type: BookAction.Type, message: String, timestamp: Long, status: String?): Int
+    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp, last_action_timings = :timings, sync_status = :status WHERE id = :id")
+    abstract fun updateLastActionAndSyncStatus(id: Long, type: BookAction.Type, message: String, timestamp: Long, timings: String?, status: String?): Int
 
-    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp, sync_status = :status WHERE last_action_type = :whereType")
+    @Query("UPDATE books SET last_action_type = :type, last_action_message = :message, last_action_timestamp = :timestamp, last_action_timings = NULL, sync_status = :status WHERE last_action_type = :whereType")
     abstract fun updateStatusToCanceled(whereType: BookAction.Type, type: BookAction.Type, message: String, timestamp: Long, status: String?): Int
 
     @Query("UPDATE books SET name = :name WHERE id = :id")
@@ -47,16 +47,25 @@ abstract class BookDao : BaseDao<Book> {
     @Query("UPDATE books SET is_dummy = :dummy WHERE id = :id")
     abstract fun updateDummy(id: Long, dummy: Boolean)
 
-    @Query("UPDATE books SET mtime = :mtime, is_modified = 1 WHERE id IN (:ids)")
+    /**
+     * Modification time always increases, even for changes made within the same millisecond,
+     * so it can be used to tell them apart (see [getChangeStamps]).
+     */
+    @Query("UPDATE books SET mtime = MAX(:mtime, COALESCE(mtime, 0) + 1), is_modified = 1 WHERE id IN (:ids)")
     abstract fun setIsModified(ids: Set<Long>, mtime: Long): Int
 
     @Query("UPDATE books SET is_modified = 0 WHERE id IN (:ids)")
     abstract fun setIsNotModified(ids: Set<Long>): Int
 
+    @Query("SELECT id, name, mtime, is_modified AS isModified FROM books")
+    abstract fun getChangeStamps(): List<ChangeStamp>
 
 
     fun getOrInsert(name: String): Long =
             get(name).let {
                 it?.id ?: insert(Book(0, name, isDummy = true))
             }
+
+    /** Columns updated whenever notes in the book change. */
+    data class ChangeStamp(val id: Long, val name: String, val mtime: Long?, val isModified: Boolean)
 }
@@ -0,0 +1,22 @@
+package com.orgzly.android.db.dao
+
+import androidx.room.Dao
+import androidx.room.Query
+import com.orgzly.android.db.entity.DbRepoBookRevision
+
+@Dao
+interface DbRepoBookRevisionDao : BaseDao<DbRepoBookRevision> {
+    /**
+     * Newest revision first.
+     */
+    @Query("SELECT * FROM db_repo_book_revisions WHERE book_id = :bookId ORDER BY id DESC")
+    fun getAllByBook(bookId: Long): List<DbRepoBookRevision>
+
+    @Query("""
+        DELETE FROM db_repo_book_revisions
+        WHERE book_id = :bookId AND id NOT IN (
+            SELECT id FROM db_repo_book_revisions WHERE book_id = :bookId ORDER BY id DESC LIMIT :keep
+        )
+    """)
+    fun deleteAllButNewest(bookId: Long, keep: Int): Int
+}
@@ -36,10 +36,10 @@ abstract class NoteDao : BaseDao<Note> {
     @Query("SELECT * FROM notes WHERE id IN (:ids) ORDER BY lft DESC LIMIT 1")
     abstract fun getLast(ids: Set<Long>): Note?
 
-    @Query("SELECT * FROM notes WHERE book_id = :bookId AND level = 1 AND $WHERE_EXISTING_NOTES ORDER BY lft")
+    @Query(SELECT_TOP_LEVEL)
     abstract fun getTopLevel(bookId: Long): List<Note>
 
-    @Query("SELECT * FROM notes WHERE parent_id = :id AND $WHERE_EXISTING_NOTES ORDER BY lft")
+    @Query(SELECT_CHILDREN)
     abstract fun getChildren(id: Long): List<Note>
 
     @Query("SELECT DISTINCT tags FROM notes WHERE tags IS NOT NULL AND tags != ''")
@@ -176,6 +176,16 @@ abstract class NoteDao : BaseDao<Note> {
     """)
     abstract fun update(id: Long, title: String, content: String?, contentLineCount: Int, state: String?, scheduled: Long?, deadline: Long?, closed: Long?): Int
 
+    @Query("""
+        UPDATE notes
+        SET state = :state, scheduled_range_id = :scheduled, deadline_range_id = :deadline, closed_range_id = :closed
+        WHERE id IN (:ids)
+    """)
+    abstract fun updateStateAndTimes(ids: List<Long>, state: String?, scheduled: Long?, deadline: Long?, closed: Long?): Int
+
+    @Query("SELECT id, title, tags, state, priority FROM notes WHERE level > 0 AND id > :afterId ORDER BY id LIMIT :limit")
+    abstract fun getHeadingsAfter(afterId: Long, limit: Int): List<NoteHeading>
+
     @Query("UPDATE notes SET title = :title, state = :state, priority = :priority WHERE id = :id")
     abstract fun update(id: Long, title: String, state: String?, priority: String?): Int
 
@@ -257,7 +267,7 @@ abstract class NoteDao : BaseDao<Note> {
     """)
     abstract fun unfoldDescendantsUnderId(bookId: Long, noteId: Long, lft: Long, rgt: Long)
 
-    @Query("UPDATE notes SET lft = lft + :inc WHERE (book_id = :bookId AND $WHERE_EXISTING_NOTES) AND lft >= :value")
+    @Query(INCREMENT_LFT_FOR_LFT_GE)
     abstract fun incrementLftForLftGe(bookId: Long, value: Long, inc: Int)
 
     @Query("UPDATE notes SET lft = lft + :inc WHERE (book_id = :bookId AND $WHERE_EXISTING_NOTES) AND lft > :value")
@@ -300,15 +310,19 @@ abstract class NoteDao : BaseDao<Note> {
     """)
     abstract fun updateNote(noteId: Long, bookId: Long, level: Int, lft: Long, rgt: Long, parentId: Long)
 
+    @Query(SELECT_FIRST_NOTE_HAVING_PROPERTY)
+    abstract fun firstNoteHavingProperty(name: String, value: String): NoteIdBookId?
+
+    /* Same as above, for ID and CUSTOM_ID properties (see NoteIdProperty). */
     @Query("""
         SELECT notes.id as noteId, notes.book_id as bookId
-        FROM note_properties
-        LEFT JOIN notes ON (notes.id = note_properties.note_id)
-        WHERE LOWER(note_properties.name) = :name AND LOWER(note_properties.value) = :value AND notes.id IS NOT NULL
+        FROM note_id_properties
+        JOIN notes ON (notes.id = note_id_properties.note_id)
+        WHERE note_id_properties.name = :name AND note_id_properties.value = :value
         ORDER BY notes.lft
         LIMIT 1
     """)
-    abstract fun firstNoteHavingPropertyLowerCase(name: String, value: String): NoteIdBookId?
+    abstract fun firstNoteHavingIdPropertyLowerCase(name: String, value: String): NoteIdBookId?
 
     @Query("""
         UPDATE notes
@@ -338,7 +352,7 @@ abstract class NoteDao : BaseDao<Note> {
     @Query("SELECT MAX(rgt) FROM notes WHERE book_id = :bookId AND is_cut = 0")
     abstract fun getMaxRgtForBook(bookId: Long): Long?
 
-    @Query("SELECT * FROM notes WHERE book_id = :bookId AND level > 0 ORDER BY lft LIMIT 1")
+    @Query("SELECT * FROM notes WHERE book_id = :bookId AND $WHERE_EXISTING_NOTES ORDER BY lft LIMIT 1")
     abstract fun getFirstNoteInBook(bookId: Long): Note?
 
     @Query("UPDATE notes SET created_at= :time WHERE id = :noteId")
@@ -348,6 +362,18 @@ abstract class NoteDao : BaseDao<Note> {
         /* Every book has a root note with level 0. */
         const val WHERE_EXISTING_NOTES = "(is_cut = 0 AND level > 0)"
 
+        /* Public, so NoteIndexesTest can check that the statements below use the indexes. */
+
+        @Language("RoomSql")
+        const val SELECT_TOP_LEVEL = "SELECT * FROM notes WHERE book_id = :bookId AND level = 1 AND $WHERE_EXISTING_NOTES ORDER BY lft"
+
+        @Language("RoomSql")
+        const val SELECT_CHILDREN = "SELECT * FROM notes WHERE parent_id = :id AND $WHERE_EXISTING_NOTES ORDER BY lft"
+
+        /* Makes space for new notes, shifting all the following ones. */
+        @Language("RoomSql")
+        const val INCREMENT_LFT_FOR_LFT_GE = "UPDATE notes SET lft = lft + :inc WHERE (book_id = :bookId AND $WHERE_EXISTING_NOTES) AND lft >= :value"
+
         @Language("RoomSql")
         const val SELECT_ANCESTORS_IDS_FOR_IDS = """
             SELECT DISTINCT a.id
@@ -388,7 +414,7 @@ abstract class NoteDao : BaseDao<Note> {
             """
 
         @Language("RoomSql")
-        private const val SELECT_SUBTREE_IDS_FOR_IDS = """
+        const val SELECT_SUBTREE_IDS_FOR_IDS = """
             SELECT DISTINCT d.id
             FROM notes n, notes d
             WHERE n.id IN (:ids)
@@ -409,6 +435,19 @@ abstract class NoteDao : BaseDao<Note> {
             AND d.rgt < n.rgt
             """
 
+        /* Compared case-insensitively, as in the NOCASE index on name and value. */
+        @Language("RoomSql")
+        const val SELECT_FIRST_NOTE_HAVING_PROPERTY = """
+            SELECT notes.id as noteId, notes.book_id as bookId
+            FROM note_properties
+            LEFT JOIN notes ON (notes.id = note_properties.note_id)
+            WHERE note_properties.name = :name COLLATE NOCASE
+            AND note_properties.value = :value COLLATE NOCASE
+            AND notes.id IS NOT NULL
+            ORDER BY notes.lft
+            LIMIT 1
+            """
+
         fun rootNote(bookId: Long): Note {
             return Note(id = 0, position = NotePosition(bookId, lft = 1, rgt = 2, level = 0))
         }
@@ -416,6 +455,13 @@ abstract class NoteDao : BaseDao<Note> {
 
     data class NoteIdBookId(val noteId: Long, val bookId: Long)
 
+    data class NoteHeading(
+            val id: Long,
+            val title: String,
+            val tags: String?,
+            val state: String?,
+            val priority: String?)
+
     data class NoteForStateUpdate(
             val noteId: Long,
             val state: String?,
@@ -1,6 +1,7 @@
 package com.orgzly.android.db.dao
 
 import androidx.room.Dao
+import androidx.room.Delete
 import androidx.room.Query
 import com.orgzly.android.db.entity.NoteEvent
 
@@ -11,4 +12,10 @@ abstract class NoteEventDao : BaseDao<NoteEvent> {
 
     @Query("DELETE FROM note_events WHERE note_id = :noteId")
     abstract fun deleteForNote(noteId: Long)
+
+    @Query("SELECT * FROM note_events WHERE note_id IN (:noteIds)")
+    abstract fun getForNotes(noteIds: Collection<Long>): List<NoteEvent>
+
+    @Delete
+    abstract fun delete(entities: Collection<NoteEvent>): Int
 }
@@ -17,6 +17,9 @@ abstract class NotePropertyDao : BaseDao<NoteProperty> {
     @Query("SELECT * FROM note_properties")
     abstract fun getAll(): List<NoteProperty>
 
+    @Query("SELECT * FROM note_properties WHERE note_id IN (:noteIds) ORDER BY note_id, position")
+    abstract fun getForNotes(noteIds: Collection<Long>): List<NoteProperty>
+
     @Transaction
     open fun upsert(noteId: Long, name: String, value: String) {
         val properties = get(noteId, name)
@@ -48,4 +51,7 @@ abstract class NotePropertyDao : BaseDao<NoteProperty> {
 
     @Query("DELETE FROM note_properties WHERE note_id = :noteId")
     abstract fun delete(noteId: Long)
+
+    @Query("DELETE FROM note_properties WHERE note_id IN (:noteIds)")
+    abstract fun deleteForNotes(noteIds: Collection<Long>)
 }
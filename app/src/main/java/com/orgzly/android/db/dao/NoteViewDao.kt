@@ -15,28 +15,10 @@ abstract class NoteViewDao {
     @Query("$QUERY WHERE notes.level > 0 GROUP BY notes.id")
     abstract fun getAll(): List<NoteView>
 
-    @Query("""
-        $QUERY
-        WHERE notes.book_id = :bookId
-        AND notes.level > 0
-        AND notes.is_cut = 0
-        AND notes.folded_under_id = 0
-        GROUP BY notes.id
-        ORDER BY notes.lft
-    """)
+    @Query(SELECT_VISIBLE)
     abstract fun getVisibleLiveData(bookId: Long): LiveData<List<NoteView>>
 
-    @Query("""
-        $QUERY
-        WHERE notes.book_id = :bookId
-        AND notes.level > 0
-        AND notes.is_cut = 0
-        AND notes.folded_under_id = 0
-        AND :lft <= notes.lft
-        AND notes.rgt <= :rgt
-        GROUP BY notes.id
-        ORDER BY notes.lft
-    """)
+    @Query(SELECT_VISIBLE_IN_SUBTREE)
     abstract fun getVisibleLiveData(bookId: Long, lft: Long, rgt: Long): LiveData<List<NoteView>>
 
     @RawQuery(observedEntities = [ Note::class, Book::class ])
@@ -45,6 +27,10 @@ abstract class NoteViewDao {
     @RawQuery(observedEntities = [ Note::class, Book::class ])
     abstract fun runQuery(query: SupportSQLiteQuery): List<NoteView>
 
+    /* Cancelling the coroutine interrupts the running query. */
+    @RawQuery(observedEntities = [ Note::class, Book::class ])
+    abstract suspend fun runQueryCancellable(query: SupportSQLiteQuery): List<NoteView>
+
     @Query("$QUERY WHERE notes.id = :id GROUP BY notes.id")
     abstract fun get(id: Long): NoteView?
 
@@ -116,6 +102,32 @@ abstract class NoteViewDao {
             LEFT JOIN notes t_notes_with_inherited_tags ON t_notes_with_inherited_tags.id = t_note_ancestors.ancestor_note_id
         """
 
+        /* Notes displayed in the book, i.e. not folded. Most frequent query, see NoteIndexesTest. */
+        @Language("RoomSql")
+        const val SELECT_VISIBLE = """
+            $QUERY
+            WHERE notes.book_id = :bookId
+            AND notes.level > 0
+            AND notes.is_cut = 0
+            AND notes.folded_under_id = 0
+            GROUP BY notes.id
+            ORDER BY notes.lft
+        """
+
+        /* Same as above, for notes between :lft and :rgt (a subtree). */
+        @Language("RoomSql")
+        const val SELECT_VISIBLE_IN_SUBTREE = """
+            $QUERY
+            WHERE notes.book_id = :bookId
+            AND notes.level > 0
+            AND notes.is_cut = 0
+            AND notes.folded_under_id = 0
+            AND :lft <= notes.lft
+            AND notes.rgt <= :rgt
+            GROUP BY notes.id
+            ORDER BY notes.lft
+        """
+
         @Language("RoomSql")
         const val QUERY_WITH_NOTE_EVENTS = """
             SELECT
@@ -8,4 +8,19 @@ import com.orgzly.android.db.entity.OrgRange
 interface OrgRangeDao : BaseDao<OrgRange> {
     @Query("SELECT * FROM org_ranges WHERE string = :str")
     fun getByString(str: String): OrgRange?
+
+    @Query("SELECT * FROM org_ranges WHERE string IN (:strings)")
+    fun getByStrings(strings: Collection<String>): List<OrgRange>
+
+    /** Deletes ranges no longer used by any note. */
+    @Query("""
+        DELETE FROM org_ranges WHERE
+        NOT EXISTS (SELECT 1 FROM notes WHERE scheduled_range_id = org_ranges.id) AND
+        NOT EXISTS (SELECT 1 FROM notes WHERE deadline_range_id = org_ranges.id) AND
+        NOT EXISTS (SELECT 1 FROM notes WHERE closed_range_id = org_ranges.id) AND
+        id NOT IN (SELECT clock_range_id FROM notes WHERE clock_range_id IS NOT NULL) AND
+        NOT EXISTS (SELECT 1 FROM note_events WHERE org_range_id = org_ranges.id) AND
+        NOT EXISTS (SELECT 1 FROM agenda_occurrences WHERE org_range_id = org_ranges.id)
+    """)
+    fun deleteUnused(): Int
 }
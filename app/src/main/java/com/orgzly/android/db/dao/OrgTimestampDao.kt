@@ -11,4 +11,12 @@ interface OrgTimestampDao : BaseDao<OrgTimestamp> {
 
     @Query("SELECT * FROM org_timestamps WHERE string = :str")
     fun getByString(str: String): OrgTimestamp?
+
+    /** Deletes timestamps no longer used by any range. */
+    @Query("""
+        DELETE FROM org_timestamps WHERE
+        NOT EXISTS (SELECT 1 FROM org_ranges WHERE start_timestamp_id = org_timestamps.id) AND
+        NOT EXISTS (SELECT 1 FROM org_ranges WHERE end_timestamp_id = org_timestamps.id)
+    """)
+    fun deleteUnused(): Int
 }
@@ -3,10 +3,15 @@ package com.orgzly.android.db.dao
 import androidx.room.Dao
 import androidx.room.Insert
 import androidx.room.OnConflictStrategy
+import androidx.room.Query
 import com.orgzly.android.db.entity.VersionedRook
 
 @Dao
 abstract class VersionedRookDao : BaseDao<VersionedRook> {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     abstract fun replace(rook: VersionedRook): Long
+
+    /** Deletes versions replaced by a later sync (not the last synced version of any book). */
+    @Query("DELETE FROM versioned_rooks WHERE NOT EXISTS (SELECT 1 FROM book_syncs WHERE versioned_rook_id = versioned_rooks.id)")
+    abstract fun deleteUnused(): Int
 }
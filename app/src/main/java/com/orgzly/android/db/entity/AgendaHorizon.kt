@@ -0,0 +1,24 @@
+package com.orgzly.android.db.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Days for which [AgendaOccurrence]s were generated.
+ *
+ * There is at most one row, deleted when the occurrences need to be generated again.
+ */
+@Entity(tableName = "agenda_horizon")
+data class AgendaHorizon(
+        @PrimaryKey
+        val id: Long = 0,
+
+        /** Start of the first day, inclusive */
+        @ColumnInfo(name = "from_day")
+        val fromDay: Long,
+
+        /** Start of the last day, exclusive */
+        @ColumnInfo(name = "to_day")
+        val toDay: Long
+)
@@ -0,0 +1,49 @@
+package com.orgzly.android.db.entity
+
+import androidx.room.*
+import com.orgzly.android.ui.TimeType
+
+/**
+ * Note's scheduled, deadline or event time, expanded to the days
+ * it appears on in the agenda (within [AgendaHorizon]).
+ */
+@Entity(
+        tableName = "agenda_occurrences",
+
+        primaryKeys = [ "note_id", "time_type", "org_range_id", "timestamp" ],
+
+        foreignKeys = [
+            ForeignKey(
+                    entity = Note::class,
+                    parentColumns = arrayOf("id"),
+                    childColumns = arrayOf("note_id"),
+                    onDelete = ForeignKey.CASCADE),
+
+            ForeignKey(
+                    entity = OrgRange::class,
+                    parentColumns = arrayOf("id"),
+                    childColumns = arrayOf("org_range_id"),
+                    onDelete = ForeignKey.CASCADE)
+        ],
+
+        indices = [
+            Index("note_id"),
+            Index("org_range_id"),
+            Index("day", "note_id")
+        ]
+)
+data class AgendaOccurrence(
+        @ColumnInfo(name = "note_id")
+        val noteId: Long,
+
+        @ColumnInfo(name = "time_type")
+        val timeType: TimeType,
+
+        @ColumnInfo(name = "org_range_id")
+        val orgRangeId: Long,
+
+        /** Start of the day (local time) */
+        val day: Long,
+
+        val timestamp: Long
+)
@@ -0,0 +1,18 @@
+package com.orgzly.android.db.entity
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+
+/**
+ * Note whose times changed since its [AgendaOccurrence]s were generated.
+ *
+ * Inserted by triggers (see [com.orgzly.android.db.OrgzlyDatabase]).
+ * Not referencing notes, as it can outlive the note.
+ */
+@Entity(tableName = "agenda_pending_notes")
+data class AgendaPendingNote(
+        @PrimaryKey
+        @ColumnInfo(name = "note_id")
+        val noteId: Long
+)
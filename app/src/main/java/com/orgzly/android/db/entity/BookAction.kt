@@ -6,11 +6,14 @@ import androidx.room.Entity
  * Last action performed on a notebook.
  *
  * Action can be a result of renaming, syncing (loading, saving, ...), importing, etc.
+ *
+ * @property timings where the time went when syncing, see [com.orgzly.android.sync.SyncTimings.summary]
  */
 data class BookAction(
         val type: Type,
         val message: String,
-        val timestamp: Long
+        val timestamp: Long,
+        val timings: String? = null
 ) {
     enum class Type {
         INFO,
@@ -20,8 +23,9 @@ data class BookAction(
 
     companion object {
         @JvmStatic
-        fun forNow(type: Type, message: String): BookAction {
-            return BookAction(type, message, System.currentTimeMillis())
+        @JvmOverloads
+        fun forNow(type: Type, message: String, timings: String? = null): BookAction {
+            return BookAction(type, message, System.currentTimeMillis(), timings)
         }
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.orgzly.android.db.entity
 
 import androidx.room.*
+import java.util.Objects
 
 @Entity(
         tableName = "db_repo_books",
@@ -22,8 +23,24 @@ data class DbRepoBook(
 
         val mtime: Long,
 
-        val content: String,
+        /** Compressed with GZIP. */
+        val content: ByteArray,
 
         @ColumnInfo(name = "created_at")
         val createdAt: Long
-)
+) {
+    override fun equals(other: Any?): Boolean {
+        return other is DbRepoBook
+                && id == other.id
+                && repoUrl == other.repoUrl
+                && url == other.url
+                && revision == other.revision
+                && mtime == other.mtime
+                && content.contentEquals(other.content)
+                && createdAt == other.createdAt
+    }
+
+    override fun hashCode(): Int {
+        return Objects.hash(id, repoUrl, url, revision, mtime, content.contentHashCode(), createdAt)
+    }
+}
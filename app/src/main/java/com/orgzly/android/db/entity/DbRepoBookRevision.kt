@@ -0,0 +1,64 @@
+package com.orgzly.android.db.entity
+
+import androidx.room.*
+import java.util.Objects
+
+/**
+ * Previous revision of [DbRepoBook], stored as a delta from the revision which replaced it.
+ *
+ * Content of this revision is the content of the next one, with the bytes between
+ * [prefixLength] and [suffixLength] from the end replaced by [middle] (compressed with GZIP).
+ */
+@Entity(
+        tableName = "db_repo_book_revisions",
+
+        foreignKeys = [
+            ForeignKey(
+                    entity = DbRepoBook::class,
+                    parentColumns = arrayOf("id"),
+                    childColumns = arrayOf("book_id"),
+                    onDelete = ForeignKey.CASCADE)
+        ],
+
+        indices = [
+            Index("book_id")
+        ]
+)
+data class DbRepoBookRevision(
+        @PrimaryKey(autoGenerate = true)
+        val id: Long,
+
+        @ColumnInfo(name = "book_id")
+        val bookId: Long,
+
+        val revision: String,
+
+        val mtime: Long,
+
+        @ColumnInfo(name = "prefix_length")
+        val prefixLength: Int,
+
+        @ColumnInfo(name = "suffix_length")
+        val suffixLength: Int,
+
+        val middle: ByteArray,
+
+        @ColumnInfo(name = "created_at")
+        val createdAt: Long
+) {
+    override fun equals(other: Any?): Boolean {
+        return other is DbRepoBookRevision
+                && id == other.id
+                && bookId == other.bookId
+                && revision == other.revision
+                && mtime == other.mtime
+                && prefixLength == other.prefixLength
+                && suffixLength == other.suffixLength
+                && middle.contentEquals(other.middle)
+                && createdAt == other.createdAt
+    }
+
+    override fun hashCode(): Int {
+        return Objects.hash(id, bookId, revision, mtime, prefixLength, suffixLength, middle.contentHashCode(), createdAt)
+    }
+}
@@ -38,15 +38,12 @@ import com.google.gson.Gson
         indices = [
             Index("title"),
             Index("tags"),
-            Index("content"),
-            Index("book_id"),
-            Index("is_cut"),
-            Index("lft"),
-            Index("rgt"),
-            Index("is_folded"),
+            // Visible notes of a book, in order
+            Index("book_id", "is_cut", "folded_under_id", "lft"),
+            // Ancestors and descendants of a note (nested set)
+            Index("book_id", "is_cut", "lft", "rgt"),
             Index("folded_under_id"),
             Index("parent_id"),
-            Index("descendants_count"),
             Index("scheduled_range_id"),
             Index("deadline_range_id"),
             Index("closed_range_id")
@@ -0,0 +1,39 @@
+package com.orgzly.android.db.entity
+
+import androidx.room.*
+
+/**
+ * Lower-cased copy of note's ID and CUSTOM_ID properties, used for following links.
+ *
+ * Kept in sync with [NoteProperty] by triggers (see [com.orgzly.android.db.OrgzlyDatabase]).
+ */
+@Entity(
+        tableName = "note_id_properties",
+
+        primaryKeys = [ "name", "value", "note_id" ],
+
+        foreignKeys = [
+            ForeignKey(
+                    entity = Note::class,
+                    parentColumns = arrayOf("id"),
+                    childColumns = arrayOf("note_id"),
+                    onDelete = ForeignKey.CASCADE)
+        ],
+
+        indices = [
+            Index("note_id")
+        ]
+)
+data class NoteIdProperty(
+        val name: String,
+
+        val value: String,
+
+        @ColumnInfo(name = "note_id")
+        val noteId: Long
+) {
+    companion object {
+        /** Lower-cased names of properties which are copied. */
+        val NAMES = listOf("id", "custom_id")
+    }
+}
@@ -1,9 +1,11 @@
 package com.orgzly.android.di
 
+import com.orgzly.android.AppStartup
 import com.orgzly.android.NewNoteBroadcastReceiver
 import com.orgzly.android.NotificationBroadcastReceiver
 import com.orgzly.android.SharingShortcutsManager
 import com.orgzly.android.TimeChangeBroadcastReceiver
+import com.orgzly.android.data.maintenance.MaintenanceWorker
 import com.orgzly.android.di.module.ApplicationModule
 import com.orgzly.android.di.module.DataModule
 import com.orgzly.android.di.module.DatabaseModule
@@ -80,6 +82,7 @@ interface AppComponent {
     fun inject(arg: NoteReminders)
     fun inject(arg: UseCaseRunner.Factory)
     fun inject(arg: UseCaseWorker)
+    fun inject(arg: MaintenanceWorker)
     fun inject(arg: ListWidgetService)
     fun inject(arg: ListWidgetProvider)
     fun inject(arg: NewNoteBroadcastReceiver)
@@ -87,5 +90,6 @@ interface AppComponent {
     fun inject(arg: RemindersBroadcastReceiver)
     fun inject(arg: NotificationBroadcastReceiver)
     fun inject(arg: SharingShortcutsManager)
+    fun inject(arg: AppStartup.WarmUp)
     fun inject(arg: ExternalAccessActionHandler)
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import android.content.BroadcastReceiver
 import android.content.Context
 import android.content.Intent
 import com.google.gson.GsonBuilder
+import com.orgzly.android.App
 import com.orgzly.android.external.actionhandlers.*
 import com.orgzly.android.external.types.Response
 
@@ -16,11 +17,21 @@ class ExternalAccessReceiver : BroadcastReceiver() {
             EditSavedSearches(),
             ManageWidgets()
         )
-        val response = actionHandlers.asSequence()
-                .mapNotNull { it.handle(intent!!, context!!) }
-                .firstOrNull()
-                ?: Response(false, "Invalid action")
-        val gson = GsonBuilder().serializeNulls().create()
-        resultData = gson.toJson(response)
+
+        // Handlers access the database, so the result is set from a background thread
+        val pendingResult = goAsync()
+
+        App.EXECUTORS.diskIO().execute {
+            try {
+                val response = actionHandlers.asSequence()
+                        .mapNotNull { it.handle(intent!!, context!!) }
+                        .firstOrNull()
+                        ?: Response(false, "Invalid action")
+                val gson = GsonBuilder().serializeNulls().create()
+                pendingResult.resultData = gson.toJson(response)
+            } finally {
+                pendingResult.finish()
+            }
+        }
     }
 }
@@ -2,12 +2,14 @@ package com.orgzly.android.external.actionhandlers
 
 import android.content.Intent
 import com.orgzly.android.external.types.*
+import com.orgzly.android.util.Metrics
 
 class GetOrgInfo : ExternalAccessActionHandler() {
     override val actions = listOf(
         action(::getBooks, "GET_BOOKS"),
         action(::getSavedSearches, "GET_SAVED_SEARCHES"),
-        action(::getNote, "GET_NOTE")
+        action(::getNote, "GET_NOTE"),
+        action(::getMetrics, "GET_METRICS")
     )
 
     private fun getBooks() =
@@ -18,4 +20,7 @@ class GetOrgInfo : ExternalAccessActionHandler() {
 
     private fun getNote(intent: Intent) =
             Note.from(intent.getNoteAndProps())
+
+    private fun getMetrics() =
+            Metrics.snapshot()
 }
@@ -14,7 +14,8 @@ class RunSearch : ExternalAccessActionHandler() {
         val searchTerm = intent.getStringExtra("QUERY")
         if (searchTerm.isNullOrBlank()) throw ExternalHandlerFailure("invalid search term")
         val query = InternalQueryParser().parse(searchTerm)
-        val notes = dataRepository.selectNotesFromQuery(query)
+        val limit = intent.getIntExtra("LIMIT", 0)
+        val notes = dataRepository.selectNotesFromQuery(query, limit)
         val notesWithProps = notes.map { it to dataRepository.getNoteProperties(it.note.id) }
         return notesWithProps.map(Note::from)
     }
@@ -375,6 +375,17 @@ public class AppPreferences {
         getDefaultSharedPreferences(context).edit().putBoolean(key, value).apply();
     }
 
+    public static boolean recordMetrics(Context context) {
+        return getDefaultSharedPreferences(context).getBoolean(
+                context.getResources().getString(R.string.pref_key_record_metrics),
+                context.getResources().getBoolean(R.bool.pref_default_record_metrics));
+    }
+
+    public static void recordMetrics(Context context, boolean value) {
+        String key = context.getResources().getString(R.string.pref_key_record_metrics);
+        getDefaultSharedPreferences(context).edit().putBoolean(key, value).apply();
+    }
+
     public static boolean showSyncNotifications(Context context) {
         return getDefaultSharedPreferences(context).getBoolean(
                 context.getResources().getString(R.string.pref_key_show_sync_notifications),
@@ -1008,6 +1019,16 @@ public class AppPreferences {
         return getStateSharedPreferences(context).getLong(key, 0L);
     }
 
+    public static void lastSyncTimings(Context context, String value) {
+        String key = context.getResources().getString(R.string.pref_key_last_sync_timings);
+        getStateSharedPreferences(context).edit().putString(key, value).apply();
+    }
+
+    public static String lastSyncTimings(Context context) {
+        String key = context.getResources().getString(R.string.pref_key_last_sync_timings);
+        return getStateSharedPreferences(context).getString(key, null);
+    }
+
     /*
      * ReminderWorker
      */
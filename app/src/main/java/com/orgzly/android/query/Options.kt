@@ -1,3 +1,7 @@
 package com.orgzly.android.query
 
-data class Options(val agendaDays: Int = 0)
\ No newline at end of file
+/**
+ * @property agendaDays number of days to display notes for, starting from today
+ * @property limit maximum number of notes to return, ignored for agenda
+ */
+data class Options(val agendaDays: Int = 0, val limit: Int = 0)
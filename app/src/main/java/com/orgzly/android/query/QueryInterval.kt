@@ -1,6 +1,7 @@
 package com.orgzly.android.query
 
 import com.orgzly.org.datetime.OrgInterval
+import java.util.Objects
 
 /**
  * [OrgInterval] with support for "none", "today" (0d), "tomorrow" (1d), "yesterday" (-1d).
@@ -17,6 +18,18 @@ class QueryInterval(val none: Boolean = false, val now: Boolean = false) : OrgIn
         }
     }
 
+    override fun equals(other: Any?): Boolean {
+        return other is QueryInterval
+                && none == other.none
+                && now == other.now
+                && unit == other.unit
+                && value == other.value
+    }
+
+    override fun hashCode(): Int {
+        return Objects.hash(none, now, unit, value)
+    }
+
     companion object {
         private val REGEX = Regex("^([-+]?\\d+)([hdwmy])$")
 
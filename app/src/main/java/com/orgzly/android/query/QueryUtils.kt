@@ -35,4 +35,123 @@ object QueryUtils {
 
         return null
     }
+
+    /**
+     * Returns names of the only books whose notes can match the condition,
+     * or null if notes from any book could match.
+     */
+    @JvmStatic
+    fun extractBookNamesRestriction(condition: Condition?): Set<String>? {
+        return when (condition) {
+            is Condition.InBook -> {
+                if (!condition.not) setOf(condition.name) else null
+            }
+
+            is Condition.And -> {
+                condition.operands
+                        .mapNotNull { extractBookNamesRestriction(it) }
+                        .reduceOrNull { acc, names -> acc.intersect(names) }
+            }
+
+            is Condition.Or -> {
+                val names = condition.operands.map { extractBookNamesRestriction(it) }
+
+                if (names.isNotEmpty() && names.all { it != null }) {
+                    names.fold(emptySet()) { acc, it -> acc.union(it!!) }
+                } else {
+                    null
+                }
+            }
+
+            else -> null
+        }
+    }
+
+    /**
+     * Returns texts which notes matching [previous] query also need to contain
+     * to match the [query], or null if the [query] is not such a refinement.
+     *
+     * Notes matching the [query] are then always a subset of the notes matching
+     * the [previous] query, in the same order.
+     */
+    @JvmStatic
+    fun extractRefiningTexts(previous: Query, query: Query): List<String>? {
+        if (previous.isAgenda() || previous.sortOrders != query.sortOrders || previous.options != query.options) {
+            return null
+        }
+
+        // No notes are returned for an empty query
+        if (previous.condition == null && previous.sortOrders.isEmpty()) {
+            return null
+        }
+
+        val previousOperands = andOperands(previous.condition)
+        val operands = andOperands(query.condition)
+
+        // Every previous condition must still be required
+        val allCovered = previousOperands.all { previousOperand ->
+            operands.any { it == previousOperand || containsText(it, previousOperand) }
+        }
+
+        if (!allCovered) {
+            return null
+        }
+
+        val texts = mutableListOf<String>()
+
+        for (operand in operands) {
+            if (operand in previousOperands) {
+                continue
+            }
+
+            // Only texts can be checked without running the query again
+            if (operand !is Condition.HasText || hasLikeWildcards(operand.text)) {
+                return null
+            }
+
+            texts.add(operand.text)
+        }
+
+        return if (texts.isNotEmpty()) texts else null
+    }
+
+    private fun andOperands(condition: Condition?): List<Condition> {
+        return when (condition) {
+            is Condition.And -> condition.operands
+            null -> emptyList()
+            else -> listOf(condition)
+        }
+    }
+
+    private fun containsText(condition: Condition, previous: Condition): Boolean {
+        return condition is Condition.HasText
+                && previous is Condition.HasText
+                && !hasLikeWildcards(previous.text)
+                && likeContains(condition.text, previous.text)
+    }
+
+    private fun hasLikeWildcards(text: String): Boolean {
+        return text.contains('%') || text.contains('_')
+    }
+
+    /**
+     * Same as SQLite's `str LIKE '%text%'` for texts without wildcards,
+     * with only ASCII characters being case-insensitive.
+     */
+    @JvmStatic
+    fun likeContains(str: String?, text: String): Boolean {
+        if (str == null) {
+            return false
+        }
+
+        return asciiLowerCase(str).contains(asciiLowerCase(text))
+    }
+
+    private fun asciiLowerCase(str: String): String {
+        val chars = CharArray(str.length) { i ->
+            val c = str[i]
+            if (c in 'A'..'Z') c + ('a' - 'A') else c
+        }
+        return String(chars)
+    }
 }
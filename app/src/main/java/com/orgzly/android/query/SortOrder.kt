@@ -13,4 +13,5 @@ sealed class SortOrder {
     data class Priority(override val desc: Boolean = false) : SortOrder()
     data class State(override val desc: Boolean = false) : SortOrder()
     data class Position(override val desc: Boolean = false) : SortOrder()
+    data class Property(val name: String, override val desc: Boolean = false) : SortOrder()
 }
\ No newline at end of file
@@ -1,7 +1,26 @@
 package com.orgzly.android.query.sql
 
+import com.orgzly.android.query.TimeUtils
+
 data class SqlQuery(
         val selection: String,
-        val selectionArgs: List<String>,
+        val selectionArgs: List<Any>,
         val having: String,
-        val orderBy: String)
\ No newline at end of file
+        val orderBy: String) {
+
+    /**
+     * Time relative to now, bound as an argument instead of being part of the statement,
+     * so the same statement can be used again later.
+     */
+    data class TimeFromNow(val field: Int, val amount: Int, val addOneMore: Boolean = false) {
+        fun toTimestamp(): Long = TimeUtils.timeFromNow(field, amount, addOneMore)
+    }
+
+    companion object {
+        /** Replace [TimeFromNow] arguments with their current values. */
+        @JvmStatic
+        fun resolveArgs(args: List<Any>): Array<Any> {
+            return args.map { if (it is TimeFromNow) it.toTimestamp() else it }.toTypedArray()
+        }
+    }
+}
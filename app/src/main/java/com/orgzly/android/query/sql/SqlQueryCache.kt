@@ -0,0 +1,26 @@
+package com.orgzly.android.query.sql
+
+/**
+ * Recently built statements.
+ *
+ * Statements are built with relative times bound as [SqlQuery.TimeFromNow] arguments,
+ * so they are valid for as long as everything in the key used to build them is the same.
+ * Reusing the same statement also lets SQLite reuse it once compiled.
+ */
+class SqlQueryCache<K, V>(private val maxSize: Int) {
+    private val entries = object : LinkedHashMap<K, V>(maxSize, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, V>?): Boolean {
+            return size > maxSize
+        }
+    }
+
+    @Synchronized
+    fun getOrPut(key: K, build: () -> V): V {
+        return entries.getOrPut(key, build)
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+}
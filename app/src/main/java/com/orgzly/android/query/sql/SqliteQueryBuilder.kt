@@ -10,7 +10,7 @@ import java.util.*
 
 class SqliteQueryBuilder(val context: Context) {
     private var where: String = ""
-    private val arguments: MutableList<String> = ArrayList()
+    private val arguments: MutableList<Any> = ArrayList()
 
     private var having: String = ""
 
@@ -161,6 +161,13 @@ class SqliteQueryBuilder(val context: Context) {
                     is SortOrder.Position -> {
                         o.add("lft" + if (order.desc) " DESC" else "")
                     }
+
+                    is SortOrder.Property -> {
+                        val value = "(SELECT value FROM note_properties WHERE note_id = id AND name = ${DatabaseUtils.sqlEscapeString(order.name)} COLLATE NOCASE ORDER BY position LIMIT 1)"
+
+                        o.add("$value IS NULL")
+                        o.add(value + if (order.desc) " DESC" else "")
+                    }
                 }
             }
         }
@@ -229,6 +236,12 @@ class SqliteQueryBuilder(val context: Context) {
                 not(expr.not, "(COALESCE(tags, '') LIKE ?)")
             }
 
+            is Condition.HasProperty -> {
+                arguments.add(expr.name)
+                arguments.add(expr.value)
+                not(expr.not, "EXISTS (SELECT 1 FROM note_properties WHERE note_id = id AND name = ? COLLATE NOCASE AND value = ? COLLATE NOCASE)")
+            }
+
             is Condition.Event -> {
                 when (expr.relation) {
                     Relation.EQ -> "(${toInterval("event_timestamp", null, expr.interval, Relation.GE)} AND ${toInterval("event_end_timestamp", null, expr.interval, Relation.LE)})"
@@ -278,17 +291,36 @@ class SqliteQueryBuilder(val context: Context) {
 
         val (field, value) = getFieldAndValueFromInterval(interval)
 
-        val timeFromNow = TimeUtils.timeFromNow(field, value)
-        val timeFromNowPlusOne = TimeUtils.timeFromNow(field, value, true)
-
+        val timeFromNow = SqlQuery.TimeFromNow(field, value)
+        val timeFromNowPlusOne = SqlQuery.TimeFromNow(field, value, true)
 
         val cond = when (relation) {
-            Relation.EQ -> "$timeFromNow <= $column AND $column < $timeFromNowPlusOne"
-            Relation.NE -> "$column < $timeFromNow AND $timeFromNowPlusOne <= $column"
-            Relation.LT -> "$column < $timeFromNow"
-            Relation.LE -> "$column < $timeFromNowPlusOne"
-            Relation.GT -> "$timeFromNowPlusOne <= $column"
-            Relation.GE -> "$timeFromNow <= $column"
+            Relation.EQ -> {
+                arguments.add(timeFromNow)
+                arguments.add(timeFromNowPlusOne)
+                "? <= $column AND $column < ?"
+            }
+            Relation.NE -> {
+                arguments.add(timeFromNow)
+                arguments.add(timeFromNowPlusOne)
+                "$column < ? AND ? <= $column"
+            }
+            Relation.LT -> {
+                arguments.add(timeFromNow)
+                "$column < ?"
+            }
+            Relation.LE -> {
+                arguments.add(timeFromNowPlusOne)
+                "$column < ?"
+            }
+            Relation.GT -> {
+                arguments.add(timeFromNowPlusOne)
+                "? <= $column"
+            }
+            Relation.GE -> {
+                arguments.add(timeFromNow)
+                "? <= $column"
+            }
         }
 
         val activeOnly = if (isActiveColumn != null) {
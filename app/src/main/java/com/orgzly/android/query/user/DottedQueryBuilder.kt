@@ -45,6 +45,8 @@ open class DottedQueryBuilder {
             is Condition.HasTag -> "${dot(expr.not)}t.${expr.tag}"
             is Condition.HasOwnTag -> "${dot(expr.not)}tn.${expr.tag}"
 
+            is Condition.HasProperty -> "${dot(expr.not)}pr.${expr.name}.${quote(expr.value)}"
+
             is Condition.Event -> {
                 val rel = expr.relation.toString().lowercase()
                 val relString = if (rel == "eq") "" else ".$rel"
@@ -107,6 +109,7 @@ open class DottedQueryBuilder {
                     is SortOrder.State -> dot(order) + "o.state"
                     is SortOrder.Created -> dot(order) + "o.cr"
                     is SortOrder.Position -> dot(order) + "o.pos"
+                    is SortOrder.Property -> dot(order) + "o.pr.${order.name}"
                 })
             }
         }
@@ -119,6 +122,10 @@ open class DottedQueryBuilder {
             if (default.agendaDays != options.agendaDays) {
                 list.add("ad.${options.agendaDays}")
             }
+
+            if (default.limit != options.limit) {
+                list.add("limit.${options.limit}")
+            }
         }
     }
 
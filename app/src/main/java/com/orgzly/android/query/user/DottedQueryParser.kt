@@ -40,6 +40,10 @@ open class DottedQueryParser : QueryParser() {
                 Condition.HasOwnTag(unQuote(match.groupValues[2]), match.groupValues[1].isNotEmpty())
             },
 
+            ConditionMatch("""^(\.)?pr\.([^.]+)\.(.+)""") { match ->
+                Condition.HasProperty(match.groupValues[2], unQuote(match.groupValues[3]), match.groupValues[1].isNotEmpty())
+            },
+
             ConditionMatch("""^(e|s|d|c|cr)(?:\.(eq|ne|lt|le|gt|ge))?\.(.+)""") { match ->
                 val timeTypeMatch = match.groupValues[1]
                 val relationMatch = match.groupValues[2]
@@ -106,6 +110,9 @@ open class DottedQueryParser : QueryParser() {
             },
             SortOrderMatch("""^(\.)?o\.(?:position|pos)$""") { match ->
                 SortOrder.Position(match.groupValues[1].isNotEmpty())
+            },
+            SortOrderMatch("""^(\.)?o\.(?:property|pr)\.([^.]+)$""") { match ->
+                SortOrder.Property(match.groupValues[2], match.groupValues[1].isNotEmpty())
             }
     )
 
@@ -113,6 +120,10 @@ open class DottedQueryParser : QueryParser() {
             OptionMatch("""^ad\.(\d+)$""") { match, options ->
                 val days = match.groupValues[1].toInt()
                 if (days > 0) options.copy(agendaDays = days) else null
+            },
+            OptionMatch("""^limit\.(\d+)$""") { match, options ->
+                val limit = match.groupValues[1].toInt()
+                if (limit > 0) options.copy(limit = limit) else null
             }
     )
 }
@@ -3,7 +3,6 @@ package com.orgzly.android.repos;
 import android.net.Uri;
 
 import com.orgzly.android.data.DbRepoBookRepository;
-import com.orgzly.android.util.MiscUtils;
 import com.orgzly.android.util.UriUtils;
 
 import java.io.File;
@@ -55,13 +54,12 @@ public class DatabaseRepo implements SyncRepo {
 
     @Override
     public InputStream openRepoFileInputStream(String repoRelativePath) throws IOException {
-        throw new UnsupportedOperationException("Not implemented");
+        Uri uri = repoUri.buildUpon().appendPath(repoRelativePath).build();
+        return dbRepo.openBook(uri);
     }
 
     @Override
     public VersionedRook storeBook(File file, String repoRelativePath) throws IOException {
-        String content = MiscUtils.readStringFromFile(file);
-
         String rev = "MockedRevision-" + System.currentTimeMillis();
         long mtime = System.currentTimeMillis();
 
@@ -69,7 +67,7 @@ public class DatabaseRepo implements SyncRepo {
 
         VersionedRook vrook = new VersionedRook(repoId, RepoType.MOCK, repoUri, uri, rev, mtime);
 
-        return dbRepo.createBook(repoId, vrook, content);
+        return dbRepo.createBook(repoId, vrook, file);
     }
 
     @Override
@@ -5,7 +5,16 @@ import androidx.work.Data
 import androidx.work.workDataOf
 import com.orgzly.R
 
-data class SyncState(val type: Type, val message: String? = null, val current: Int, val total: Int) {
+/**
+ * @property timings where the time went, for a book when it's synced ([Type.BOOK_ENDED])
+ * and for the whole sync when it's done ([Type.FINISHED]), see [SyncTimings.summary]
+ */
+data class SyncState(
+    val type: Type,
+    val message: String? = null,
+    val current: Int,
+    val total: Int,
+    val timings: String? = null) {
     enum class Type {
         CANCELING,
 
@@ -62,7 +71,8 @@ data class SyncState(val type: Type, val message: String? = null, val current: I
             DATA_TYPE to type.toString(),
             DATA_MESSAGE to message,
             DATA_CURRENT to current,
-            DATA_TOTAL to total
+            DATA_TOTAL to total,
+            DATA_TIMINGS to timings
         )
     }
 
@@ -113,6 +123,7 @@ data class SyncState(val type: Type, val message: String? = null, val current: I
         private const val DATA_MESSAGE = "message"
         private const val DATA_CURRENT = "current"
         private const val DATA_TOTAL = "total"
+        private const val DATA_TIMINGS = "timings"
 
 //        private const val SHARED_PREF_NAME = "sync-state"
 
@@ -129,8 +140,8 @@ data class SyncState(val type: Type, val message: String? = null, val current: I
 
         @JvmStatic
         @JvmOverloads
-        fun getInstance(type: Type, message: String? = null, current: Int = 0, total: Int = 0): SyncState {
-            return SyncState(type, message, current, total)
+        fun getInstance(type: Type, message: String? = null, current: Int = 0, total: Int = 0, timings: String? = null): SyncState {
+            return SyncState(type, message, current, total, timings)
         }
 
         @JvmStatic
@@ -139,8 +150,9 @@ data class SyncState(val type: Type, val message: String? = null, val current: I
             val message = data.getString(DATA_MESSAGE)
             val current = data.getInt(DATA_CURRENT, 0)
             val total = data.getInt(DATA_TOTAL, 0)
+            val timings = data.getString(DATA_TIMINGS)
 
-            return SyncState(Type.valueOf(type), message, current, total)
+            return SyncState(Type.valueOf(type), message, current, total, timings)
         }
     }
 }
\ No newline at end of file
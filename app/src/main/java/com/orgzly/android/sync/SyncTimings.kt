@@ -0,0 +1,111 @@
+package com.orgzly.android.sync
+
+/**
+ * Time spent in each phase of a sync.
+ *
+ * Time added to a book's or a repository's timings is also added to its [parent],
+ * so the timings of a whole sync are the sum of all others.
+ */
+class SyncTimings(private val parent: SyncTimings? = null) {
+    enum class Phase {
+        /** Listing books in repositories. */
+        LISTING,
+
+        /** Matching local and remote books and computing their status. */
+        GROUPING,
+
+        /** Retrieving books from repositories. */
+        DOWNLOAD,
+
+        /** Loading retrieved books into the database. */
+        PARSE,
+
+        /** Writing books from the database to files. */
+        EXPORT,
+
+        /** Storing books in repositories. */
+        UPLOAD,
+
+        /** Pushing commits left in repositories (Git). */
+        PUSH
+    }
+
+    private val nanos = LongArray(Phase.values().size)
+
+    private val repos = LinkedHashMap<String, SyncTimings>()
+
+    fun add(phase: Phase, nanos: Long) {
+        synchronized(this) {
+            this.nanos[phase.ordinal] += nanos
+        }
+
+        parent?.add(phase, nanos)
+    }
+
+    /**
+     * Timings of the repository with [url], added to these as well.
+     */
+    fun forRepo(url: String): SyncTimings {
+        return synchronized(repos) {
+            repos.getOrPut(url) { SyncTimings(this) }
+        }
+    }
+
+    fun repos(): Map<String, SyncTimings> {
+        return synchronized(repos) {
+            LinkedHashMap(repos)
+        }
+    }
+
+    @Synchronized
+    fun millis(phase: Phase): Long {
+        return nanos[phase.ordinal] / 1_000_000
+    }
+
+    fun toMap(): Map<Phase, Long> {
+        return Phase.values().associateWith { millis(it) }
+    }
+
+    /**
+     * Phases which took any time, such as "download 120 ms, parse 45 ms".
+     */
+    fun summary(): String {
+        return toMap().filterValues { it > 0 }.entries.joinToString(", ") {
+            "${it.key.name.lowercase()} ${it.value} ms"
+        }
+    }
+
+    /**
+     * [summary] of the whole sync, followed by the summary of each repository.
+     */
+    fun summaryWithRepos(): String {
+        return buildString {
+            append(summary())
+
+            for ((url, timings) in repos()) {
+                append("\n").append(url).append(": ").append(timings.summary())
+            }
+        }
+    }
+
+    override fun toString(): String {
+        return toMap().entries.joinToString(" ") { "${it.key.name.lowercase()}=${it.value}ms" }
+    }
+}
+
+/**
+ * Runs [block], adding its time to the [phase] if timings are recorded.
+ */
+inline fun <T> SyncTimings?.measure(phase: SyncTimings.Phase, block: () -> T): T {
+    if (this == null) {
+        return block()
+    }
+
+    val startedAt = System.nanoTime()
+
+    try {
+        return block()
+    } finally {
+        add(phase, System.nanoTime() - startedAt)
+    }
+}
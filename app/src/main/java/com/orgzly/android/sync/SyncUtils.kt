@@ -12,7 +12,9 @@ import com.orgzly.android.repos.GitRepo
 import com.orgzly.android.repos.SyncRepo
 import com.orgzly.android.repos.TwoWaySyncRepo
 import com.orgzly.android.repos.VersionedRook
+import com.orgzly.android.sync.SyncTimings.Phase
 import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
 import java.io.IOException
 
 object SyncUtils {
@@ -23,25 +25,36 @@ object SyncUtils {
      */
     @Throws(IOException::class)
     @JvmStatic
-    fun getBooksFromAllRepos(dataRepository: DataRepository, repos: List<SyncRepo>? = null): List<VersionedRook> {
+    @JvmOverloads
+    fun getBooksFromAllRepos(
+        dataRepository: DataRepository,
+        repos: List<SyncRepo>? = null,
+        timings: SyncTimings? = null
+    ): List<VersionedRook> {
         val result = ArrayList<VersionedRook>()
 
-        val repoList = repos ?: dataRepository.getSyncRepos()
+        val repoList = repos ?: timings.measure(Phase.LISTING) {
+            dataRepository.getSyncRepos()
+        }
 
         for (repo in repoList) {
-            if (repo is GitRepo && repo.isUnchanged) {
-                for (book in dataRepository.getBooks()) {
-                    if (book.hasLink() && book.linkRepo!!.url == repo.uri.toString() && book.hasSync()) {
-                        result.add(book.syncedTo!!)
+            timings?.forRepo(repo.uri.toString()).measure(Phase.LISTING) {
+                if (repo is GitRepo && repo.isUnchanged) {
+                    for (book in dataRepository.getBooks()) {
+                        if (book.hasLink() && book.linkRepo!!.url == repo.uri.toString() && book.hasSync()) {
+                            result.add(book.syncedTo!!)
+                        }
+                    }
+                    if (result.isNotEmpty()) {
+                        return@measure
                     }
                 }
-                if (result.isNotEmpty()) {
-                    continue
+                val libBooks = Metrics.time(Metrics.REPO_LISTING_MS, repo.uri.toString()) {
+                    repo.books
                 }
+                /* Each book in repository. */
+                result.addAll(libBooks)
             }
-            val libBooks = repo.books
-            /* Each book in repository. */
-            result.addAll(libBooks)
         }
         return result
     }
@@ -54,13 +67,28 @@ object SyncUtils {
      */
     @Throws(IOException::class)
     @JvmStatic
-    fun groupAllNotebooksByName(dataRepository: DataRepository): Map<String, BookNamesake> {
+    @JvmOverloads
+    fun groupAllNotebooksByName(dataRepository: DataRepository, timings: SyncTimings? = null): Map<String, BookNamesake> {
         if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Collecting all local and remote books ...")
 
-        val repos = dataRepository.getSyncRepos()
+        val repos = timings.measure(Phase.LISTING) {
+            dataRepository.getSyncRepos()
+        }
+
+        val versionedRooks = getBooksFromAllRepos(dataRepository, repos, timings)
+
+        return timings.measure(Phase.GROUPING) {
+            groupNotebooksByName(dataRepository, repos, versionedRooks)
+        }
+    }
+
+    private fun groupNotebooksByName(
+        dataRepository: DataRepository,
+        repos: List<SyncRepo>,
+        versionedRooks: List<VersionedRook>
+    ): Map<String, BookNamesake> {
 
         val localBooks = dataRepository.getBooks()
-        val versionedRooks = getBooksFromAllRepos(dataRepository, repos)
 
         /* Group local and remote books by name. */
         val namesakes = BookNamesake.getAll(localBooks, versionedRooks)
@@ -84,7 +112,8 @@ object SyncUtils {
      */
     @Throws(Exception::class)
     @JvmStatic
-    fun syncNamesake(dataRepository: DataRepository, namesake: BookNamesake): BookAction {
+    @JvmOverloads
+    fun syncNamesake(dataRepository: DataRepository, namesake: BookNamesake, timings: SyncTimings? = null): BookAction {
         val repoEntity: Repo?
         val repoUrl: String
         val repositoryPath: String
@@ -97,7 +126,7 @@ object SyncUtils {
                 val repo = dataRepository.getRepoInstance(
                     rook.repoId, rook.repoType, rook.repoUri.toString())
                 if (repo is GitRepo) {
-                    if (!handleTwoWaySync(dataRepository, repo as TwoWaySyncRepo, namesake)) {
+                    if (!handleTwoWaySync(dataRepository, repo as TwoWaySyncRepo, namesake, timings)) {
                         throw Exception("Merge conflict; saved to temporary branch.")
                     }
                     return BookAction.forNow(
@@ -137,14 +166,14 @@ object SyncUtils {
             /* Load remote book. */
 
             BookSyncStatus.NO_BOOK_ONE_ROOK, BookSyncStatus.DUMMY_WITHOUT_LINK_AND_ONE_ROOK -> {
-                dataRepository.loadBookFromRepo(namesake.rooks[0])
+                dataRepository.loadBookFromRepo(namesake.rooks[0], timings)
                 bookAction = BookAction.forNow(
                     BookAction.Type.INFO,
                     namesake.status.msg(namesake.rooks[0].uri))
             }
 
             BookSyncStatus.DUMMY_WITH_LINK, BookSyncStatus.BOOK_WITH_LINK_AND_ROOK_MODIFIED -> {
-                dataRepository.loadBookFromRepo(namesake.latestLinkedRook)
+                dataRepository.loadBookFromRepo(namesake.latestLinkedRook, timings)
                 bookAction = BookAction.forNow(
                     BookAction.Type.INFO,
                     namesake.status.msg(namesake.latestLinkedRook.uri))
@@ -158,7 +187,7 @@ object SyncUtils {
                 repositoryPath = BookName.repoRelativePath(namesake.book.book.name, BookFormat.ORG)
                 /* Set repo link before saving to ensure repo ignore rules are checked */
                 dataRepository.setLink(namesake.book.book.id, repoEntity)
-                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG)
+                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG, timings)
                 bookAction = BookAction.forNow(BookAction.Type.INFO, namesake.status.msg(repoUrl))
             }
 
@@ -166,7 +195,7 @@ object SyncUtils {
                 repoEntity = namesake.book.linkRepo
                 repoUrl = repoEntity!!.url
                 repositoryPath = BookName.getRepoRelativePath(repoUrl.toUri(), namesake.book.syncedTo!!.uri)
-                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG)
+                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG, timings)
                 bookAction = BookAction.forNow(BookAction.Type.INFO, namesake.status.msg(repoUrl))
             }
 
@@ -174,7 +203,7 @@ object SyncUtils {
                 repoEntity = namesake.book.linkRepo
                 repoUrl = repoEntity!!.url
                 repositoryPath = BookName.repoRelativePath(namesake.book.book.name, BookFormat.ORG)
-                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG)
+                dataRepository.saveBookToRepo(repoEntity, repositoryPath, namesake.book, BookFormat.ORG, timings)
                 bookAction = BookAction.forNow(BookAction.Type.INFO, namesake.status.msg(repoUrl))
             }
         }
@@ -183,7 +212,12 @@ object SyncUtils {
     }
 
     @Throws(IOException::class)
-    private fun handleTwoWaySync(dataRepository: DataRepository, repo: TwoWaySyncRepo, namesake: BookNamesake): Boolean {
+    private fun handleTwoWaySync(
+        dataRepository: DataRepository,
+        repo: TwoWaySyncRepo,
+        namesake: BookNamesake,
+        timings: SyncTimings?
+    ): Boolean {
         val (book, _, _, currentRook) = namesake.book
         val someRook = currentRook ?: namesake.rooks[0]
         val newRook: VersionedRook?
@@ -191,25 +225,33 @@ object SyncUtils {
         // If there are only local changes, the GitRepo.syncBook method is overly complicated.
         if (namesake.status == BookSyncStatus.BOOK_WITH_LINK_LOCAL_MODIFIED) {
             val repoRelativePath = BookName.getRepoRelativePath(repo.getUri(), namesake.book.syncedTo!!.uri)
-            dataRepository.saveBookToRepo(namesake.book.linkRepo!!, repoRelativePath, namesake.book, BookFormat.ORG)
+            dataRepository.saveBookToRepo(namesake.book.linkRepo!!, repoRelativePath, namesake.book, BookFormat.ORG, timings)
         } else {
             val dbFile = dataRepository.getTempBookFile()
             try {
-                NotesOrgExporter(dataRepository).exportBook(book, dbFile)
-                val (newRook1, merged, loadFile) =
+                timings.measure(Phase.EXPORT) {
+                    NotesOrgExporter(dataRepository).exportBook(book, dbFile)
+                }
+                // Merging and pushing, and fetching when needed
+                val (newRook1, merged, loadFile) = timings.measure(Phase.UPLOAD) {
                     repo.syncBook(someRook.uri, currentRook, dbFile)
+                }
                 noNewMergeConflicts = merged
                 newRook = newRook1
+                Metrics.count(Metrics.BYTES_UPLOADED, dbFile.length(), repo.getUri().toString())
                 // We only need to write it if syncback is needed
                 if (loadFile != null) {
                     val repoRelativePath = BookName.getRepoRelativePath(repo.getUri(), newRook.uri)
                     val bookName = BookName.fromRepoRelativePath(repoRelativePath)
                     if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Loading from file '$loadFile'")
-                    dataRepository.loadBookFromFile(
-                        bookName.name,
-                        bookName.format,
-                        loadFile,
-                        newRook)
+                    Metrics.count(Metrics.BYTES_DOWNLOADED, loadFile.length(), repo.getUri().toString())
+                    timings.measure(Phase.PARSE) {
+                        dataRepository.loadBookFromFile(
+                            bookName.name,
+                            bookName.format,
+                            loadFile,
+                            newRook)
+                    }
                     // TODO: db.book().updateIsModified(bookView.book.id, false)
                     // Instead of:
                     // dataRepository.updateBookMtime(loadedBook.getBook().getId(), 0);
@@ -21,6 +21,8 @@ import com.orgzly.android.repos.*
 import com.orgzly.android.ui.notifications.SyncNotifications
 import com.orgzly.android.ui.util.getAlarmManager
 import com.orgzly.android.ui.util.haveNetworkConnection
+import com.orgzly.android.usecase.AgendaOccurrencesUpdate
+import com.orgzly.android.usecase.UseCaseWorker
 import com.orgzly.android.util.AppPermissions
 import com.orgzly.android.util.LogMajorEvents
 import com.orgzly.android.util.LogUtils
@@ -96,10 +98,13 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
 
         val syncStartTime = System.currentTimeMillis()
 
-        syncRepos()?.let { return it }
+        val timings = SyncTimings()
+
+        syncRepos(timings)?.let { return it }
 
         RemindersScheduler.notifyDataSetChanged(App.getAppContext())
         ListWidgetProvider.notifyDataSetChanged(App.getAppContext())
+        UseCaseWorker.schedule(App.getAppContext(), AgendaOccurrencesUpdate())
         SharingShortcutsManager().replaceDynamicShortcuts(App.getAppContext())
 
         val syncEndTime = System.currentTimeMillis()
@@ -107,17 +112,21 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
         // Save last successful sync time to preferences
         AppPreferences.lastSuccessfulSyncTime(context, syncEndTime)
 
+        val timingsSummary = timings.summaryWithRepos()
+
+        AppPreferences.lastSyncTimings(context, timingsSummary)
+
         if (LogMajorEvents.isEnabled()) {
             val syncDuration = (syncEndTime - syncStartTime)
             val numberOfRepos = dataRepository.getRepos().size
             val numberOfBooks = dataRepository.getBooks().size
             appLogs.log(
                 LogMajorEvents.SYNC,
-                "Sync took $syncDuration milliseconds. Synced $numberOfBooks books in $numberOfRepos repos."
+                "Sync took $syncDuration milliseconds. Synced $numberOfBooks books in $numberOfRepos repos.\n$timingsSummary"
             )
         }
 
-        return SyncState.getInstance(SyncState.Type.FINISHED)
+        return SyncState.getInstance(SyncState.Type.FINISHED, timings = timingsSummary)
     }
 
     private fun messageIfBooksFailed(dataRepository: DataRepository): String? {
@@ -195,7 +204,7 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
         return null
     }
 
-    private suspend fun syncRepos(): SyncState? {
+    private suspend fun syncRepos(timings: SyncTimings): SyncState? {
         if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG)
 
         sendProgress(SyncState.getInstance(SyncState.Type.COLLECTING_BOOKS))
@@ -205,7 +214,7 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
          * Inserts dummy books if they don't exist in database.
          */
         val namesakes = withContext(Dispatchers.IO) {
-            SyncUtils.groupAllNotebooksByName(dataRepository)
+            SyncUtils.groupAllNotebooksByName(dataRepository, timings)
         }
 
         if (isStopped) {
@@ -268,21 +277,23 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
                 sendProgress(SyncState.getInstance(
                     SyncState.Type.BOOK_STARTED, namesake.name, curr, namesakes.size))
 
+                val bookTimings = SyncTimings(repoUrl(namesake)?.let { timings.forRepo(it) } ?: timings)
+
                 try {
-                    val action = SyncUtils.syncNamesake(dataRepository, namesake)
+                    val action = SyncUtils.syncNamesake(dataRepository, namesake, bookTimings)
                     dataRepository.setBookLastActionAndSyncStatus(
                         namesake.book.book.id,
-                        action,
+                        action.copy(timings = bookTimings.summary().ifEmpty { null }),
                         namesake.status.toString())
                 } catch (e: Exception) {
                     e.printStackTrace()
                     dataRepository.setBookLastActionAndSyncStatus(
                         namesake.book.book.id,
-                        BookAction.forNow(BookAction.Type.ERROR, e.message.orEmpty()))
+                        BookAction.forNow(BookAction.Type.ERROR, e.message.orEmpty(), bookTimings.summary().ifEmpty { null }))
                 }
 
                 sendProgress(SyncState.getInstance(
-                    SyncState.Type.BOOK_ENDED, namesake.name, curr + 1, namesakes.size))
+                    SyncState.Type.BOOK_ENDED, namesake.name, curr + 1, namesakes.size, bookTimings.summary()))
             }
         }
 
@@ -294,13 +305,22 @@ class SyncWorker(val context: Context, val params: WorkerParameters) :
 
         for (repo in repos) {
             if (repo is TwoWaySyncRepo) {
-                repo.tryPushIfHeadDiffersFromRemote()
+                timings.forRepo(repo.uri.toString()).measure(SyncTimings.Phase.PUSH) {
+                    repo.tryPushIfHeadDiffersFromRemote()
+                }
             }
         }
 
         return null
     }
 
+    /**
+     * Repository the book is synced with, if known before syncing.
+     */
+    private fun repoUrl(namesake: BookNamesake): String? {
+        return namesake.book.linkRepo?.url ?: namesake.rooks.firstOrNull()?.repoUri?.toString()
+    }
+
     // TODO: Remove or repo.requiresStoragePermission
     private fun reposRequireStoragePermission(repos: Collection<SyncRepo>): Boolean {
         for (repo in repos) {
@@ -65,36 +65,47 @@ public class BookChooserActivity extends CommonActivity
         if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, bookId, action);
 
         if (action != null && action.equals(Intent.ACTION_CREATE_SHORTCUT)) {
-            // Get Book by its ID
-            Book book = dataRepository.getBook(bookId);
-
-            if (book == null) {
-                Toast.makeText(this, R.string.book_does_not_exist_anymore, Toast.LENGTH_SHORT).show();
-                setResult(RESULT_CANCELED);
-                finish();
-                return;
-            }
-
-            String id = "notebook-" + bookId;
-            String name = book.getName();
-            String title = BookUtils.getFragmentTitleForBook(book);
-            Intent launchIntent = createLaunchIntent(book);
-            IconCompat icon = createIcon();
-
-            ShortcutInfoCompat shortcut =
-                    new ShortcutInfoCompat.Builder(this, id)
-                            .setShortLabel(name)
-                            .setLongLabel(title)
-                            .setIcon(icon)
-                            .setIntent(launchIntent)
-                            .build();
-
-            setResult(RESULT_OK, ShortcutManagerCompat.createShortcutResultIntent(this, shortcut));
-
-            finish();
+            App.EXECUTORS.diskIO().execute(() -> {
+                // Get Book by its ID
+                Book book = dataRepository.getBook(bookId);
+
+                App.EXECUTORS.mainThread().execute(() -> {
+                    if (book == null) {
+                        Toast.makeText(this, R.string.book_does_not_exist_anymore, Toast.LENGTH_SHORT).show();
+                        setResult(RESULT_CANCELED);
+                        finish();
+                        return;
+                    }
+
+                    createShortcut(book);
+                });
+            });
         }
     }
 
+    /**
+     * Sets the shortcut for the chosen book as a result and finishes.
+     */
+    protected void createShortcut(Book book) {
+        String id = "notebook-" + book.getId();
+        String name = book.getName();
+        String title = BookUtils.getFragmentTitleForBook(book);
+        Intent launchIntent = createLaunchIntent(book);
+        IconCompat icon = createIcon();
+
+        ShortcutInfoCompat shortcut =
+                new ShortcutInfoCompat.Builder(this, id)
+                        .setShortLabel(name)
+                        .setLongLabel(title)
+                        .setIcon(icon)
+                        .setIntent(launchIntent)
+                        .build();
+
+        setResult(RESULT_OK, ShortcutManagerCompat.createShortcutResultIntent(this, shortcut));
+
+        finish();
+    }
+
     /**
      * Create intent for opening specified notebook.
      */
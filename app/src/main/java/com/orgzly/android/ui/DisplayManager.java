@@ -174,6 +174,13 @@ public class DisplayManager {
     }
 
     public static void displayQuery(FragmentManager fragmentManager, @NonNull String queryString) {
+        displayQuery(fragmentManager, queryString, 0);
+    }
+
+    /**
+     * @param savedSearchId saved search the query comes from, 0 if typed
+     */
+    public static void displayQuery(FragmentManager fragmentManager, @NonNull String queryString, long savedSearchId) {
         // If the same query is already displayed, don't do anything.
         String displayedQuery = getDisplayedQuery(fragmentManager);
         if (displayedQuery != null && displayedQuery.equals(queryString)) {
@@ -189,11 +196,11 @@ public class DisplayManager {
 
         // Display agenda or query fragment
         if (query.getOptions().getAgendaDays() > 0) {
-            fragment = AgendaFragment.getInstance(queryString);
+            fragment = AgendaFragment.getInstance(queryString, savedSearchId);
             tag = AgendaFragment.FRAGMENT_TAG;
 
         } else {
-            fragment = SearchFragment.getInstance(queryString);
+            fragment = SearchFragment.getInstance(queryString, savedSearchId);
             tag = SearchFragment.FRAGMENT_TAG;
         }
 
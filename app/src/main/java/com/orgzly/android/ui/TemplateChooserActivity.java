@@ -1,7 +1,6 @@
 package com.orgzly.android.ui;
 
 import android.content.Intent;
-import android.widget.Toast;
 
 import androidx.core.content.pm.ShortcutInfoCompat;
 import androidx.core.content.pm.ShortcutManagerCompat;
@@ -15,27 +14,12 @@ import com.orgzly.android.ui.share.ShareActivity;
 
 public class TemplateChooserActivity extends BookChooserActivity {
     @Override
-    public void onBookClicked(long bookId) {
-        if (action == null) {
-            return;
-        }
-        if (!action.equals(Intent.ACTION_CREATE_SHORTCUT)) {
-            return;
-        }
-        Book book = dataRepository.getBook(bookId);
-
-        if (book == null) {
-            Toast.makeText(this, R.string.book_does_not_exist_anymore, Toast.LENGTH_SHORT).show();
-            setResult(RESULT_CANCELED);
-            finish();
-            return;
-        }
-
-        String id = "template-" + bookId;
+    protected void createShortcut(Book book) {
+        String id = "template-" + book.getId();
         String name = book.getName();
         String title = BookUtils.getFragmentTitleForBook(book);
         Intent launchIntent = ShareActivity.createNewNoteIntent(this);
-        launchIntent.putExtra(AppIntent.EXTRA_BOOK_ID, bookId);
+        launchIntent.putExtra(AppIntent.EXTRA_BOOK_ID, book.getId());
         IconCompat icon = createIcon();
 
         ShortcutInfoCompat shortcut =
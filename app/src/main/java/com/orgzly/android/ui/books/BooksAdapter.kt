@@ -213,6 +213,11 @@ class BooksAdapter(
             builder.setSpan(StyleSpan(Typeface.BOLD), pos, builder.length, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE)
         }
 
+        /* Where the time went when syncing. */
+        book.lastAction?.timings?.let { timings ->
+            builder.append("\n").append(timings)
+        }
+
         return builder
     }
 
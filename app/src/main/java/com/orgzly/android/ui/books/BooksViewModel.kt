@@ -74,8 +74,8 @@ class BooksViewModel(private val dataRepository: DataRepository) : CommonViewMod
     }
 
     fun deleteBooksRequest(bookIds: Set<Long>) {
-        val bookViews = bookIds.map { requireNotNull(dataRepository.getBookView(it)) }.toSet()
         App.EXECUTORS.diskIO().execute {
+            val bookViews = bookIds.map { requireNotNull(dataRepository.getBookView(it)) }.toSet()
             booksToDeleteEvent.postValue(bookViews)
         }
     }
@@ -8,6 +8,7 @@ import androidx.lifecycle.lifecycleScope
 import androidx.lifecycle.repeatOnLifecycle
 import com.orgzly.R
 import com.orgzly.android.App
+import com.orgzly.android.AppStartup
 import com.orgzly.android.data.logs.AppLogsRepository
 import com.orgzly.android.reminders.LastRun
 import com.orgzly.android.ui.CommonActivity
@@ -15,6 +16,7 @@ import com.orgzly.android.ui.util.copyPlainTextToClipboard
 import com.orgzly.android.ui.util.getAlarmManager
 import com.orgzly.android.ui.util.sharePlainText
 import com.orgzly.android.ui.util.userFriendlyPeriod
+import com.orgzly.android.util.Metrics
 import com.orgzly.databinding.ActivityLogsBinding
 import kotlinx.coroutines.flow.collect
 import kotlinx.coroutines.launch
@@ -68,6 +70,8 @@ class AppLogsActivity : CommonActivity() {
                         copyPlainTextToClipboard("Orgzly Logs", allText())
                     R.id.share ->
                         sharePlainText(allText())
+                    R.id.share_metrics ->
+                        sharePlainText(Metrics.toJson())
                 }
 
                 true
@@ -120,6 +124,8 @@ class AppLogsActivity : CommonActivity() {
                 Last boot (including deep sleep)
                 $bootAt
                 $bootElapsed
-            """.trimIndent()
+
+                Startup (since process start)
+            """.trimIndent() + "\n" + AppStartup.summary()
     }
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ import kotlinx.coroutines.flow.map
 import java.util.*
 
 class AppLogsViewModel(appLogsRepository: AppLogsRepository) : CommonViewModel() {
-    val logs = appLogsRepository.getFlow().map {
+    val logs = appLogsRepository.getFlow(SHOWN_LOGS).map {
         it.map { logEntry ->
             val date = Date(logEntry.time)
             val type = logEntry.type
@@ -16,4 +16,9 @@ class AppLogsViewModel(appLogsRepository: AppLogsRepository) : CommonViewModel()
             "$date $type $message"
         }
     }
+
+    companion object {
+        /** Number of latest entries shown. */
+        private const val SHOWN_LOGS = 1000
+    }
 }
\ No newline at end of file
@@ -26,7 +26,9 @@ import com.orgzly.BuildConfig;
 import com.orgzly.R;
 import com.orgzly.android.App;
 import com.orgzly.android.AppIntent;
+import com.orgzly.android.AppStartup;
 import com.orgzly.android.SharingShortcutsManager;
+import com.orgzly.android.data.maintenance.MaintenanceWorker;
 import com.orgzly.android.db.NotesClipboard;
 import com.orgzly.android.db.entity.Book;
 import com.orgzly.android.db.entity.Note;
@@ -168,7 +170,13 @@ public class MainActivity extends CommonActivity
             }
         };
 
-        new SharingShortcutsManager().replaceDynamicShortcuts(this);
+        Context appContext = getApplicationContext();
+
+        AppStartup.afterWarmUp(() -> new SharingShortcutsManager().replaceDynamicShortcuts(appContext));
+
+        AppStartup.onActivityCreated(this);
+
+        AppStartup.reportFullyDrawnOnData(this, viewModel.books());
     }
 
     @NotNull
@@ -190,6 +198,7 @@ public class MainActivity extends CommonActivity
             long bookId = getIntent().getLongExtra(AppIntent.EXTRA_BOOK_ID, 0L);
             long noteId = getIntent().getLongExtra(AppIntent.EXTRA_NOTE_ID, 0L);
             String queryString = getIntent().getStringExtra(AppIntent.EXTRA_QUERY_STRING);
+            long savedSearchId = getIntent().getLongExtra(AppIntent.EXTRA_SAVED_SEARCH_ID, 0L);
 
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, bookId, noteId, queryString);
 
@@ -202,7 +211,7 @@ public class MainActivity extends CommonActivity
                     DisplayManager.displayExistingNote(getSupportFragmentManager(), bookId, noteId);
                 }
             } else if (queryString != null) {
-                DisplayManager.displayQuery(getSupportFragmentManager(), queryString);
+                DisplayManager.displayQuery(getSupportFragmentManager(), queryString, savedSearchId);
 
             } else {
                 handleOrgProtocolIntent(getIntent());
@@ -473,6 +482,9 @@ public class MainActivity extends CommonActivity
                 UseCaseWorker.schedule(this, new BookImportGettingStarted());
             }
 
+            /* Periodic work survives restarts, scheduling once per version is enough. */
+            MaintenanceWorker.schedule(this);
+
             /* Open drawer for the first time user. */
             if (currentVersion == 0 && mDrawerLayout != null) {
                 mDrawerLayout.openDrawer(GravityCompat.START);
@@ -950,7 +962,8 @@ public class MainActivity extends CommonActivity
 
                 case AppIntent.ACTION_OPEN_QUERY: {
                     String query = intent.getStringExtra(AppIntent.EXTRA_QUERY_STRING);
-                    DisplayManager.displayQuery(getSupportFragmentManager(), query);
+                    long savedSearchId = intent.getLongExtra(AppIntent.EXTRA_SAVED_SEARCH_ID, 0L);
+                    DisplayManager.displayQuery(getSupportFragmentManager(), query, savedSearchId);
                     break;
                 }
 
@@ -12,6 +12,7 @@ import com.orgzly.android.query.Query
 import com.orgzly.android.query.user.DottedQueryBuilder
 import com.orgzly.android.ui.DisplayManager
 import com.orgzly.android.ui.notes.book.BookFragment
+import com.orgzly.android.ui.notes.query.search.SearchFragment
 
 
 /**
@@ -29,6 +30,15 @@ fun FragmentActivity.setupSearchView(menu: Menu) {
         return null
     }
 
+    fun getActiveSearchFragment(): SearchFragment? {
+        supportFragmentManager.findFragmentByTag(SearchFragment.FRAGMENT_TAG)?.let { searchFragment ->
+            if (searchFragment is SearchFragment && searchFragment.isVisible) {
+                return searchFragment
+            }
+        }
+        return null
+    }
+
     val activity = this
 
     val searchItem = menu.findItem(R.id.search_view)
@@ -42,6 +52,7 @@ fun FragmentActivity.setupSearchView(menu: Menu) {
 
         override fun onMenuItemActionCollapse(item: MenuItem): Boolean {
             Fab.show(activity)
+            getActiveSearchFragment()?.stopSearchAsYouType()
             return true
         }
     })
@@ -76,6 +87,8 @@ fun FragmentActivity.setupSearchView(menu: Menu) {
 
     searchView.setOnQueryTextListener(object : SearchView.OnQueryTextListener {
         override fun onQueryTextChange(str: String?): Boolean {
+            // Update already displayed search results while typing
+            getActiveSearchFragment()?.searchAsYouType(str.orEmpty())
             return false
         }
 
@@ -7,6 +7,7 @@ import android.view.View
 import android.widget.PopupWindow
 import androidx.activity.OnBackPressedCallback
 import androidx.appcompat.app.AlertDialog
+import androidx.lifecycle.lifecycleScope
 import com.orgzly.BuildConfig
 import com.orgzly.R
 import com.orgzly.android.App
@@ -20,6 +21,9 @@ import com.orgzly.android.ui.dialogs.TimestampDialogFragment
 import com.orgzly.android.ui.util.ActivityUtils
 import com.orgzly.android.util.LogUtils
 import com.orgzly.org.datetime.OrgDateTime
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 import java.util.*
 import javax.inject.Inject
 
@@ -138,17 +142,27 @@ abstract class NotesFragment : CommonFragment(), TimestampDialogFragment.OnDateT
     protected fun displayTimestampDialog(id: Int, noteIds: Set<Long>) {
         if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, id)
 
-        // If there is only one note, use its time as dialog's default
-        val time = if (noteIds.size == 1) {
-            if (id in scheduledTimeButtonIds()) {
-                getScheduledTimeForNote(noteIds.first())
+        viewLifecycleOwner.lifecycleScope.launch {
+            // If there is only one note, use its time as dialog's default
+            val time = if (noteIds.size == 1) {
+                withContext(Dispatchers.IO) {
+                    if (id in scheduledTimeButtonIds()) {
+                        getScheduledTimeForNote(noteIds.first())
+                    } else {
+                        getDeadlineTimeForNote(noteIds.first())
+                    }
+                }
             } else {
-                getDeadlineTimeForNote(noteIds.first())
+                null
+            }
+
+            if (!childFragmentManager.isStateSaved) {
+                showTimestampDialog(id, noteIds, time)
             }
-        } else {
-            null
         }
+    }
 
+    private fun showTimestampDialog(id: Int, noteIds: Set<Long>, time: OrgDateTime?) {
         val timeType = if (id in scheduledTimeButtonIds())
             TimeType.SCHEDULED
         else
@@ -28,6 +28,9 @@ abstract class QueryFragment :
     /** Currently active query.  */
     var currentQuery: String? = null
 
+    /** Saved search the query comes from, 0 if typed. */
+    protected var savedSearchId: Long = 0
+
     protected var listener: Listener? = null
 
     protected lateinit var sharedMainActivityViewModel: SharedMainActivityViewModel
@@ -49,6 +52,8 @@ abstract class QueryFragment :
         listener = activity as Listener
 
         currentQuery = requireArguments().getString(ARG_QUERY)
+
+        savedSearchId = requireArguments().getLong(ARG_SAVED_SEARCH_ID)
     }
 
     override fun onCreate(savedInstanceState: Bundle?) {
@@ -121,6 +126,8 @@ abstract class QueryFragment :
 
         const val ARG_QUERY = "query"
 
+        const val ARG_SAVED_SEARCH_ID = "saved_search_id"
+
         fun getDrawerItemId(query: String?): String {
             return "$TAG $query"
         }
@@ -3,11 +3,21 @@ package com.orgzly.android.ui.notes.query
 import androidx.lifecycle.MutableLiveData
 import androidx.lifecycle.map
 import androidx.lifecycle.switchMap
+import androidx.lifecycle.viewModelScope
 import com.orgzly.BuildConfig
 import com.orgzly.android.data.DataRepository
+import com.orgzly.android.db.entity.NoteView
+import com.orgzly.android.query.Query
+import com.orgzly.android.query.QueryUtils
+import com.orgzly.android.query.user.InternalQueryParser
 import com.orgzly.android.ui.AppBar
 import com.orgzly.android.ui.CommonViewModel
 import com.orgzly.android.util.LogUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 
 class QueryViewModel(private val dataRepository: DataRepository) : CommonViewModel() {
@@ -20,41 +30,184 @@ class QueryViewModel(private val dataRepository: DataRepository) : CommonViewMod
 
     val viewState = MutableLiveData(ViewState.LOADING)
 
-    data class Params(val query: String?, val defaultPriority: String)
+    /**
+     * @property limit number of notes to load, 0 for all
+     * @property incremental if the query is being typed, see [searchAsYouType]
+     * @property savedSearchId saved search the query comes from, 0 if typed
+     */
+    data class Params(
+        val query: String?,
+        val defaultPriority: String,
+        val limit: Int = 0,
+        val incremental: Boolean = false,
+        val savedSearchId: Long = 0)
+
+    /* Notes found while typing, and if they were cut by the limit. */
+    private data class IncrementalResult(
+        val query: Query,
+        val defaultPriority: String,
+        val notes: List<NoteView>,
+        val complete: Boolean)
+
+    private var incrementalJob: Job? = null
+
+    private var incrementalResult: IncrementalResult? = null
 
     private val notesParams = MutableLiveData<Params>()
 
+    /** If the last loaded notes were cut by the limit. */
+    var hasMore = false
+        private set
+
     val data = notesParams.switchMap { params ->
+        incrementalJob?.cancel()
+
         if (params.query != null) {
-            dataRepository.selectNotesFromQueryLiveData(params.query).map {
-                viewState.value = if (it.isNotEmpty()) {
-                    ViewState.LOADED
-                } else {
-                    ViewState.EMPTY
-                }
+            if (params.incremental) {
+                searchIncrementally(params)
+
+            } else {
+                incrementalResult = null
 
-                it
+                dataRepository.selectNotesFromQueryLiveData(params.query, params.limit, params.savedSearchId).map {
+                    loaded(params, it)
+                }
             }
         } else {
             MutableLiveData()
         }
     }
 
+    private fun loaded(params: Params, notes: List<NoteView>): List<NoteView> {
+        hasMore = params.limit > 0 && notes.size == params.limit
+
+        viewState.value = if (notes.isNotEmpty()) {
+            ViewState.LOADED
+        } else {
+            ViewState.EMPTY
+        }
+
+        return notes
+    }
+
+    /**
+     * Runs the query after a short delay, unless parameters change in the meantime.
+     * Query still running when they do is interrupted.
+     *
+     * Notes are not updated on database changes, as they are when the query is submitted.
+     */
+    private fun searchIncrementally(params: Params): MutableLiveData<List<NoteView>> {
+        val result = MutableLiveData<List<NoteView>>()
+
+        incrementalJob = viewModelScope.launch {
+            delay(SEARCH_AS_YOU_TYPE_DELAY_MS)
+
+            val query = withContext(Dispatchers.Default) {
+                InternalQueryParser().parse(params.query!!)
+            }
+
+            val notes = filterPreviousResult(params, query)
+                ?: dataRepository.selectNotesFromQueryCancellable(query, params.limit)
+
+            val limit = listOf(params.limit, query.options.limit).filter { it > 0 }.minOrNull() ?: 0
+
+            incrementalResult = IncrementalResult(
+                query, params.defaultPriority, notes, limit == 0 || notes.size < limit)
+
+            result.value = loaded(params, notes)
+        }
+
+        return result
+    }
+
+    /**
+     * If the query is only narrowing down the complete previous result with more text,
+     * filter those notes instead of running the query.
+     */
+    private suspend fun filterPreviousResult(params: Params, query: Query): List<NoteView>? {
+        val previous = incrementalResult ?: return null
+
+        if (!previous.complete || previous.defaultPriority != params.defaultPriority) {
+            return null
+        }
+
+        val texts = QueryUtils.extractRefiningTexts(previous.query, query) ?: return null
+
+        if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Filtering ${previous.notes.size} notes by $texts")
+
+        return withContext(Dispatchers.Default) {
+            val notes = previous.notes.filter { noteView ->
+                val note = noteView.note
+
+                texts.all { text ->
+                    QueryUtils.likeContains(note.title, text)
+                            || QueryUtils.likeContains(note.content, text)
+                            || QueryUtils.likeContains(note.tags, text)
+                }
+            }
+
+            if (params.limit > 0) notes.take(params.limit) else notes
+        }
+    }
+
     val appBar: AppBar = AppBar(mapOf(
         APP_BAR_DEFAULT_MODE to null,
         APP_BAR_SELECTION_MODE to APP_BAR_DEFAULT_MODE))
 
-    /* Triggers querying only if parameters changed. */
-    fun refresh(query: String?, defaultPriority: String) {
-        Params(query, defaultPriority).let {
+    /**
+     * Triggers querying only if parameters changed.
+     *
+     * @param pageSize number of notes to load at first (and then with each [loadMore]), 0 for all
+     * @param savedSearchId saved search the query comes from, 0 if typed
+     */
+    fun refresh(query: String?, defaultPriority: String, pageSize: Int = 0, savedSearchId: Long = 0) {
+        val current = notesParams.value
+
+        // Keep already loaded pages if the query is the same
+        val limit = if (pageSize > 0 && current != null && current.query == query && current.limit > pageSize) {
+            current.limit
+        } else {
+            pageSize
+        }
+
+        Params(query, defaultPriority, limit, savedSearchId = savedSearchId).let {
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, it)
             notesParams.value = it
         }
     }
 
+    /** Displays notes matching the query being typed. */
+    fun searchAsYouType(query: String, defaultPriority: String, pageSize: Int = 0) {
+        Params(query, defaultPriority, pageSize, incremental = true).let {
+            if (it != notesParams.value) {
+                notesParams.value = it
+            }
+        }
+    }
+
+    /** Displays notes matching the [query] again, if [searchAsYouType] was used. */
+    fun stopSearchAsYouType(query: String?, defaultPriority: String, pageSize: Int = 0, savedSearchId: Long = 0) {
+        if (notesParams.value?.incremental == true) {
+            refresh(query, defaultPriority, pageSize, savedSearchId)
+        }
+    }
+
+    /** Query again, for another [pageSize] notes. */
+    fun loadMore(pageSize: Int) {
+        val current = notesParams.value ?: return
+
+        if (hasMore && current.limit > 0) {
+            hasMore = false
+
+            notesParams.value = current.copy(limit = current.limit + pageSize)
+        }
+    }
+
     companion object {
         private val TAG = QueryViewModel::class.java.name
 
+        private const val SEARCH_AS_YOU_TYPE_DELAY_MS = 300L
+
         const val APP_BAR_DEFAULT_MODE = 0
         const val APP_BAR_SELECTION_MODE = 1
     }
@@ -43,6 +43,8 @@ class AgendaFragment : QueryFragment(), OnViewHolderClickListener<AgendaItem> {
 
     private val item2databaseIds = hashMapOf<Long, Long>()
 
+    private val agendaParsedRanges = AgendaItems.ParsedRanges()
+
     lateinit var viewAdapter: AgendaAdapter
 
     private val appBarBackPressHandler = object : OnBackPressedCallback(false) {
@@ -230,7 +232,7 @@ class AgendaFragment : QueryFragment(), OnViewHolderClickListener<AgendaItem> {
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Observed notes: ${notes.size}")
 
             val hideEmptyDaysInAgenda = AppPreferences.hideEmptyDaysInAgenda(context)
-            val items = AgendaItems(hideEmptyDaysInAgenda).getList(notes, currentQuery, item2databaseIds)
+            val items = AgendaItems(hideEmptyDaysInAgenda, agendaParsedRanges).getList(notes, currentQuery, item2databaseIds)
 
             if (BuildConfig.LOG_DEBUG)
                 LogUtils.d(TAG, "Replacing data with ${items.size} agenda items")
@@ -268,7 +270,7 @@ class AgendaFragment : QueryFragment(), OnViewHolderClickListener<AgendaItem> {
             }
         }
 
-        viewModel.refresh(currentQuery, AppPreferences.defaultPriority(context))
+        viewModel.refresh(currentQuery, AppPreferences.defaultPriority(context), savedSearchId = savedSearchId)
     }
 
     override fun onClick(view: View, position: Int, item: AgendaItem) {
@@ -317,11 +319,12 @@ class AgendaFragment : QueryFragment(), OnViewHolderClickListener<AgendaItem> {
 
 
         @JvmStatic
-        fun getInstance(query: String): QueryFragment {
+        fun getInstance(query: String, savedSearchId: Long): QueryFragment {
             val fragment = AgendaFragment()
 
             val args = Bundle()
             args.putString(ARG_QUERY, query)
+            args.putLong(ARG_SAVED_SEARCH_ID, savedSearchId)
 
             fragment.arguments = args
 
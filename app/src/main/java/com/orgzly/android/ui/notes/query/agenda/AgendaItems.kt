@@ -9,7 +9,10 @@ import com.orgzly.org.datetime.OrgInterval
 import com.orgzly.org.datetime.OrgRange
 import org.joda.time.DateTime
 
-class AgendaItems(private val hideEmptyDaysInAgenda : Boolean) {
+class AgendaItems(
+        private val hideEmptyDaysInAgenda : Boolean,
+        private val parsedRanges: ParsedRanges = ParsedRanges()) {
+
     data class ExpandableOrgRange(
             val range: OrgRange,
             val canBeOverdueToday: Boolean,
@@ -35,6 +38,45 @@ class AgendaItems(private val hideEmptyDaysInAgenda : Boolean) {
         }
     }
 
+    /**
+     * Parsed ranges from the previous agenda, reused if the same
+     * range strings show up again.
+     */
+    class ParsedRanges {
+        private val ranges = TimeType.values().associateWith { HashMap<String, ExpandableOrgRange?>() }
+
+        private val used = TimeType.values().associateWith { HashSet<String>() }
+
+        fun get(timeType: TimeType, str: String): ExpandableOrgRange? {
+            used.getValue(timeType).add(str)
+
+            val parsed = ranges.getValue(timeType)
+
+            // Not getOrPut, which would parse again the ranges that are stored as null
+            if (parsed.containsKey(str)) {
+                return parsed[str]
+            }
+
+            return OrgRange.parseOrNull(str)?.let { range ->
+                if (range.startTime.isActive) {
+                    ExpandableOrgRange.fromRange(timeType, range)
+                } else {
+                    null
+                }
+            }.also {
+                parsed[str] = it
+            }
+        }
+
+        /** Forget ranges which were not used since the last call. */
+        fun retainUsed() {
+            TimeType.values().forEach { timeType ->
+                ranges.getValue(timeType).keys.retainAll(used.getValue(timeType))
+                used.getValue(timeType).clear()
+            }
+        }
+    }
+
     fun getList(
             notes: List<NoteView>, queryString: String?, idMap: MutableMap<Long, Long>
     ): List<AgendaItem> {
@@ -79,13 +121,7 @@ class AgendaItems(private val hideEmptyDaysInAgenda : Boolean) {
         val addedPlanningTimes = HashSet<Long>()
 
         fun addInstances(note: NoteView, timeType: TimeType, timeString: String) {
-            val range = OrgRange.parseOrNull(timeString) ?: return
-
-            if (!range.startTime.isActive) {
-                return
-            }
-
-            val expandable = ExpandableOrgRange.fromRange(timeType, range)
+            val expandable = parsedRanges.get(timeType, timeString) ?: return
 
             val times = AgendaUtils.expandOrgDateTime(expandable, now, agendaDays)
 
@@ -126,6 +162,8 @@ class AgendaItems(private val hideEmptyDaysInAgenda : Boolean) {
             }
         }
 
+        parsedRanges.retainUsed()
+
         val result = mutableListOf<AgendaItem>()
 
         // Add overdue heading and notes
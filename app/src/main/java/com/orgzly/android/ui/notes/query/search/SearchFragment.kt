@@ -11,6 +11,7 @@ import androidx.lifecycle.Observer
 import androidx.lifecycle.ViewModelProvider
 import androidx.recyclerview.widget.DividerItemDecoration
 import androidx.recyclerview.widget.LinearLayoutManager
+import androidx.recyclerview.widget.RecyclerView
 import com.orgzly.BuildConfig
 import com.orgzly.R
 import com.orgzly.android.db.entity.NoteView
@@ -89,6 +90,15 @@ class SearchFragment : QueryFragment(), OnViewHolderClickListener<NoteView> {
             rv.adapter = viewAdapter
             rv.addItemDecoration(dividerItemDecoration)
 
+            // Load more notes when getting close to the end of the list
+            rv.addOnScrollListener(object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= viewAdapter.itemCount - PAGE_SIZE / 4) {
+                        viewModel.loadMore(PAGE_SIZE)
+                    }
+                }
+            })
+
             rv.addOnItemTouchListener(ItemGestureDetector(rv.context, object: ItemGestureDetector.Listener {
                 override fun onSwipe(direction: Int, e1: MotionEvent, e2: MotionEvent) {
                     rv.findChildViewUnder(e1.x, e2.y)?.let { itemView ->
@@ -235,7 +245,7 @@ class SearchFragment : QueryFragment(), OnViewHolderClickListener<NoteView> {
             viewModel.appBar.toModeFromSelectionCount(viewAdapter.getSelection().count)
         })
 
-        viewModel.refresh(currentQuery, AppPreferences.defaultPriority(context))
+        viewModel.refresh(currentQuery, AppPreferences.defaultPriority(context), PAGE_SIZE, savedSearchId)
 
         viewModel.appBar.mode.observeSingle(viewLifecycleOwner) { mode ->
             when (mode) {
@@ -294,6 +304,22 @@ class SearchFragment : QueryFragment(), OnViewHolderClickListener<NoteView> {
 
     }
 
+    /** Displays notes matching the query while it is being typed. */
+    fun searchAsYouType(query: String) {
+        val str = query.trim()
+
+        if (str.isNotEmpty() && str != currentQuery) {
+            viewModel.searchAsYouType(str, AppPreferences.defaultPriority(context), PAGE_SIZE)
+        } else {
+            stopSearchAsYouType()
+        }
+    }
+
+    /** Displays notes matching the current query again. */
+    fun stopSearchAsYouType() {
+        viewModel.stopSearchAsYouType(currentQuery, AppPreferences.defaultPriority(context), PAGE_SIZE, savedSearchId)
+    }
+
     companion object {
         private val TAG = SearchFragment::class.java.name
 
@@ -301,12 +327,16 @@ class SearchFragment : QueryFragment(), OnViewHolderClickListener<NoteView> {
         @JvmField
         val FRAGMENT_TAG: String = SearchFragment::class.java.name
 
+        /** Number of notes loaded at once. */
+        private const val PAGE_SIZE = 200
+
         @JvmStatic
-        fun getInstance(query: String): QueryFragment {
+        fun getInstance(query: String, savedSearchId: Long): QueryFragment {
             val fragment = SearchFragment()
 
             val args = Bundle()
             args.putString(ARG_QUERY, query)
+            args.putLong(ARG_SAVED_SEARCH_ID, savedSearchId)
 
             fragment.arguments = args
 
@@ -35,17 +35,19 @@ class RefileViewModel(
     val refiledEvent: SingleLiveEvent<UseCaseResult> = SingleLiveEvent()
 
     fun openForTheFirstTime() {
-        val location = AppPreferences.refileLastLocation(App.getAppContext()).let {
-            RefileLocation.fromJson(it)
-        }
+        App.EXECUTORS.diskIO().execute {
+            val location = AppPreferences.refileLastLocation(App.getAppContext()).let {
+                RefileLocation.fromJson(it)
+            }
 
-        val item = if (location?.type != null) {
-            replayUntilNoteId(location)
-        } else {
-            HOME
-        }
+            val item = if (location?.type != null) {
+                replayUntilNoteId(location)
+            } else {
+                HOME
+            }
 
-        open(item)
+            open(item)
+        }
     }
 
     fun openParent() {
@@ -1,5 +1,6 @@
 package com.orgzly.android.ui.repo
 
+import androidx.lifecycle.MutableLiveData
 import com.orgzly.android.App
 import com.orgzly.android.data.DataRepository
 import com.orgzly.android.db.entity.Repo
@@ -19,16 +20,24 @@ open class RepoViewModel(private val dataRepository: DataRepository, open var re
 
     val alreadyExistsEvent: SingleLiveEvent<Any> = SingleLiveEvent()
 
-    fun loadRepoProperties(): RepoWithProps? {
-        val repo = dataRepository.getRepo(repoId)
+    val repoProperties: MutableLiveData<RepoWithProps> = MutableLiveData()
 
-        return if (repo != null) {
-            val props = dataRepository.getRepoPropsMap(repoId)
+    /**
+     * Loads the repository being edited into [repoProperties], once per view model.
+     */
+    fun loadRepoProperties() {
+        if (repoProperties.value != null) {
+            return
+        }
 
-            RepoWithProps(repo, props)
+        App.EXECUTORS.diskIO().execute {
+            val repo = dataRepository.getRepo(repoId)
 
-        } else {
-            null
+            if (repo != null) {
+                val props = dataRepository.getRepoPropsMap(repoId)
+
+                repoProperties.postValue(RepoWithProps(repo, props))
+            }
         }
     }
 
@@ -64,9 +64,11 @@ class DirectoryRepoActivity : CommonActivity() {
         viewModel = ViewModelProvider(this, factory).get(RepoViewModel::class.java)
 
         if (viewModel.repoId != 0L) { // Editing existing
-            viewModel.loadRepoProperties()?.let { repoWithProps ->
+            viewModel.repoProperties.observe(this, Observer { repoWithProps ->
                 binding.activityRepoDirectory.setText(repoWithProps.repo.url)
-            }
+            })
+
+            viewModel.loadRepoProperties()
         }
 
         viewModel.finishEvent.observeSingle(this, Observer {
@@ -78,11 +78,13 @@ class DropboxRepoActivity : CommonActivity() {
         viewModel = ViewModelProvider(this, factory).get(RepoViewModel::class.java)
 
         if (viewModel.repoId != 0L) { // Editing existing
-            viewModel.loadRepoProperties()?.let { repoWithProps ->
+            viewModel.repoProperties.observe(this, Observer { repoWithProps ->
                 val path = Uri.parse(repoWithProps.repo.url).path
 
                 binding.activityRepoDropboxDirectory.setText(path)
-            }
+            })
+
+            viewModel.loadRepoProperties()
         }
 
         viewModel.finishEvent.observeSingle(this, Observer {
@@ -116,10 +116,12 @@ class GitRepoActivity : CommonActivity(), GitPreferences {
 
         if (repoId != 0L) {
             /* Set directory value for existing repository being edited. */
-            dataRepository.getRepo(repoId)?.let { repo ->
-                binding.activityRepoGitUrl.setText(repo.url)
-                setFromPreferences()
-            }
+            viewModel.repoProperties.observe(this, Observer { repoWithProps ->
+                binding.activityRepoGitUrl.setText(repoWithProps.repo.url)
+                setFromPreferences(Uri.parse(repoWithProps.repo.url))
+            })
+
+            viewModel.loadRepoProperties()
         } else {
             /* Set default values for new repo being added. */
             createDefaultRepoFolder()
@@ -235,8 +237,8 @@ class GitRepoActivity : CommonActivity(), GitPreferences {
         }
     }
 
-    private fun setFromPreferences() {
-        val prefs = RepoPreferences.fromId(this, viewModel.repoId, dataRepository)
+    private fun setFromPreferences(uri: Uri) {
+        val prefs = RepoPreferences(this, viewModel.repoId, uri)
         for (field in fields) {
             setTextFromPrefKey(prefs, field.editText, field.preference)
         }
@@ -338,7 +340,7 @@ class GitRepoActivity : CommonActivity(), GitPreferences {
     }
 
     private fun saveToPreferences(id: Long): Boolean {
-        val editor: SharedPreferences.Editor = RepoPreferences.fromId(this, id, dataRepository).repoPreferences.edit()
+        val editor: SharedPreferences.Editor = RepoPreferences(this, id, remoteUri()).repoPreferences.edit()
 
         for (field in fields) {
             val settingName = getSettingName(field.preference)
@@ -107,13 +107,18 @@ class WebdavRepoActivity : CommonActivity() {
         })
 
         if (viewModel.repoId != 0L) { // Editing existing
-            viewModel.loadRepoProperties()?.let { repoWithProps ->
+            viewModel.repoProperties.observe(this, Observer { repoWithProps ->
                 binding.activityRepoWebdavUrl.setText(repoWithProps.repo.url)
 
                 binding.activityRepoWebdavUsername.setText(repoWithProps.props[USERNAME_PREF_KEY])
                 binding.activityRepoWebdavPassword.setText(repoWithProps.props[PASSWORD_PREF_KEY])
-                viewModel.certificates.value = repoWithProps.props[CERTIFICATES_PREF_KEY]
-            }
+
+                if (viewModel.certificates.value == null) {
+                    viewModel.certificates.value = repoWithProps.props[CERTIFICATES_PREF_KEY]
+                }
+            })
+
+            viewModel.loadRepoProperties()
         }
 
         binding.topToolbar.run {
@@ -88,38 +88,47 @@ public class SavedSearchFragment extends CommonFragment implements DrawerItem {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        View viewToFocus = null;
-
         if (isEditingExistingFilter()) { /* Existing filter. */
             long id = getArguments().getLong(ARG_ID);
 
-            savedSearch = dataRepository.getSavedSearch(id);
+            App.EXECUTORS.diskIO().execute(() -> {
+                SavedSearch savedSearch = dataRepository.getSavedSearch(id);
 
-            if (savedSearch != null) {
-                binding.fragmentSavedSearchName.setText(savedSearch.getName());
-                binding.fragmentSavedSearchQuery.setText(savedSearch.getQuery());
+                App.EXECUTORS.mainThread().execute(() -> {
+                    if (getView() != null) {
+                        onSavedSearchLoaded(savedSearch, savedInstanceState == null);
+                    }
+                });
+            });
 
-                binding.fragmentSavedSearchFlipper.setDisplayedChild(0);
+        } else { /* New filter. */
+            /* Open a soft keyboard, focusing on name. */
+            KeyboardUtils.openSoftKeyboard(binding.fragmentSavedSearchName);
+        }
 
-                viewToFocus = binding.fragmentSavedSearchQuery;
+        topToolbarToDefault();
+    }
 
-            } else {
-                binding.fragmentSavedSearchFlipper.setDisplayedChild(1);
+    /**
+     * @param setValues false if values were restored and should not be overwritten
+     */
+    private void onSavedSearchLoaded(SavedSearch savedSearch, boolean setValues) {
+        this.savedSearch = savedSearch;
+
+        if (savedSearch != null) {
+            if (setValues) {
+                binding.fragmentSavedSearchName.setText(savedSearch.getName());
+                binding.fragmentSavedSearchQuery.setText(savedSearch.getQuery());
             }
 
-        } else { /* New filter. */
-            viewToFocus = binding.fragmentSavedSearchName;
-        }
+            binding.fragmentSavedSearchFlipper.setDisplayedChild(0);
 
-        /*
-         * Open a soft keyboard.
-         * For new filters focus on name, for existing focus on query.
-         */
-        if (viewToFocus != null) {
-            KeyboardUtils.openSoftKeyboard(viewToFocus);
-        }
+            /* Open a soft keyboard, focusing on query. */
+            KeyboardUtils.openSoftKeyboard(binding.fragmentSavedSearchQuery);
 
-        topToolbarToDefault();
+        } else {
+            binding.fragmentSavedSearchFlipper.setDisplayedChild(1);
+        }
     }
 
     private void topToolbarToDefault() {
@@ -187,7 +196,27 @@ public class SavedSearchFragment extends CommonFragment implements DrawerItem {
      * Sends current values to listener.
      */
     private void save() {
-        SavedSearch savedSearch = validateSavedSearch();
+        /* Not loaded yet or deleted in the meantime. */
+        if (isEditingExistingFilter() && savedSearch == null) {
+            return;
+        }
+
+        String name = binding.fragmentSavedSearchName.getText().toString().trim();
+
+        /* Saved searches with the same name are needed for validation. */
+        App.EXECUTORS.diskIO().execute(() -> {
+            List<SavedSearch> sameNameSavedSearches = dataRepository.getSavedSearchesByNameIgnoreCase(name);
+
+            App.EXECUTORS.mainThread().execute(() -> {
+                if (getView() != null) {
+                    save(sameNameSavedSearches);
+                }
+            });
+        });
+    }
+
+    private void save(List<SavedSearch> sameNameSavedSearches) {
+        SavedSearch savedSearch = validateSavedSearch(sameNameSavedSearches);
         if (savedSearch != null) {
             if (isEditingExistingFilter()) {
                 if (mListener != null) {
@@ -207,7 +236,7 @@ public class SavedSearchFragment extends CommonFragment implements DrawerItem {
         }
     }
 
-    private SavedSearch validateSavedSearch() {
+    private SavedSearch validateSavedSearch(List<SavedSearch> sameNameSavedSearches) {
         String name = binding.fragmentSavedSearchName.getText().toString().trim();
         String query = binding.fragmentSavedSearchQuery.getText().toString().trim();
 
@@ -217,7 +246,7 @@ public class SavedSearchFragment extends CommonFragment implements DrawerItem {
         if (TextUtils.isEmpty(name)) {
             binding.fragmentSavedSearchNameInputLayout.setError(getString(R.string.can_not_be_empty));
             isValid = false;
-        } else if (sameNameFilterExists(name)) {
+        } else if (sameNameFilterExists(name, sameNameSavedSearches)) {
             binding.fragmentSavedSearchNameInputLayout.setError(getString(R.string.filter_name_already_exists));
             isValid = false;
         } else {
@@ -246,9 +275,7 @@ public class SavedSearchFragment extends CommonFragment implements DrawerItem {
     /**
      * Checks if filter with the same name (ignoring case) already exists.
      */
-    private boolean sameNameFilterExists(String name) {
-        List<SavedSearch> savedSearches = dataRepository.getSavedSearchesByNameIgnoreCase(name);
-
+    private boolean sameNameFilterExists(String name, List<SavedSearch> savedSearches) {
         if (isEditingExistingFilter()) {
             long id = getArguments().getLong(ARG_ID);
 
@@ -25,6 +25,7 @@ import com.orgzly.android.usecase.NoteSyncCreatedAtTimeWithProperty
 import com.orgzly.android.usecase.UseCase
 import com.orgzly.android.util.AppPermissions
 import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
 import com.orgzly.android.widgets.ListWidgetProvider
 
 /**
@@ -365,6 +366,10 @@ class SettingsFragment : PreferenceFragmentCompat(), SharedPreferences.OnSharedP
                     }
                 }
             }
+
+            getString(R.string.pref_key_record_metrics) -> {
+                Metrics.isEnabled = AppPreferences.recordMetrics(context)
+            }
         }
 
         updateRemindersScreen()
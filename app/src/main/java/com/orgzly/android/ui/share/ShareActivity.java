@@ -154,13 +154,9 @@ public class ShareActivity extends CommonActivity
                     String bookName = QueryUtils.extractFirstBookNameFromQuery(query.getCondition());
 
                     if (bookName != null) {
-                        Book book = dataRepository.getBook(bookName);
-                        if (book != null) {
-                            data.bookId = book.getId();
-                            if (BuildConfig.LOG_DEBUG)
-                                LogUtils.d(TAG, "Using book " + data.bookId
-                                        + " from passed query " + query + " (" + bookName + ")");
-                        }
+                        data.bookName = bookName;
+                        if (BuildConfig.LOG_DEBUG)
+                            LogUtils.d(TAG, "Using book " + bookName + " from passed query " + query);
                     }
                 }
 
@@ -205,8 +201,6 @@ public class ShareActivity extends CommonActivity
     }
 
     private void setupFragments(Bundle savedInstanceState, Data data) {
-        NoteFragment noteFragment;
-
         if (savedInstanceState == null) { /* Create and add fragments. */
 
             mSyncFragment = SyncFragment.getInstance();
@@ -216,26 +210,30 @@ public class ShareActivity extends CommonActivity
                     .add(mSyncFragment, SyncFragment.FRAGMENT_TAG)
                     .commit();
 
-            try {
-                long bookId;
-                if (data.bookId == null) {
-                    bookId = dataRepository.getTargetBook(this).getBook().getId();
-                } else {
-                    bookId = data.bookId;
-                }
+            App.EXECUTORS.diskIO().execute(() -> {
+                try {
+                    long bookId = getBookId(data);
 
-                noteFragment = NoteFragment.forNewNote(
-                        new NotePlace(bookId), data.title, data.content);
-
-                getSupportFragmentManager()
-                        .beginTransaction()
-                        .replace(R.id.activity_share_main, noteFragment, NoteFragment.FRAGMENT_TAG)
-                        .commit();
-            } catch (IOException ex) {
-                ex.printStackTrace();
-                // bail out here
-                finish();
-            }
+                    App.EXECUTORS.mainThread().execute(() -> {
+                        if (isFinishing()) {
+                            return;
+                        }
+
+                        NoteFragment noteFragment = NoteFragment.forNewNote(
+                                new NotePlace(bookId), data.title, data.content);
+
+                        getSupportFragmentManager()
+                                .beginTransaction()
+                                .replace(R.id.activity_share_main, noteFragment, NoteFragment.FRAGMENT_TAG)
+                                .commitAllowingStateLoss(); // State could be saved while looking up the book
+                    });
+
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    // bail out here
+                    App.EXECUTORS.mainThread().execute(this::finish);
+                }
+            });
         } else { /* Get existing fragments. */
             mSyncFragment = (SyncFragment) getSupportFragmentManager().findFragmentByTag(SyncFragment.FRAGMENT_TAG);
         }
@@ -323,10 +321,29 @@ public class ShareActivity extends CommonActivity
         AppSnackbarUtils.showSnackbar(this, throwable.getLocalizedMessage());
     }
 
+    /**
+     * Book passed by ID, book named in the passed query or the default book for shared notes.
+     */
+    private long getBookId(Data data) throws IOException {
+        if (data.bookId != null) {
+            return data.bookId;
+        }
+
+        if (data.bookName != null) {
+            Book book = dataRepository.getBook(data.bookName);
+            if (book != null) {
+                return book.getId();
+            }
+        }
+
+        return dataRepository.getTargetBook(this).getBook().getId();
+    }
+
     private class Data {
         String title;
         String content;
         Long bookId = null;
+        String bookName = null;
     }
 
     /**
@@ -240,12 +240,13 @@ class SyncFragment : Fragment() {
                 }
 
                 setOnLongClickListener {
+                    val output = syncOutput()
                     val dialog: Dialog = MaterialAlertDialogBuilder(requireContext())
                         .setPositiveButton(R.string.ok, null)
                         .setNeutralButton(R.string.copy) { _: DialogInterface?, _: Int ->
-                            context.copyPlainTextToClipboard("Sync output", binding.syncButtonText.text)
+                            context.copyPlainTextToClipboard("Sync output", output)
                         }
-                        .setMessage(binding.syncButtonText.text)
+                        .setMessage(output)
                         .show()
                     setDialogMessageSelectable(dialog)
                     true
@@ -254,6 +255,21 @@ class SyncFragment : Fragment() {
         }
     }
 
+    /**
+     * Current state, followed by where the time went on the last successful sync.
+     */
+    private fun syncOutput(): CharSequence {
+        val text = binding.syncButtonText.text
+
+        if (viewModel.isSyncRunning()) {
+            return text
+        }
+
+        val timings = AppPreferences.lastSyncTimings(requireContext()) ?: return text
+
+        return "$text\n\n$timings"
+    }
+
     private fun setDialogMessageSelectable(dialog: Dialog) {
         dialog.window?.let { window ->
             val textView = window.decorView.findViewById<TextView>(android.R.id.message)
@@ -0,0 +1,16 @@
+package com.orgzly.android.usecase
+
+import com.orgzly.android.AppIntent
+import com.orgzly.android.data.DataRepository
+
+class AgendaOccurrencesUpdate : UseCase() {
+    override fun run(dataRepository: DataRepository): UseCaseResult {
+        dataRepository.updateAgendaOccurrences()
+
+        return UseCaseResult()
+    }
+
+    override fun toAction(): String {
+        return AppIntent.ACTION_UPDATE_AGENDA_OCCURRENCES
+    }
+}
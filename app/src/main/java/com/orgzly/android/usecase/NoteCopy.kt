@@ -5,9 +5,7 @@ import com.orgzly.android.data.DataRepository
 
 class NoteCopy(val bookId: Long, val ids: Set<Long>) : UseCase() {
     override fun run(dataRepository: DataRepository): UseCaseResult {
-        val clipboard = NotesClipboard.create(dataRepository, ids).apply {
-            save()
-        }
+        val clipboard = NotesClipboard.save(dataRepository, ids)
 
         return UseCaseResult(
                 userData = clipboard
@@ -5,9 +5,8 @@ import com.orgzly.android.data.DataRepository
 
 class NoteCut(val bookId: Long, val ids: Set<Long>) : UseCase() {
     override fun run(dataRepository: DataRepository): UseCaseResult {
-        val clipboard = NotesClipboard.create(dataRepository, ids).apply {
-            save()
-        }
+        // Throws if notes could not be saved, so they are not deleted
+        val clipboard = NotesClipboard.save(dataRepository, ids)
 
         dataRepository.deleteNotes(bookId, ids)
 
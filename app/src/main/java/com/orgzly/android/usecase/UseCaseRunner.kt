@@ -7,6 +7,7 @@ import com.orgzly.android.reminders.RemindersScheduler
 import com.orgzly.android.sync.AutoSync
 import com.orgzly.android.SharingShortcutsManager
 import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
 import com.orgzly.android.widgets.ListWidgetProvider
 import javax.inject.Inject
 
@@ -31,6 +32,8 @@ object UseCaseRunner {
     fun run(action: UseCase): UseCaseResult {
         val startedAt = System.currentTimeMillis()
 
+        val metricsStartedAt = Metrics.start()
+
         val factory = Factory()
 
         val result = action.run(factory.dataRepository)
@@ -43,6 +46,7 @@ object UseCaseRunner {
         if (result.modifiesLocalData) {
             RemindersScheduler.notifyDataSetChanged(App.getAppContext())
             ListWidgetProvider.notifyDataSetChanged(App.getAppContext())
+            UseCaseWorker.schedule(App.getAppContext(), AgendaOccurrencesUpdate())
             SharingShortcutsManager().replaceDynamicShortcuts(App.getAppContext())
         }
 
@@ -50,6 +54,10 @@ object UseCaseRunner {
             ListWidgetProvider.update(App.getAppContext())
         }
 
+        if (metricsStartedAt != 0L) {
+            Metrics.recordSince(metricsStartedAt, Metrics.USE_CASE_MS, action.javaClass.simpleName)
+        }
+
         if (BuildConfig.LOG_DEBUG) {
             val ms = System.currentTimeMillis() - startedAt
             LogUtils.d(TAG, "Finished $action in ${ms}ms")
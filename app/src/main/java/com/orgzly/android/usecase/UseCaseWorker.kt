@@ -10,6 +10,8 @@ import com.orgzly.android.AppIntent
 import com.orgzly.android.data.DataRepository
 import com.orgzly.android.prefs.AppPreferences
 import com.orgzly.android.util.LogUtils
+import org.joda.time.DateTime
+import java.util.concurrent.TimeUnit
 import javax.inject.Inject
 
 class UseCaseWorker(val context: Context, val params: WorkerParameters) : Worker(context, params) {
@@ -43,6 +45,14 @@ class UseCaseWorker(val context: Context, val params: WorkerParameters) : Worker
             AppIntent.ACTION_UPDATE_TIMESTAMPS -> {
                 UseCaseRunner.run(TimestampUpdate())
             }
+
+            AppIntent.ACTION_UPDATE_AGENDA_OCCURRENCES -> {
+                UseCaseRunner.run(AgendaOccurrencesUpdate())
+
+                // Roll the occurrences forward at the start of the next day
+                val tomorrow = DateTime.now().withTimeAtStartOfDay().plusDays(1)
+                scheduleAt(context, AgendaOccurrencesUpdate(), tomorrow.millis)
+            }
         }
 
         return Result.success()
@@ -88,5 +98,26 @@ class UseCaseWorker(val context: Context, val params: WorkerParameters) : Worker
 
             workManager.enqueueUniqueWork(uniqueWorkName, ExistingWorkPolicy.KEEP, request)
         }
+
+        /**
+         * Schedule use case to run at (or soon after) [time].
+         * Replaces the previously scheduled run of the same use case.
+         */
+        @JvmStatic
+        fun scheduleAt(context: Context, useCase: UseCase, time: Long) {
+            val workManager = WorkManager.getInstance(context)
+
+            val delay = (time - System.currentTimeMillis()).coerceAtLeast(0)
+
+            val request = OneTimeWorkRequestBuilder<UseCaseWorker>()
+                .setInputData(workDataOf(DATA_ACTION to useCase.toAction()))
+                .setInitialDelay(delay, TimeUnit.MILLISECONDS)
+                .build()
+
+            // Different from the name used by schedule, so it doesn't keep immediate requests waiting
+            val uniqueWorkName = useCase::class.simpleName!! + "-at"
+
+            workManager.enqueueUniqueWork(uniqueWorkName, ExistingWorkPolicy.REPLACE, request)
+        }
     }
 }
@@ -3,6 +3,11 @@ package com.orgzly.android.util
 import com.orgzly.android.ui.notes.query.agenda.AgendaItems.ExpandableOrgRange
 import com.orgzly.org.datetime.*
 import org.joda.time.DateTime
+import org.joda.time.Days
+import org.joda.time.Hours
+import org.joda.time.Months
+import org.joda.time.Weeks
+import org.joda.time.Years
 import java.util.*
 
 object AgendaUtils {
@@ -29,7 +34,15 @@ object AgendaUtils {
 
         var to = today.plusDays(days).withTimeAtStartOfDay()
 
+        /*
+         * Occurrences before this time cannot end up in the agenda,
+         * even with the warning period applied.
+         */
+        val skipBefore = expandable.warningPeriod?.let { minus(today, it) } ?: today
+
         if (rangeEnd == null) {
+            rangeStart = skipToLastOccurrenceBefore(rangeStart, skipBefore)
+
             result.addAll(OrgDateTimeUtils.getTimesInInterval(
                     rangeStart, today, to, 0, true, expandable.warningPeriod, 0))
 
@@ -46,6 +59,8 @@ object AgendaUtils {
                 rangeStart = buildOrgDateTimeFromDate(start, repeater)
             }
 
+            rangeStart = skipToLastOccurrenceBefore(rangeStart, skipBefore)
+
             result.addAll(OrgDateTimeUtils.getTimesInInterval(
                     rangeStart, today, to, 0, true, expandable.warningPeriod, 0))
         }
@@ -53,6 +68,86 @@ object AgendaUtils {
         return ExpandedOrgRange(isOverdueToday, TreeSet(result))
     }
 
+    /**
+     * Moves repeating time forward by a whole number of repeater intervals,
+     * close to (but still before) [time].
+     *
+     * Occurrences are then generated starting from there, instead of stepping
+     * through every one of them since the original time (a daily habit
+     * started years ago, for example).
+     *
+     * Monthly and yearly repeaters on days which don't exist in every month are
+     * not moved, as adding intervals one by one can give a different day.
+     */
+    @JvmStatic
+    fun skipToLastOccurrenceBefore(orgDateTime: OrgDateTime, time: DateTime): OrgDateTime {
+        val repeater = orgDateTime.repeater ?: return orgDateTime
+
+        if (repeater.value <= 0) {
+            return orgDateTime
+        }
+
+        val start = DateTime(orgDateTime.calendar)
+
+        if (!start.isBefore(time)) {
+            return orgDateTime
+        }
+
+        val elapsed = when (repeater.unit) {
+            OrgInterval.Unit.HOUR -> Hours.hoursBetween(start, time).hours
+            OrgInterval.Unit.DAY -> Days.daysBetween(start.toLocalDateTime(), time.toLocalDateTime()).days
+            OrgInterval.Unit.WEEK -> Weeks.weeksBetween(start.toLocalDateTime(), time.toLocalDateTime()).weeks
+            OrgInterval.Unit.MONTH -> Months.monthsBetween(start.toLocalDateTime(), time.toLocalDateTime()).months
+            OrgInterval.Unit.YEAR -> Years.yearsBetween(start.toLocalDateTime(), time.toLocalDateTime()).years
+            null -> return orgDateTime
+        }
+
+        if (start.dayOfMonth > 28 && (repeater.unit == OrgInterval.Unit.MONTH || repeater.unit == OrgInterval.Unit.YEAR)) {
+            return orgDateTime
+        }
+
+        // Stop one interval earlier, to stay before the time
+        val amount = (elapsed / repeater.value - 1) * repeater.value
+
+        if (amount <= 0) {
+            return orgDateTime
+        }
+
+        val moved = when (repeater.unit) {
+            OrgInterval.Unit.HOUR -> start.plusHours(amount)
+            OrgInterval.Unit.DAY -> start.plusDays(amount)
+            OrgInterval.Unit.WEEK -> start.plusWeeks(amount)
+            OrgInterval.Unit.MONTH -> start.plusMonths(amount)
+            OrgInterval.Unit.YEAR -> start.plusYears(amount)
+        }
+
+        return OrgDateTime.Builder().apply {
+            setIsActive(orgDateTime.isActive)
+
+            setYear(moved.year)
+            setMonth(moved.monthOfYear - 1)
+            setDay(moved.dayOfMonth)
+
+            setHasTime(orgDateTime.hasTime())
+            setHour(moved.hourOfDay)
+            setMinute(moved.minuteOfHour)
+
+            setRepeater(repeater)
+            setDelay(orgDateTime.delay)
+        }.build()
+    }
+
+    private fun minus(time: DateTime, interval: OrgInterval): DateTime {
+        return when (interval.unit) {
+            OrgInterval.Unit.HOUR -> time.minusHours(interval.value)
+            OrgInterval.Unit.DAY -> time.minusDays(interval.value)
+            OrgInterval.Unit.WEEK -> time.minusWeeks(interval.value)
+            OrgInterval.Unit.MONTH -> time.minusMonths(interval.value)
+            OrgInterval.Unit.YEAR -> time.minusYears(interval.value)
+            null -> time
+        }
+    }
+
     private fun buildOrgDateTimeFromDate(date: DateTime, repeater: OrgRepeater?): OrgDateTime {
         return OrgDateTime.Builder().apply {
             setYear(date.year)
@@ -0,0 +1,45 @@
+package com.orgzly.android.util
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.InputStream
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+object GzipUtils {
+    @JvmStatic
+    fun compress(bytes: ByteArray): ByteArray {
+        return compress(ByteArrayInputStream(bytes))
+    }
+
+    @JvmStatic
+    fun compress(file: File): ByteArray {
+        return file.inputStream().use { compress(it) }
+    }
+
+    private fun compress(input: InputStream): ByteArray {
+        val out = ByteArrayOutputStream()
+
+        GZIPOutputStream(out).use { gzip ->
+            input.copyTo(gzip)
+        }
+
+        return out.toByteArray()
+    }
+
+    @JvmStatic
+    fun decompress(bytes: ByteArray): ByteArray {
+        return GZIPInputStream(ByteArrayInputStream(bytes)).use { it.readBytes() }
+    }
+
+    /**
+     * Decompresses [bytes] straight into [file], without keeping the content in memory.
+     */
+    @JvmStatic
+    fun decompressToFile(bytes: ByteArray, file: File) {
+        GZIPInputStream(ByteArrayInputStream(bytes)).use { gzip ->
+            MiscUtils.writeStreamToFile(gzip, file)
+        }
+    }
+}
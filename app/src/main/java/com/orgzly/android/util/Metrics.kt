@@ -0,0 +1,205 @@
+package com.orgzly.android.util
+
+import com.google.gson.GsonBuilder
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counters and histograms recorded while the app is running, kept in memory only.
+ *
+ * Nothing is recorded unless [isEnabled] is set (see the developer preference),
+ * in which case every call returns after reading a single volatile field.
+ *
+ * Metrics can have a label (repository URL, saved search, etc.) which is appended
+ * to the name, so `query_ms` for the saved search with ID 1 is reported as `query_ms[search:1]`.
+ * Labels must come from a small set of values, as every label is kept separately.
+ */
+object Metrics {
+    const val BOOKS_PARSED = "books_parsed"
+    const val NOTES_INSERTED = "notes_inserted"
+    const val BYTES_DOWNLOADED = "bytes_downloaded"
+    const val BYTES_UPLOADED = "bytes_uploaded"
+
+    const val BOOK_PARSE_MS = "book_parse_ms"
+    const val REPO_LISTING_MS = "repo_listing_ms"
+    const val QUERY_MS = "query_ms"
+    const val WIDGET_REFRESH_MS = "widget_refresh_ms"
+    const val USE_CASE_MS = "use_case_ms"
+
+    const val STARTUP_APP_CREATED_MS = "startup_app_created_ms"
+    const val STARTUP_DATABASE_READY_MS = "startup_database_ready_ms"
+    const val STARTUP_FIRST_FRAME_MS = "startup_first_frame_ms"
+
+    const val DB_WRITE_BATCH_SIZE = "db_write_batch_size"
+
+    @Volatile
+    @JvmStatic
+    var isEnabled = false
+
+    private val counters = ConcurrentHashMap<String, AtomicLong>()
+
+    private val histograms = ConcurrentHashMap<String, Histogram>()
+
+    @Volatile
+    private var since = System.currentTimeMillis()
+
+    @JvmStatic
+    @JvmOverloads
+    fun count(name: String, delta: Long = 1, label: String? = null) {
+        if (!isEnabled) return
+
+        counters.getOrPut(key(name, label)) { AtomicLong() }.addAndGet(delta)
+    }
+
+    @JvmStatic
+    @JvmOverloads
+    fun record(name: String, value: Long, label: String? = null) {
+        if (!isEnabled) return
+
+        histograms.getOrPut(key(name, label)) { Histogram() }.add(value)
+    }
+
+    /**
+     * Returns the start time to pass to [recordSince], or 0 if metrics are disabled.
+     */
+    @JvmStatic
+    fun start(): Long {
+        return if (isEnabled) System.nanoTime() else 0
+    }
+
+    /**
+     * Records milliseconds passed since [startedAt] returned by [start].
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun recordSince(startedAt: Long, name: String, label: String? = null) {
+        if (startedAt == 0L) return
+
+        record(name, (System.nanoTime() - startedAt) / 1_000_000, label)
+    }
+
+    /**
+     * Runs [block], recording how long it took in milliseconds.
+     */
+    inline fun <T> time(name: String, label: String? = null, block: () -> T): T {
+        val startedAt = start()
+        try {
+            return block()
+        } finally {
+            recordSince(startedAt, name, label)
+        }
+    }
+
+    @JvmStatic
+    fun reset() {
+        counters.clear()
+        histograms.clear()
+        since = System.currentTimeMillis()
+    }
+
+    @JvmStatic
+    fun snapshot(): Snapshot {
+        return Snapshot(
+            isEnabled,
+            since,
+            System.currentTimeMillis(),
+            counters.mapValues { it.value.get() }.toSortedMap(),
+            histograms.mapValues { it.value.snapshot() }.toSortedMap())
+    }
+
+    @JvmStatic
+    fun toJson(): String {
+        return GsonBuilder().setPrettyPrinting().create().toJson(snapshot())
+    }
+
+    private fun key(name: String, label: String?): String {
+        return if (label != null) "$name[$label]" else name
+    }
+
+    data class Snapshot(
+        val enabled: Boolean,
+        val since: Long,
+        val takenAt: Long,
+        val counters: Map<String, Long>,
+        val histograms: Map<String, HistogramSnapshot>)
+
+    /**
+     * Percentiles are upper bounds of the buckets they fall in.
+     *
+     * @property buckets number of values per bucket, keyed by bucket's upper bound
+     */
+    data class HistogramSnapshot(
+        val count: Long,
+        val sum: Long,
+        val min: Long,
+        val max: Long,
+        val mean: Long,
+        val p50: Long,
+        val p90: Long,
+        val p99: Long,
+        val buckets: Map<Long, Long>)
+
+    /**
+     * Values are counted in buckets with upper bounds 0, 1, 2, 4, 8 and so on.
+     */
+    private class Histogram {
+        private val buckets = LongArray(BUCKETS)
+
+        private var count = 0L
+        private var sum = 0L
+        private var min = Long.MAX_VALUE
+        private var max = Long.MIN_VALUE
+
+        @Synchronized
+        fun add(value: Long) {
+            buckets[bucket(value)]++
+
+            count++
+            sum += value
+            if (value < min) min = value
+            if (value > max) max = value
+        }
+
+        @Synchronized
+        fun snapshot(): HistogramSnapshot {
+            return HistogramSnapshot(
+                count,
+                sum,
+                min,
+                max,
+                if (count > 0) sum / count else 0,
+                percentile(50),
+                percentile(90),
+                percentile(99),
+                buckets.indices
+                    .filter { buckets[it] > 0 }
+                    .associate { upperBound(it) to buckets[it] })
+        }
+
+        private fun percentile(p: Int): Long {
+            val rank = (count * p + 99) / 100
+
+            var seen = 0L
+            for (i in buckets.indices) {
+                seen += buckets[i]
+                if (seen >= rank) {
+                    return minOf(upperBound(i), max)
+                }
+            }
+
+            return max
+        }
+
+        private fun bucket(value: Long): Int {
+            return if (value <= 0) 0 else minOf(64 - java.lang.Long.numberOfLeadingZeros(value - 1) + 1, BUCKETS - 1)
+        }
+
+        private fun upperBound(bucket: Int): Long {
+            return if (bucket == 0) 0 else 1L shl (bucket - 1)
+        }
+
+        companion object {
+            private const val BUCKETS = 64
+        }
+    }
+}
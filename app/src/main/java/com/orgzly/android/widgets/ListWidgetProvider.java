@@ -119,6 +119,7 @@ public class ListWidgetProvider extends AppWidgetProvider {
                 // Logo - open query
                 Intent openIntent = Intent.makeRestartActivityTask(new ComponentName(context, MainActivity.class));
                 openIntent.putExtra(AppIntent.EXTRA_QUERY_STRING, savedSearch.getQuery());
+                openIntent.putExtra(AppIntent.EXTRA_SAVED_SEARCH_ID, savedSearch.getId());
                 openIntent.setData(Uri.parse(serviceIntent.toUri(Intent.URI_INTENT_SCHEME)));
                 remoteViews.setOnClickPendingIntent(R.id.list_widget_header_logo, PendingIntent.getActivity(context, 0, openIntent, ActivityUtils.immutable(PendingIntent.FLAG_UPDATE_CURRENT)));
 
@@ -224,15 +225,18 @@ public class ListWidgetProvider extends AppWidgetProvider {
 
         setFilter(context, appWidgetId, savedSearchId);
 
-        // Update the list in the widget manually because notifyAppWidgetViewDataChanged triggers
-        // the current list (RemoteViewsFactory) to reload instead of the one we are switching to.
-        RemoteViewsService.RemoteViewsFactory factory = ListWidgetFactoryRegistry.getFactory(savedSearchId);
-        if (factory != null) {
-            factory.onDataSetChanged();
-        }
-
         AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-        updateAppWidgetLayout(context, appWidgetManager, appWidgetId);
+
+        App.EXECUTORS.diskIO().execute(() -> {
+            // Update the list in the widget manually because notifyAppWidgetViewDataChanged triggers
+            // the current list (RemoteViewsFactory) to reload instead of the one we are switching to.
+            RemoteViewsService.RemoteViewsFactory factory = ListWidgetFactoryRegistry.getFactory(savedSearchId);
+            if (factory != null) {
+                factory.onDataSetChanged();
+            }
+
+            updateAppWidgetLayout(context, appWidgetManager, appWidgetId);
+        });
     }
 
     private SavedSearch getSavedSearch(Context context, int appWidgetId) {
@@ -0,0 +1,149 @@
+package com.orgzly.android.widgets
+
+import android.content.Context
+import com.orgzly.BuildConfig
+import com.orgzly.android.db.dao.BookDao
+import com.orgzly.android.prefs.AppPreferences
+import com.orgzly.android.query.Condition
+import com.orgzly.android.query.Query
+import com.orgzly.android.query.QueryInterval
+import com.orgzly.android.query.QueryUtils
+import com.orgzly.android.util.LogUtils
+import com.orgzly.org.datetime.OrgInterval
+import org.joda.time.DateTime
+
+/**
+ * Remembers the state of the books (and preferences) widget's list was last built from.
+ *
+ * Only books the query can match are compared, so changes to unrelated books
+ * do not require running the query again.
+ */
+class ListWidgetResultCache(query: Query) {
+
+    /* Null if notes from any book can match the query. */
+    private val bookNames = QueryUtils.extractBookNamesRestriction(query.condition)
+
+    private val timeSensitivity = getTimeSensitivity(query)
+
+    private var stamps: Map<Long, BookDao.ChangeStamp>? = null
+
+    private var preferences: String? = null
+
+    private var day: Long = 0
+
+    @Synchronized
+    fun isUpToDate(context: Context, currentStamps: List<BookDao.ChangeStamp>): Boolean {
+        val previousStamps = stamps ?: return false
+
+        if (timeSensitivity == TimeSensitivity.ALWAYS) {
+            return false
+        }
+
+        if (timeSensitivity == TimeSensitivity.DAY && day != today()) {
+            return false
+        }
+
+        if (preferences != preferencesKey(context)) {
+            return false
+        }
+
+        val changed = changedBooks(previousStamps, currentStamps)
+
+        if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Changed books: $changed, query books: $bookNames")
+
+        return if (bookNames == null) {
+            changed.isEmpty()
+        } else {
+            changed.none { it.name in bookNames }
+        }
+    }
+
+    @Synchronized
+    fun update(context: Context, currentStamps: List<BookDao.ChangeStamp>) {
+        stamps = currentStamps.associateBy { it.id }
+        preferences = preferencesKey(context)
+        day = today()
+    }
+
+    @Synchronized
+    fun clear() {
+        stamps = null
+    }
+
+    /** Stamps of books added, removed or modified (old and new for renamed books). */
+    private fun changedBooks(
+            previous: Map<Long, BookDao.ChangeStamp>,
+            current: List<BookDao.ChangeStamp>): List<BookDao.ChangeStamp> {
+
+        val changed = mutableListOf<BookDao.ChangeStamp>()
+
+        current.forEach { stamp ->
+            val previousStamp = previous[stamp.id]
+
+            if (previousStamp != stamp) {
+                changed.add(stamp)
+                previousStamp?.let { changed.add(it) }
+            }
+        }
+
+        val currentIds = current.mapTo(HashSet()) { it.id }
+
+        previous.values.filterTo(changed) { it.id !in currentIds }
+
+        return changed
+    }
+
+    /* Values which affect the results of the query, but are not stored with the books. */
+    private fun preferencesKey(context: Context): String {
+        return listOf(
+                AppPreferences.todoKeywordsSet(context),
+                AppPreferences.doneKeywordsSet(context),
+                AppPreferences.defaultPriority(context),
+                AppPreferences.hideEmptyDaysInAgenda(context)
+        ).toString()
+    }
+
+    private fun today(): Long {
+        return DateTime.now().withTimeAtStartOfDay().millis
+    }
+
+    private enum class TimeSensitivity { NONE, DAY, ALWAYS }
+
+    companion object {
+        private val TAG = ListWidgetResultCache::class.java.name
+
+        private fun getTimeSensitivity(query: Query): TimeSensitivity {
+            val fromCondition = getTimeSensitivity(query.condition)
+
+            return if (query.isAgenda() && fromCondition == TimeSensitivity.NONE) {
+                TimeSensitivity.DAY
+            } else {
+                fromCondition
+            }
+        }
+
+        private fun getTimeSensitivity(condition: Condition?): TimeSensitivity {
+            return when (condition) {
+                is Condition.Event -> getTimeSensitivity(condition.interval)
+                is Condition.Scheduled -> getTimeSensitivity(condition.interval)
+                is Condition.Deadline -> getTimeSensitivity(condition.interval)
+                is Condition.Closed -> getTimeSensitivity(condition.interval)
+                is Condition.Created -> getTimeSensitivity(condition.interval)
+
+                is Condition.And -> condition.operands.maxOfOrNull { getTimeSensitivity(it) }
+                is Condition.Or -> condition.operands.maxOfOrNull { getTimeSensitivity(it) }
+
+                else -> null
+
+            } ?: TimeSensitivity.NONE
+        }
+
+        private fun getTimeSensitivity(interval: QueryInterval): TimeSensitivity {
+            return when {
+                interval.none -> TimeSensitivity.NONE
+                interval.now || interval.unit == OrgInterval.Unit.HOUR -> TimeSensitivity.ALWAYS
+                else -> TimeSensitivity.DAY
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.orgzly.android.ui.notes.query.agenda.AgendaItem
 import com.orgzly.android.ui.notes.query.agenda.AgendaItems
 import com.orgzly.android.ui.util.TitleGenerator
 import com.orgzly.android.util.LogUtils
+import com.orgzly.android.util.Metrics
 import com.orgzly.android.util.UserTimeFormatter
 import com.orgzly.org.datetime.OrgRange
 import org.joda.time.DateTime
@@ -72,8 +73,18 @@ class ListWidgetService : RemoteViewsService() {
             UserTimeFormatter(context)
         }
 
+        private val resultCache by lazy {
+            ListWidgetResultCache(query)
+        }
+
+        private val agendaParsedRanges = AgendaItems.ParsedRanges()
+
+        @Volatile
         private var dataList: List<WidgetEntry> = emptyList()
 
+        @Volatile
+        private var itemSettings: ItemSettings? = null
+
         override fun onCreate() {
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG)
         }
@@ -89,12 +100,28 @@ class ListWidgetService : RemoteViewsService() {
         override fun onDataSetChanged() {
             if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG)
 
-            val notes = dataRepository.selectNotesFromQuery(query)
+            Metrics.time(Metrics.WIDGET_REFRESH_MS, "search:$searchId") {
+                loadData()
+            }
+        }
+
+        private fun loadData() {
+            itemSettings = ItemSettings(context)
+
+            // Stamps are taken before running the query, so changes made meanwhile are not missed
+            val bookStamps = dataRepository.getBookChangeStamps()
+
+            if (resultCache.isUpToDate(context, bookStamps)) {
+                if (BuildConfig.LOG_DEBUG) LogUtils.d(TAG, "Reusing ${dataList.size} cached entries")
+                return
+            }
+
+            val notes = dataRepository.selectNotesFromQuery(query, 0, searchId)
 
             if (query.isAgenda()) {
                 val idMap = mutableMapOf<Long, Long>()
                 val hideEmptyDaysInAgenda = AppPreferences.hideEmptyDaysInAgenda(context)
-                val agendaItems = AgendaItems(hideEmptyDaysInAgenda).getList(notes, query, idMap)
+                val agendaItems = AgendaItems(hideEmptyDaysInAgenda, agendaParsedRanges).getList(notes, query, idMap)
 
                 dataList = agendaItems.map {
                     when (it) {
@@ -109,6 +136,8 @@ class ListWidgetService : RemoteViewsService() {
                     WidgetEntry.Note(it.note.id, it)
                 }
             }
+
+            resultCache.update(context, bookStamps)
         }
 
         override fun hasStableIds(): Boolean {
@@ -123,23 +152,25 @@ class ListWidgetService : RemoteViewsService() {
                 return null
             }
 
+            val settings = itemSettings ?: ItemSettings(context).also { itemSettings = it }
+
             return when (val entry = dataList[position]) {
                 is WidgetEntry.Overdue ->
                     RemoteViews(context.packageName, R.layout.item_list_widget_divider).apply {
                         setupRemoteViews(this)
-                        WidgetStyle.updateDivider(this, context)
+                        WidgetStyle.updateDivider(this, context, settings.style)
                     }
 
                 is WidgetEntry.Day ->
                     RemoteViews(context.packageName, R.layout.item_list_widget_divider).apply {
                         setupRemoteViews(this, entry)
-                        WidgetStyle.updateDivider(this, context)
+                        WidgetStyle.updateDivider(this, context, settings.style)
                     }
 
                 is WidgetEntry.Note ->
                     RemoteViews(context.packageName, R.layout.item_list_widget).apply {
-                        setupRemoteViews(this, entry)
-                        WidgetStyle.updateNote(this, context)
+                        setupRemoteViews(this, entry, settings)
+                        WidgetStyle.updateNote(this, context, settings.style)
                     }
             }
         }
@@ -169,16 +200,15 @@ class ListWidgetService : RemoteViewsService() {
                     userTimeFormatter.formatDate(entry.day))
         }
 
-        private fun setupRemoteViews(row: RemoteViews, entry: WidgetEntry.Note) {
+        private fun setupRemoteViews(row: RemoteViews, entry: WidgetEntry.Note, settings: ItemSettings) {
             val noteView = entry.noteView
 
-            val displayPlanningTimes = AppPreferences.displayPlanning(context)
-            val displayBookName = AppPreferences.widgetDisplayBookName(context)
-            val doneStates = AppPreferences.doneKeywordsSet(context)
+            val displayPlanningTimes = settings.displayPlanningTimes
+            val displayBookName = settings.displayBookName
+            val doneStates = settings.doneStates
 
             // Title (colors depend on current theme)
-            val titleGenerator = TitleGenerator(context, false, WidgetStyle.getTitleAttributes(context))
-            row.setTextViewText(R.id.item_list_widget_title, titleGenerator.generateTitle(noteView))
+            row.setTextViewText(R.id.item_list_widget_title, settings.titleGenerator.generateTitle(noteView))
 
             // Notebook name
             if (displayBookName) {
@@ -248,7 +278,7 @@ class ListWidgetService : RemoteViewsService() {
 
 
             // Check mark
-            if (!AppPreferences.widgetDisplayCheckmarks(context) || doneStates.contains(noteView.note.state)) {
+            if (!settings.displayCheckmarks || doneStates.contains(noteView.note.state)) {
                 row.setViewVisibility(R.id.item_list_widget_done, View.GONE)
             } else {
                 row.setViewVisibility(R.id.item_list_widget_done, View.VISIBLE)
@@ -269,6 +299,18 @@ class ListWidgetService : RemoteViewsService() {
         }
     }
 
+    /** Preferences used for every list item, read once per list refresh. */
+    private class ItemSettings(context: Context) {
+        val style = WidgetStyle.ListItemStyle(context)
+
+        val displayPlanningTimes = AppPreferences.displayPlanning(context)
+        val displayBookName = AppPreferences.widgetDisplayBookName(context)
+        val displayCheckmarks = AppPreferences.widgetDisplayCheckmarks(context)
+        val doneStates: Set<String> = AppPreferences.doneKeywordsSet(context)
+
+        val titleGenerator = TitleGenerator(context, false, style.titleAttributes)
+    }
+
     companion object {
         private val TAG = ListWidgetService::class.java.name
     }
@@ -124,21 +124,35 @@ object WidgetStyle {
             headerTextSize(context))
     }
 
-    @JvmStatic
-    fun updateDivider(remoteViews: RemoteViews, context: Context) {
-        val scheme = AppPreferences.widgetColorScheme(context)
+    /**
+     * Style attributes used by list items.
+     * Resolved once per list refresh instead of for every item.
+     */
+    class ListItemStyle(context: Context) {
+        val colorScheme: String = AppPreferences.widgetColorScheme(context)
+
+        val titleTextSize = titleTextSize(context)
+
+        val postTitleTextSize = postTitleTextSize(context)
+
+        val doneIconAlpha = doneIconAlpha(colorScheme)
 
-        setTextColor(context, scheme, remoteViews, R.id.widget_list_item_divider_value)
+        val titleAttributes = getTitleAttributes(context, colorScheme)
+    }
+
+    @JvmStatic
+    fun updateDivider(remoteViews: RemoteViews, context: Context, style: ListItemStyle) {
+        setTextColor(context, style.colorScheme, remoteViews, R.id.widget_list_item_divider_value)
 
         remoteViews.setTextViewTextSize(
             R.id.widget_list_item_divider_value,
             TypedValue.COMPLEX_UNIT_PX,
-            titleTextSize(context))
+            style.titleTextSize)
     }
 
     @JvmStatic
-    fun updateNote(remoteViews: RemoteViews, context: Context) {
-        val colorScheme = AppPreferences.widgetColorScheme(context)
+    fun updateNote(remoteViews: RemoteViews, context: Context, style: ListItemStyle) {
+        val colorScheme = style.colorScheme
 
         setTextColor(context, colorScheme, remoteViews, R.id.item_list_widget_title)
         setColorFilter(context, colorScheme, remoteViews, R.id.item_list_widget_book_icon)
@@ -156,40 +170,38 @@ object WidgetStyle {
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_title,
             TypedValue.COMPLEX_UNIT_PX,
-            titleTextSize(context))
+            style.titleTextSize)
 
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_book_text,
             TypedValue.COMPLEX_UNIT_PX,
-            postTitleTextSize(context))
+            style.postTitleTextSize)
 
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_scheduled_text,
             TypedValue.COMPLEX_UNIT_PX,
-            postTitleTextSize(context))
+            style.postTitleTextSize)
 
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_deadline_text,
             TypedValue.COMPLEX_UNIT_PX,
-            postTitleTextSize(context))
+            style.postTitleTextSize)
 
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_event_text,
             TypedValue.COMPLEX_UNIT_PX,
-            postTitleTextSize(context))
+            style.postTitleTextSize)
 
         remoteViews.setTextViewTextSize(
             R.id.item_list_widget_closed_text,
             TypedValue.COMPLEX_UNIT_PX,
-            postTitleTextSize(context))
+            style.postTitleTextSize)
 
         remoteViews.setInt(
-            R.id.item_list_widget_done, "setAlpha", doneIconAlpha(context))
+            R.id.item_list_widget_done, "setAlpha", style.doneIconAlpha)
     }
 
-    @JvmStatic
-    fun getTitleAttributes(context: Context): TitleGenerator.TitleAttributes {
-        val scheme = AppPreferences.widgetColorScheme(context)
+    private fun getTitleAttributes(context: Context, scheme: String): TitleGenerator.TitleAttributes {
         val dayNight = context.getString(R.string.day_night)
 
         val stateColorsKey = if (scheme == "dynamic") {
@@ -228,8 +240,8 @@ object WidgetStyle {
         }
     }
 
-    private fun doneIconAlpha(context: Context): Int {
-        return when (AppPreferences.widgetColorScheme(context)) {
+    private fun doneIconAlpha(colorScheme: String): Int {
+        return when (colorScheme) {
             "dark", "black" -> 0xB3 // 70%
             else -> 0x8C // 55%
         }
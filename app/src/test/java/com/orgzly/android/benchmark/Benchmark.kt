@@ -0,0 +1,88 @@
+package com.orgzly.android.benchmark
+
+/**
+ * Runs and measures benchmarked code.
+ *
+ * Benchmarks are skipped unless tests are run with `-Pbenchmark`,
+ * see `testOptions` in app's build.gradle.
+ */
+object Benchmark {
+    @JvmStatic
+    val isEnabled: Boolean
+        get() = System.getProperty("orgzly.benchmark")?.toBoolean() == true
+
+    /**
+     * Sizes to benchmark with, from the comma-separated system property [name] if set.
+     */
+    @JvmStatic
+    fun sizes(name: String, default: List<Int>): List<Int> {
+        return System.getProperty(name)
+                ?.split(",")
+                ?.mapNotNull { it.trim().toIntOrNull() }
+                ?.takeIf { it.isNotEmpty() }
+                ?: default
+    }
+
+    /**
+     * Runs [block] [warmUps] times without measuring, then [runs] times measuring
+     * wall time and memory allocated by the current thread.
+     *
+     * [setUp] is called before each run and is not measured.
+     *
+     * @param items number of items (headings, notes, ...) processed by one run
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun measure(
+            name: String,
+            items: Int,
+            warmUps: Int = 1,
+            runs: Int = 3,
+            setUp: () -> Unit = {},
+            block: () -> Unit): BenchmarkResult {
+
+        repeat(warmUps) {
+            setUp()
+            block()
+        }
+
+        val times = mutableListOf<Long>()
+        val allocations = mutableListOf<Long>()
+
+        repeat(runs) {
+            setUp()
+
+            val allocatedAtStart = allocatedBytes()
+            val startedAt = System.nanoTime()
+
+            block()
+
+            times.add(System.nanoTime() - startedAt)
+            allocations.add(allocatedBytes() - allocatedAtStart)
+        }
+
+        return BenchmarkResult(name, items, median(times), median(allocations))
+    }
+
+    private fun median(values: List<Long>): Long {
+        return values.sorted()[values.size / 2]
+    }
+
+    /*
+     * Bytes allocated by the current thread so far, or 0 if not supported by the JVM.
+     * Looked up with reflection, as java.lang.management is not in android.jar.
+     */
+    private val allocatedBytes: () -> Long = try {
+        val bean = Class.forName("java.lang.management.ManagementFactory")
+                .getMethod("getThreadMXBean")
+                .invoke(null)
+
+        val method = Class.forName("com.sun.management.ThreadMXBean")
+                .getMethod("getThreadAllocatedBytes", Long::class.javaPrimitiveType)
+
+        { method.invoke(bean, Thread.currentThread().id) as Long }
+
+    } catch (e: Exception) {
+        { 0L }
+    }
+}
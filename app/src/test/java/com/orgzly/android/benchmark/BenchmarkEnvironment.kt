@@ -0,0 +1,44 @@
+package com.orgzly.android.benchmark
+
+import android.content.Context
+import androidx.room.RoomDatabase
+import com.orgzly.android.LocalStorage
+import com.orgzly.android.data.DataRepository
+import com.orgzly.android.data.DbRepoBookRepository
+import com.orgzly.android.db.OrgzlyDatabase
+import com.orgzly.android.repos.RepoFactory
+import java.io.Closeable
+import java.io.File
+
+/**
+ * Repository over an in-memory database, with a temporary directory for files.
+ *
+ * @param queryCallback called for every executed statement
+ */
+class BenchmarkEnvironment(
+        val context: Context,
+        queryCallback: RoomDatabase.QueryCallback? = null) : Closeable {
+
+    val db: OrgzlyDatabase = OrgzlyDatabase.forMemory(context, queryCallback)
+
+    val dataRepository = DataRepository(
+            context,
+            db,
+            RepoFactory(context, DbRepoBookRepository(db)),
+            context.resources,
+            LocalStorage(context))
+
+    val tmpDir: File = kotlin.io.path.createTempDirectory("orgzly-benchmark-").toFile()
+
+    /** Rows inserted, updated or deleted since the database was opened. */
+    fun totalChanges(): Long {
+        return db.query("SELECT total_changes()", null).use { cursor ->
+            if (cursor.moveToFirst()) cursor.getLong(0) else 0
+        }
+    }
+
+    override fun close() {
+        db.close()
+        tmpDir.deleteRecursively()
+    }
+}
@@ -0,0 +1,89 @@
+package com.orgzly.android.benchmark
+
+import com.google.gson.GsonBuilder
+import com.google.gson.reflect.TypeToken
+import org.junit.Assert.fail
+import java.io.File
+
+/**
+ * Results of a benchmark suite.
+ *
+ * Results are printed and written to `<name>.json` in the `orgzly.benchmark.output` directory.
+ * If the same file exists in the `orgzly.benchmark.baseline` directory (`-PbenchmarkBaseline`),
+ * results which are slower per item than the baseline by more than
+ * the `orgzly.benchmark.tolerance` fraction (`-PbenchmarkTolerance`, 0.25 by default) fail the suite.
+ */
+class BenchmarkReport(private val name: String) {
+
+    private val results = mutableListOf<BenchmarkResult>()
+
+    /* Additional text output, like query plans. */
+    private val notes = StringBuilder()
+
+    fun add(result: BenchmarkResult): BenchmarkResult {
+        println("[$name] $result")
+        results.add(result)
+        return result
+    }
+
+    fun addNote(title: String, text: String) {
+        println("[$name] $title\n$text")
+        notes.append("# ").append(title).append("\n").append(text).append("\n\n")
+    }
+
+    /**
+     * Writes results and fails if any of them regressed compared to the baseline.
+     */
+    fun finish() {
+        val gson = GsonBuilder().setPrettyPrinting().create()
+
+        outputDir()?.let { dir ->
+            dir.mkdirs()
+
+            File(dir, "$name.json").writeText(gson.toJson(results))
+
+            if (notes.isNotEmpty()) {
+                File(dir, "$name.txt").writeText(notes.toString())
+            }
+        }
+
+        val baselineFile = baselineDir()?.let { File(it, "$name.json") }
+
+        if (baselineFile == null || !baselineFile.exists()) {
+            return
+        }
+
+        val type = object : TypeToken<List<BenchmarkResult>>() {}.type
+        val baseline: List<BenchmarkResult> = gson.fromJson(baselineFile.readText(), type)
+        val baselineByName = baseline.associateBy { it.name }
+
+        val regressions = results.mapNotNull { result ->
+            val previous = baselineByName[result.name] ?: return@mapNotNull null
+
+            val ratio = result.nanosPerItem / previous.nanosPerItem
+
+            if (ratio > 1 + tolerance()) {
+                String.format("%s: %.1f us/item, baseline %.1f us/item (%+.0f%%)",
+                        result.name, result.nanosPerItem / 1e3, previous.nanosPerItem / 1e3, (ratio - 1) * 100)
+            } else {
+                null
+            }
+        }
+
+        if (regressions.isNotEmpty()) {
+            fail("Regressions in $name compared to $baselineFile:\n" + regressions.joinToString("\n"))
+        }
+    }
+
+    private fun outputDir(): File? {
+        return System.getProperty("orgzly.benchmark.output")?.takeIf { it.isNotEmpty() }?.let { File(it) }
+    }
+
+    private fun baselineDir(): File? {
+        return System.getProperty("orgzly.benchmark.baseline")?.takeIf { it.isNotEmpty() }?.let { File(it) }
+    }
+
+    private fun tolerance(): Double {
+        return System.getProperty("orgzly.benchmark.tolerance")?.toDoubleOrNull() ?: 0.25
+    }
+}
@@ -0,0 +1,39 @@
+package com.orgzly.android.benchmark
+
+/**
+ * Median time and allocation of a benchmark run.
+ *
+ * @property counters other values recorded for the run, like statements executed
+ */
+data class BenchmarkResult(
+        val name: String,
+        val items: Int,
+        val nanos: Long,
+        val allocatedBytes: Long,
+        val counters: Map<String, Long> = emptyMap()) {
+
+    val nanosPerItem: Double
+        get() = nanos.toDouble() / items.coerceAtLeast(1)
+
+    val itemsPerSecond: Double
+        get() = if (nanos > 0) items * 1e9 / nanos else 0.0
+
+    val bytesPerItem: Double
+        get() = allocatedBytes.toDouble() / items.coerceAtLeast(1)
+
+    fun withCounters(counters: Map<String, Long>): BenchmarkResult {
+        return copy(counters = this.counters + counters)
+    }
+
+    override fun toString(): String {
+        return String.format(
+                "%-40s %8d items %10.1f ms %12.0f items/s %10.1f us/item %10.0f B/item%s",
+                name,
+                items,
+                nanos / 1e6,
+                itemsPerSecond,
+                nanosPerItem / 1e3,
+                bytesPerItem,
+                if (counters.isNotEmpty()) " $counters" else "")
+    }
+}
@@ -0,0 +1,87 @@
+package com.orgzly.android.benchmark
+
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.orgzly.android.BookFormat
+import com.orgzly.android.NotesOrgExporter
+import com.orgzly.android.util.Encoding
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+import java.io.Writer
+
+/**
+ * Detecting encoding of, importing and exporting synthetic notebooks.
+ *
+ * Heading counts can be set with `-Dorgzly.benchmark.headings=1000,10000`.
+ */
+@RunWith(AndroidJUnit4::class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class ImportExportBenchmark {
+
+    private lateinit var env: BenchmarkEnvironment
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled)
+
+        env = BenchmarkEnvironment(ApplicationProvider.getApplicationContext())
+    }
+
+    @After
+    fun tearDown() {
+        if (this::env.isInitialized) {
+            env.close()
+        }
+    }
+
+    @Test
+    fun importExport() {
+        val report = BenchmarkReport("import-export")
+
+        for (headings in Benchmark.sizes("orgzly.benchmark.headings", listOf(1_000, 10_000, 50_000))) {
+            val file = File(env.tmpDir, "book-$headings.org")
+
+            SyntheticOrg(headings).writeTo(file)
+
+            report.add(Benchmark.measure("detect-encoding-$headings", headings) {
+                Encoding.detect(file.path, null)
+            })
+
+            report.add(Benchmark.measure("import-$headings", headings) {
+                env.dataRepository.loadBookFromFile("book-$headings", BookFormat.ORG, file)
+            })
+
+            val bookView = env.dataRepository.getBookView("book-$headings")!!
+
+            assertEquals(headings, bookView.noteCount)
+
+            report.add(Benchmark.measure("export-$headings", headings) {
+                NotesOrgExporter(env.dataRepository).exportBook(bookView.book, NullWriter())
+            })
+
+            // Same variety of headings, but without timestamps, properties and drawers
+            val plainFile = File(env.tmpDir, "plain-$headings.org")
+
+            SyntheticOrg(headings, timestampsEvery = 0, properties = 0, drawersEvery = 0).writeTo(plainFile)
+
+            report.add(Benchmark.measure("import-plain-$headings", headings) {
+                env.dataRepository.loadBookFromFile("plain-$headings", BookFormat.ORG, plainFile)
+            })
+        }
+
+        report.finish()
+    }
+
+    /* Discards exported content, so only exporting is measured. */
+    private class NullWriter : Writer() {
+        override fun write(cbuf: CharArray, off: Int, len: Int) {}
+        override fun flush() {}
+        override fun close() {}
+    }
+}
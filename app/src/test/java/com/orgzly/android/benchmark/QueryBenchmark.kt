@@ -0,0 +1,114 @@
+package com.orgzly.android.benchmark
+
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.orgzly.android.BookFormat
+import com.orgzly.android.query.user.InternalQueryParser
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+
+/**
+ * Running typical searches over databases with increasing number of notes.
+ * Query plan of each search is recorded with the results.
+ *
+ * Note counts can be set with `-Dorgzly.benchmark.notes=10000,100000`.
+ */
+@RunWith(AndroidJUnit4::class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class QueryBenchmark {
+
+    private var env: BenchmarkEnvironment? = null
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled)
+    }
+
+    @After
+    fun tearDown() {
+        env?.close()
+    }
+
+    @Test
+    fun queries() {
+        val report = BenchmarkReport("queries")
+
+        for (notes in Benchmark.sizes("orgzly.benchmark.notes", listOf(10_000, 100_000, 500_000))) {
+            env?.close()
+
+            val env = BenchmarkEnvironment(ApplicationProvider.getApplicationContext()).also {
+                this.env = it
+            }
+
+            seed(env, notes)
+
+            QUERIES.forEach { queryString ->
+                val query = InternalQueryParser().parse(queryString)
+
+                var count = 0
+
+                val result = Benchmark.measure("$notes: $queryString", notes) {
+                    count = env.dataRepository.selectNotesFromQuery(query).size
+                }
+
+                report.add(result.withCounters(mapOf("rows" to count.toLong())))
+
+                report.addNote(
+                        "$notes: $queryString",
+                        env.dataRepository.explainNotesQuery(query).joinToString("\n"))
+            }
+        }
+
+        report.finish()
+    }
+
+    /* Imports books with the total of [notes] notes. */
+    private fun seed(env: BenchmarkEnvironment, notes: Int) {
+        val startedAt = System.currentTimeMillis()
+
+        var remaining = notes
+        var book = 1
+
+        while (remaining > 0) {
+            val headings = minOf(remaining, NOTES_PER_BOOK)
+
+            val file = File(env.tmpDir, "book-$book.org")
+
+            SyntheticOrg(headings, seed = book.toLong()).writeTo(file)
+
+            env.dataRepository.loadBookFromFile("book-$book", BookFormat.ORG, file)
+
+            file.delete()
+
+            remaining -= headings
+            book++
+        }
+
+        // Agenda uses generated occurrences when they are available
+        env.dataRepository.updateAgendaOccurrences()
+
+        println("Seeded $notes notes in ${book - 1} books in ${System.currentTimeMillis() - startedAt} ms")
+    }
+
+    companion object {
+        private const val NOTES_PER_BOOK = 5_000
+
+        private val QUERIES = listOf(
+                "t.work",
+                "bravo",
+                "\"Heading 1234\"",
+                "s.today",
+                "ad.7",
+                "b.book-1 i.todo",
+                "i.todo o.p o.s",
+                ".it.done t.project o.d o.b",
+                "pr.prop_1.value-100",
+                "i.todo o.t limit.50"
+        )
+    }
+}
@@ -0,0 +1,87 @@
+package com.orgzly.android.benchmark
+
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.orgzly.android.BookFormat
+import com.orgzly.android.prefs.AppPreferences
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+
+/**
+ * Marking many repeating notes done at once, as from a multi-selection.
+ *
+ * Habits share a few distinct scheduled times, so most of them shift the same way.
+ * Note counts can be set with `-Dorgzly.benchmark.notes`.
+ */
+@RunWith(AndroidJUnit4::class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class StateChangeBenchmark {
+
+    private lateinit var env: BenchmarkEnvironment
+
+    private var statements = 0L
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled)
+
+        val queryCallback = RoomDatabase.QueryCallback { _, _ -> statements++ }
+
+        env = BenchmarkEnvironment(ApplicationProvider.getApplicationContext(), queryCallback)
+    }
+
+    @After
+    fun tearDown() {
+        if (this::env.isInitialized) {
+            env.close()
+        }
+    }
+
+    @Test
+    fun markHabitsDone() {
+        val report = BenchmarkReport("state-change")
+
+        for (notes in Benchmark.sizes("orgzly.benchmark.notes", listOf(100, 500))) {
+            val file = File(env.tmpDir, "habits.org")
+
+            val days = listOf("2018-04-10 Tue", "2018-04-11 Wed", "2018-04-12 Thu", "2018-04-13 Fri")
+
+            file.writeText((1..notes).joinToString("") { i ->
+                "* TODO Habit $i\nSCHEDULED: <${days[i % days.size]} +1d>\n:PROPERTIES:\n:STYLE: habit\n:END:\n"
+            })
+
+            for (logOnTimeShift in listOf(false, true)) {
+                AppPreferences.logOnTimeShift(env.context, logOnTimeShift)
+
+                lateinit var ids: Set<Long>
+
+                var statementsAtStart = 0L
+
+                val name = "$notes: done" + if (logOnTimeShift) " with logbook" else ""
+
+                val result = Benchmark.measure(name, notes, setUp = {
+                    env.dataRepository.loadBookFromFile("habits", BookFormat.ORG, file)
+
+                    ids = env.dataRepository.getNotes("habits")
+                            .filter { it.note.position.level > 0 }
+                            .map { it.note.id }
+                            .toSet()
+
+                    statementsAtStart = statements
+                }) {
+                    env.dataRepository.setNotesState(ids, "DONE")
+                }
+
+                report.add(result.withCounters(mapOf("statements" to statements - statementsAtStart)))
+            }
+        }
+
+        report.finish()
+    }
+}
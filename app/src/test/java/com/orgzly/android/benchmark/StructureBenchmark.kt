@@ -0,0 +1,145 @@
+package com.orgzly.android.benchmark
+
+import androidx.room.RoomDatabase
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.orgzly.android.BookFormat
+import com.orgzly.android.db.NotesClipboard
+import com.orgzly.android.db.entity.Note
+import com.orgzly.android.ui.NotePlace
+import com.orgzly.android.ui.Place
+import org.junit.After
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.SQLiteMode
+import java.io.File
+
+/**
+ * Structural changes of notes at the top, in the middle and at the bottom
+ * of books with increasing number of notes.
+ *
+ * Besides time, records the number of executed statements and changed rows (including
+ * changes made by triggers). Heading counts can be set with `-Dorgzly.benchmark.headings`.
+ */
+@RunWith(AndroidJUnit4::class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class StructureBenchmark {
+
+    private enum class Position { TOP, MIDDLE, BOTTOM }
+
+    /* Notes to run an operation on, found after the book is loaded. */
+    private class Targets(val bookId: Long, val note: Note, val child: Note, val targetBookId: Long)
+
+    private lateinit var env: BenchmarkEnvironment
+
+    private var statements = 0L
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled)
+
+        val queryCallback = RoomDatabase.QueryCallback { _, _ -> statements++ }
+
+        env = BenchmarkEnvironment(ApplicationProvider.getApplicationContext(), queryCallback)
+    }
+
+    @After
+    fun tearDown() {
+        if (this::env.isInitialized) {
+            NotesClipboard.clear()
+            env.close()
+        }
+    }
+
+    @Test
+    fun structuralChanges() {
+        val report = BenchmarkReport("structure")
+
+        val operations = mapOf<String, (Targets) -> Unit>(
+                "move" to { t ->
+                    env.dataRepository.moveNote(t.bookId, setOf(t.note.id), 1)
+                },
+                "promote" to { t ->
+                    env.dataRepository.promoteNotes(setOf(t.child.id))
+                },
+                "demote" to { t ->
+                    env.dataRepository.demoteNotes(setOf(t.note.id))
+                },
+                "paste" to { t ->
+                    env.dataRepository.pasteNotes(NotesClipboard.load(), t.bookId, t.note.id, Place.BELOW)
+                },
+                "refile" to { t ->
+                    env.dataRepository.refileNotes(setOf(t.note.id), NotePlace(t.targetBookId))
+                },
+                "delete" to { t ->
+                    env.dataRepository.deleteNotes(t.bookId, setOf(t.note.id))
+                }
+        )
+
+        for (headings in Benchmark.sizes("orgzly.benchmark.headings", listOf(1_000, 10_000))) {
+            val file = File(env.tmpDir, "book.org")
+
+            SyntheticOrg(headings).writeTo(file)
+
+            for (position in Position.values()) {
+                for ((name, operation) in operations) {
+                    lateinit var targets: Targets
+
+                    var statementsAtStart = 0L
+                    var changesAtStart = 0L
+
+                    val result = Benchmark.measure("$headings: $name ${position.name.lowercase()}", 1, setUp = {
+                        targets = loadBook(file, position)
+
+                        if (name == "paste") {
+                            NotesClipboard.save(env.dataRepository, setOf(targets.note.id))
+                        }
+
+                        statementsAtStart = statements
+                        changesAtStart = env.totalChanges()
+                    }) {
+                        operation(targets)
+                    }
+
+                    // Counted for the last run
+                    val counters = mapOf(
+                            "statements" to statements - statementsAtStart,
+                            "rows" to env.totalChanges() - changesAtStart)
+
+                    report.add(result.withCounters(counters))
+                }
+            }
+        }
+
+        report.finish()
+    }
+
+    /* Loads the book again, returning notes at the position. */
+    private fun loadBook(file: File, position: Position): Targets {
+        val bookId = env.dataRepository.loadBookFromFile("book", BookFormat.ORG, file)!!.book.id
+
+        // Empty book to refile to
+        val targetFile = File(env.tmpDir, "target.org").apply { writeText("") }
+        val targetBookId = env.dataRepository.loadBookFromFile("target", BookFormat.ORG, targetFile)!!.book.id
+
+        val notes = env.dataRepository.getNotes("book").map { it.note }
+
+        val topLevel = notes.filter { it.position.level == 1 }
+
+        // Not the first one, so it can be demoted
+        val note = when (position) {
+            Position.TOP -> topLevel[1]
+            Position.MIDDLE -> topLevel[topLevel.size / 2]
+            Position.BOTTOM -> topLevel[topLevel.size - 2]
+        }
+
+        // Note with a parent, closest to the position
+        val child = notes
+                .filter { it.position.level > 1 }
+                .minByOrNull { Math.abs(it.position.lft - note.position.lft) }!!
+
+        return Targets(bookId, note, child, targetBookId)
+    }
+}
@@ -0,0 +1,293 @@
+package com.orgzly.android.benchmark
+
+import android.content.Context
+import android.net.Uri
+import androidx.core.net.toUri
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.orgzly.android.BookFormat
+import com.orgzly.android.data.DataRepository
+import com.orgzly.android.db.entity.BookAction
+import com.orgzly.android.db.entity.Repo
+import com.orgzly.android.git.GitPreferencesFromRepoPrefs
+import com.orgzly.android.prefs.AppPreferences
+import com.orgzly.android.prefs.RepoPreferences
+import com.orgzly.android.repos.GitRepo
+import com.orgzly.android.repos.RepoType
+import com.orgzly.android.repos.RepoWithProps
+import com.orgzly.android.repos.TwoWaySyncRepo
+import com.orgzly.android.repos.WebdavRepo
+import com.orgzly.android.sync.SyncTimings
+import com.orgzly.android.sync.SyncUtils
+import com.orgzly.android.sync.measure
+import io.github.atetzner.webdav.server.MiltonWebDAVFileServer
+import org.eclipse.jgit.api.Git
+import org.junit.Assert.assertNotEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.SQLiteMode
+import java.io.Closeable
+import java.io.File
+
+/**
+ * Syncing books with local stand-ins for each kind of repository: a directory,
+ * a bare git repository, an embedded WebDAV server and the database (mock) repository.
+ *
+ * For N books, measures the initial upload, a sync with nothing to do, and syncs
+ * after M books were modified locally or remotely. Time spent in each sync phase
+ * is recorded as counters. Sizes can be set with `-Dorgzly.benchmark.books`,
+ * `-Dorgzly.benchmark.changed` and `-Dorgzly.benchmark.headings` (per book).
+ *
+ * The mock repository sleeps to simulate the network, so its listing,
+ * download and upload times are mostly those delays.
+ */
+@RunWith(AndroidJUnit4::class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+class SyncBenchmark {
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    @Before
+    fun setUp() {
+        assumeTrue(Benchmark.isEnabled)
+    }
+
+    @Test
+    fun directoryRepo() {
+        benchmark(RepoType.DIRECTORY) { env -> DirectoryRemote(env) }
+    }
+
+    @Test
+    fun gitRepo() {
+        benchmark(RepoType.GIT) { env -> GitRemote(env) }
+    }
+
+    @Test
+    fun webdavRepo() {
+        benchmark(RepoType.WEBDAV) { env -> WebdavRemote(env) }
+    }
+
+    @Test
+    fun databaseRepo() {
+        benchmark(RepoType.MOCK) { env -> DatabaseRemote(env) }
+    }
+
+    private fun benchmark(type: RepoType, createRemote: (BenchmarkEnvironment) -> Remote) {
+        val report = BenchmarkReport("sync-${type.name.lowercase()}")
+
+        val headings = Benchmark.sizes("orgzly.benchmark.headings", listOf(200)).first()
+
+        for (books in Benchmark.sizes("orgzly.benchmark.books", listOf(10, 50))) {
+            for (changed in Benchmark.sizes("orgzly.benchmark.changed", listOf(1, 10)).filter { it <= books }) {
+                BenchmarkEnvironment(context).use { env ->
+                    createRemote(env).use { remote ->
+                        benchmark(report, env, type, remote, books, changed, headings)
+                    }
+                }
+            }
+        }
+
+        report.finish()
+    }
+
+    private fun benchmark(
+            report: BenchmarkReport,
+            env: BenchmarkEnvironment,
+            type: RepoType,
+            remote: Remote,
+            books: Int,
+            changed: Int,
+            headings: Int) {
+
+        val dataRepository = env.dataRepository
+
+        val repoId = dataRepository.createRepo(RepoWithProps(Repo(0, type, remote.url), remote.props))
+
+        remote.connect(Repo(repoId, type, remote.url))
+
+        for (i in 1..books) {
+            val file = File(env.tmpDir, "book-$i.org")
+            SyntheticOrg(headings, seed = i.toLong()).writeTo(file)
+            dataRepository.loadBookFromFile("book-$i", BookFormat.ORG, file)
+        }
+
+        val changedBooks = (1..changed).map { "book-$it" }
+
+        // First note of each book to modify locally
+        val noteIds = changedBooks.map { dataRepository.getNotes(it).first().note.id }
+
+        report.add(measureSync(dataRepository, "$books books: upload", books, runs = 1))
+
+        report.add(measureSync(dataRepository, "$books books: unchanged", books))
+
+        report.add(measureSync(dataRepository, "$books books: $changed local", changed) { run ->
+            dataRepository.setNotesState(noteIds.toSet(), if (run % 2 == 0) "DONE" else "TODO")
+        })
+
+        report.add(measureSync(dataRepository, "$books books: $changed remote", changed) { run ->
+            remote.change(changedBooks.associate { name ->
+                "$name.org" to SyntheticOrg(headings, seed = 1000L * (run + 1) + name.hashCode())
+            })
+        })
+    }
+
+    /* Phases are counted for the last run. */
+    private fun measureSync(
+            dataRepository: DataRepository,
+            name: String,
+            items: Int,
+            runs: Int = 3,
+            before: (Int) -> Unit = {}): BenchmarkResult {
+
+        var timings = SyncTimings()
+        var run = 0
+
+        val result = Benchmark.measure(name, items, warmUps = 0, runs = runs, setUp = {
+            before(run++)
+            timings = SyncTimings()
+        }) {
+            sync(dataRepository, timings)
+        }
+
+        val counters = timings.toMap().entries.associate { (phase, millis) ->
+            "${phase.name.lowercase()}_ms" to millis
+        }
+
+        return result.withCounters(counters)
+    }
+
+    /* Same steps as SyncWorker, without progress reporting. */
+    private fun sync(dataRepository: DataRepository, timings: SyncTimings) {
+        val namesakes = SyncUtils.groupAllNotebooksByName(dataRepository, timings)
+
+        for (namesake in namesakes.values) {
+            val action = SyncUtils.syncNamesake(dataRepository, namesake, timings)
+
+            assertNotEquals(action.message, BookAction.Type.ERROR, action.type)
+
+            dataRepository.setBookLastActionAndSyncStatus(
+                    namesake.book.book.id, action, namesake.status.toString())
+        }
+
+        for (repo in dataRepository.getSyncRepos()) {
+            if (repo is TwoWaySyncRepo) {
+                timings.measure(SyncTimings.Phase.PUSH) {
+                    repo.tryPushIfHeadDiffersFromRemote()
+                }
+            }
+        }
+    }
+
+    /**
+     * Remote side of a repository, which can be changed behind the app's back.
+     */
+    private abstract class Remote(val env: BenchmarkEnvironment) : Closeable {
+        abstract val url: String
+
+        open val props: Map<String, String> = emptyMap()
+
+        protected lateinit var repo: Repo
+
+        /** Called once the repository has been created. */
+        open fun connect(repo: Repo) {
+            this.repo = repo
+        }
+
+        /** Replaces books' content in the repository. */
+        open fun change(books: Map<String, SyntheticOrg>) {
+            val syncRepo = env.dataRepository.getRepoInstance(repo.id, repo.type, repo.url)
+
+            for ((path, org) in books) {
+                val file = File(env.tmpDir, "remote.org")
+                org.writeTo(file)
+                syncRepo.storeBook(file, path)
+                file.delete()
+            }
+        }
+
+        override fun close() {
+        }
+    }
+
+    private class DirectoryRemote(env: BenchmarkEnvironment) : Remote(env) {
+        private val dir = File(env.tmpDir, "directory").apply { mkdirs() }
+
+        override val url: String = Uri.fromFile(dir).toString()
+    }
+
+    private class DatabaseRemote(env: BenchmarkEnvironment) : Remote(env) {
+        override val url = "mock://repo"
+    }
+
+    private class WebdavRemote(env: BenchmarkEnvironment) : Remote(env) {
+        private val serverRootDir = File(env.tmpDir, "webdav").apply { mkdirs() }
+
+        private val server = MiltonWebDAVFileServer(serverRootDir).apply {
+            userCredentials["user"] = "secret"
+            start()
+        }
+
+        override val url = "http://localhost:8081"
+
+        override val props = mapOf(
+                WebdavRepo.USERNAME_PREF_KEY to "user",
+                WebdavRepo.PASSWORD_PREF_KEY to "secret")
+
+        override fun close() {
+            server.stop()
+        }
+    }
+
+    /* Remote changes are committed in another clone and pushed. */
+    private inner class GitRemote(env: BenchmarkEnvironment) : Remote(env) {
+        private val bareRepoDir = File(env.tmpDir, "remote.git")
+
+        private val otherCloneDir = File(env.tmpDir, "other")
+
+        private var otherClone: Git? = null
+
+        private var workingTree: File? = null
+
+        override val url = "file://$bareRepoDir"
+
+        init {
+            Git.init().setBare(true).setDirectory(bareRepoDir).call().close()
+            AppPreferences.gitIsEnabled(context, true)
+        }
+
+        override fun connect(repo: Repo) {
+            super.connect(repo)
+
+            val prefs = GitPreferencesFromRepoPrefs(RepoPreferences(context, repo.id, url.toUri()))
+
+            workingTree = File(prefs.repositoryFilepath()).apply { mkdirs() }
+
+            GitRepo.ensureRepositoryExists(prefs, true, null).close()
+        }
+
+        override fun change(books: Map<String, SyntheticOrg>) {
+            val git = otherClone?.also {
+                it.pull().call()
+            } ?: Git.cloneRepository()
+                    .setURI(bareRepoDir.toURI().toString())
+                    .setDirectory(otherCloneDir)
+                    .call()
+                    .also { otherClone = it }
+
+            for ((path, org) in books) {
+                org.writeTo(File(otherCloneDir, path))
+            }
+
+            git.add().addFilepattern(".").call()
+            git.commit().setMessage("Remote changes").setAuthor("Remote", "remote@example.com").call()
+            git.push().call()
+        }
+
+        override fun close() {
+            otherClone?.close()
+            workingTree?.deleteRecursively()
+        }
+    }
+}
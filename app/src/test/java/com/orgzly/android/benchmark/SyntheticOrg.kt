@@ -0,0 +1,106 @@
+package com.orgzly.android.benchmark
+
+import java.io.File
+import java.util.Random
+
+/**
+ * Generates org content with a given shape.
+ *
+ * Content is the same for the same parameters.
+ *
+ * @property headings number of headings
+ * @property maxDepth deepest heading level
+ * @property timestampsEvery every n-th heading gets scheduled, deadline and event times, 0 for none
+ * @property properties number of properties for each heading
+ * @property drawersEvery every n-th heading gets a logbook drawer, 0 for none
+ * @property contentLines lines of content for each heading
+ */
+data class SyntheticOrg(
+        val headings: Int,
+        val maxDepth: Int = 4,
+        val timestampsEvery: Int = 3,
+        val properties: Int = 2,
+        val drawersEvery: Int = 5,
+        val contentLines: Int = 2,
+        val seed: Long = 1) {
+
+    fun writeTo(out: Appendable) {
+        val random = Random(seed)
+
+        out.append("Preface of a synthetic notebook with $headings headings.\n\n")
+
+        var level = 1
+
+        for (i in 1..headings) {
+            // Go deeper, stay, or go back up towards the root
+            level = when (random.nextInt(3)) {
+                0 -> minOf(level + 1, maxDepth)
+                1 -> level
+                else -> maxOf(level - 1 - random.nextInt(level), 1)
+            }
+
+            out.append("*".repeat(level)).append(' ')
+
+            if (i % 4 == 0) {
+                out.append(if (random.nextBoolean()) "TODO " else "DONE ")
+            }
+
+            if (i % 7 == 0) {
+                out.append("[#").append("ABC"[random.nextInt(3)]).append("] ")
+            }
+
+            out.append("Heading ").append(i.toString()).append(' ').append(WORDS[random.nextInt(WORDS.size)])
+
+            if (i % 3 == 0) {
+                out.append(" :").append(TAGS[random.nextInt(TAGS.size)]).append(':')
+            }
+
+            out.append('\n')
+
+            if (timestampsEvery > 0 && i % timestampsEvery == 0) {
+                val day = 1 + random.nextInt(28)
+                val month = 1 + random.nextInt(12)
+                out.append(String.format("SCHEDULED: <2024-%02d-%02d +1w> DEADLINE: <2024-%02d-%02d>\n", month, day, month, day))
+            }
+
+            if (properties > 0) {
+                out.append(":PROPERTIES:\n")
+                for (p in 1..properties) {
+                    out.append(":PROP_").append(p.toString()).append(": value-").append(i.toString()).append('\n')
+                }
+                out.append(":END:\n")
+            }
+
+            if (drawersEvery > 0 && i % drawersEvery == 0) {
+                out.append(":LOGBOOK:\n")
+                out.append("- State \"DONE\"       from \"TODO\"       [2024-01-01 Mon 10:00]\n")
+                out.append("CLOCK: [2024-01-01 Mon 09:00]--[2024-01-01 Mon 10:00] =>  1:00\n")
+                out.append(":END:\n")
+            }
+
+            for (line in 1..contentLines) {
+                out.append("Line ").append(line.toString()).append(" of ").append(WORDS[random.nextInt(WORDS.size)])
+
+                if (timestampsEvery > 0 && i % timestampsEvery == 0 && line == 1) {
+                    out.append(String.format(" <2024-%02d-%02d>", 1 + random.nextInt(12), 1 + random.nextInt(28)))
+                }
+
+                out.append('\n')
+            }
+        }
+    }
+
+    fun writeTo(file: File) {
+        file.bufferedWriter().use { writeTo(it) }
+    }
+
+    override fun toString(): String {
+        return StringBuilder().also { writeTo(it) }.toString()
+    }
+
+    companion object {
+        private val WORDS = listOf("alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel")
+
+        private val TAGS = listOf("work", "home", "errand", "project", "someday")
+    }
+}
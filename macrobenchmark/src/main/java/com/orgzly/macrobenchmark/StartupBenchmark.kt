@@ -0,0 +1,52 @@
+package com.orgzly.macrobenchmark
+
+import androidx.benchmark.macro.CompilationMode
+import androidx.benchmark.macro.ExperimentalMetricApi
+import androidx.benchmark.macro.StartupMode
+import androidx.benchmark.macro.StartupTimingMetric
+import androidx.benchmark.macro.TraceSectionMetric
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Time to initial and full display when the app is started from scratch,
+ * and how long the database warm-up takes ([WARM_UP_TRACE_SECTION]).
+ */
+@RunWith(AndroidJUnit4::class)
+class StartupBenchmark {
+    @get:Rule
+    val rule = MacrobenchmarkRule()
+
+    @Test
+    fun coldStartup() = startup(CompilationMode.DEFAULT)
+
+    /* Worst case, just after installation or update. */
+    @Test
+    fun coldStartupWithoutCompilation() = startup(CompilationMode.None())
+
+    @OptIn(ExperimentalMetricApi::class)
+    private fun startup(compilationMode: CompilationMode) {
+        rule.measureRepeated(
+            packageName = PACKAGE_NAME,
+            metrics = listOf(StartupTimingMetric(), TraceSectionMetric(WARM_UP_TRACE_SECTION)),
+            compilationMode = compilationMode,
+            startupMode = StartupMode.COLD,
+            iterations = ITERATIONS
+        ) {
+            pressHome()
+            startActivityAndWait()
+        }
+    }
+
+    companion object {
+        private const val PACKAGE_NAME = "com.orgzlyrevived"
+
+        /* Same as AppStartup.WARM_UP_TRACE_SECTION in the app. */
+        private const val WARM_UP_TRACE_SECTION = "AppStartup.warmUp"
+
+        private const val ITERATIONS = 10
+    }
+}